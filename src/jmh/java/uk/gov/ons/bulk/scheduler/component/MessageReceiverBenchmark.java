@@ -0,0 +1,117 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import com.google.protobuf.Timestamp;
+import com.google.pubsub.v1.PubsubMessage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import uk.gov.ons.bulk.scheduler.service.AdaptivePollPolicy;
+import uk.gov.ons.bulk.scheduler.service.JobScheduleBatcher;
+import uk.gov.ons.bulk.scheduler.service.PipelineMetrics;
+import uk.gov.ons.bulk.scheduler.service.ScheduledJobIndex;
+
+/**
+ * A processing finished message through messageReceiver on the Quartz engine: decoding
+ * the payload, building the job and its trigger and handing them to the batcher, or
+ * acking a duplicate. The batcher is stubbed to complete straight away, so storing the
+ * batch is not measured.
+ *
+ * The mocks are stub only, Mockito would otherwise keep every invocation for the length
+ * of the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageReceiverBenchmark {
+
+	@Param({ "standard", "ids" })
+	public String type;
+
+	@Param({ "false", "true" })
+	public boolean duplicate;
+
+	private MessageHandler messageReceiver;
+	private Message<byte[]> message;
+
+	@Setup
+	public void setUp() {
+
+		AdaptivePollPolicy adaptivePollPolicy = new AdaptivePollPolicy();
+		ReflectionTestUtils.setField(adaptivePollPolicy, "minSeconds", 30L);
+		ReflectionTestUtils.setField(adaptivePollPolicy, "maxSeconds", 1800L);
+		ReflectionTestUtils.setField(adaptivePollPolicy, "backoffMultiplier", 2.0);
+		ReflectionTestUtils.setField(adaptivePollPolicy, "initialRowsPerSecond", 1000.0);
+
+		SchedulerComponent schedulerComponent = new SchedulerComponent();
+		ReflectionTestUtils.setField(schedulerComponent, "clock", Clock.systemDefaultZone());
+		ReflectionTestUtils.setField(schedulerComponent, "frequencyInMinutes", 5);
+		ReflectionTestUtils.setField(schedulerComponent, "adaptiveEnabled", true);
+		ReflectionTestUtils.setField(schedulerComponent, "maxJitterSeconds", 30L);
+		ReflectionTestUtils.setField(schedulerComponent, "phaseSpreadEnabled", true);
+		ReflectionTestUtils.setField(schedulerComponent, "adaptivePollPolicy", adaptivePollPolicy);
+
+		JobScheduleBatcher jobScheduleBatcher = mock(JobScheduleBatcher.class, withSettings().stubOnly());
+		when(jobScheduleBatcher.schedule(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+		ScheduledJobIndex scheduledJobIndex = mock(ScheduledJobIndex.class, withSettings().stubOnly());
+		when(scheduledJobIndex.contains(anyString())).thenReturn(duplicate);
+
+		PipelineMetrics pipelineMetrics = new PipelineMetrics();
+		ReflectionTestUtils.setField(pipelineMetrics, "clock", Clock.systemDefaultZone());
+		ReflectionTestUtils.setField(pipelineMetrics, "meterRegistry", new SimpleMeterRegistry());
+
+		PubSubComponent pubSubComponent = new PubSubComponent();
+		ReflectionTestUtils.setField(pubSubComponent, "frequencyInMinutes", 5);
+		ReflectionTestUtils.setField(pubSubComponent, "clock", Clock.systemDefaultZone());
+		ReflectionTestUtils.setField(pubSubComponent, "schedulerComponent", schedulerComponent);
+		ReflectionTestUtils.setField(pubSubComponent, "jobScheduleBatcher", jobScheduleBatcher);
+		ReflectionTestUtils.setField(pubSubComponent, "scheduledJobIndex", scheduledJobIndex);
+		ReflectionTestUtils.setField(pubSubComponent, "pipelineMetrics", pipelineMetrics);
+		messageReceiver = pubSubComponent.messageReceiver();
+
+		Instant published = Instant.now();
+		BasicAcknowledgeablePubsubMessage originalMessage = mock(BasicAcknowledgeablePubsubMessage.class, withSettings().stubOnly());
+		when(originalMessage.getPubsubMessage()).thenReturn(PubsubMessage.newBuilder()
+				.setPublishTime(Timestamp.newBuilder().setSeconds(published.getEpochSecond()).setNanos(published.getNano()))
+				.build());
+
+		String payload = "ids".equals(type)
+				? "{\"payload\": {\"jobId\": \"16\", \"idsJobId\": \"ids_16\", \"expectedRows\": 100000}}"
+				: "{\"payload\": {\"jobId\": \"16\", \"expectedRows\": 100000}}";
+
+		message = MessageBuilder.withPayload(payload.getBytes(StandardCharsets.UTF_8))
+				.setHeader(GcpPubSubHeaders.ORIGINAL_MESSAGE, originalMessage)
+				.build();
+	}
+
+	@Benchmark
+	public void messageReceiver() {
+		messageReceiver.handleMessage(message);
+	}
+}
@@ -0,0 +1,100 @@
+package uk.gov.ons.bulk.scheduler.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.SCHEDULER_GROUP;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerTrigger;
+import uk.gov.ons.bulk.scheduler.entities.JobListing;
+import uk.gov.ons.bulk.scheduler.service.JobConsumer;
+import uk.gov.ons.bulk.scheduler.service.JobService;
+
+/**
+ * Writing the /jobs response, as JSON or NDJSON, for jobs already read: streamed as the
+ * store hands them over, or from the cached listing. The jobs are built once up front so
+ * only the controller and Jackson are measured, the database is covered by
+ * JobListingBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JobsSerializationBenchmark {
+
+	@Param({ "100", "10000", "100000" })
+	public int jobs;
+
+	@Param({ "application/json", "application/x-ndjson" })
+	public String accept;
+
+	@Param({ "stream", "cached" })
+	public String source;
+
+	private BulkSchedulerController controller;
+
+	@Setup
+	public void setUp() throws Exception {
+
+		LocalDateTime now = LocalDateTime.now();
+		List<BulkSchedulerJob> listing = new ArrayList<BulkSchedulerJob>();
+
+		for (int i = 0; i < jobs; i++) {
+			String name = String.format("job_results_%07d", i);
+			listing.add(new BulkSchedulerJob(name, SCHEDULER_GROUP, "Query BigQuery status of result table",
+					List.of(new BulkSchedulerTrigger(String.format("Check %s", name), now.plusSeconds(i % 300), now.minusSeconds(300 - i % 300)))));
+		}
+
+		JobService jobService = mock(JobService.class, withSettings().stubOnly());
+
+		if ("cached".equals(source)) {
+			when(jobService.getJobListingETag()).thenReturn("\"benchmark-1\"");
+			when(jobService.getJobListing()).thenReturn(new JobListing("\"benchmark-1\"", List.copyOf(listing)));
+		} else {
+			doAnswer(invocation -> {
+				JobConsumer consumer = invocation.getArgument(1);
+
+				for (BulkSchedulerJob job : listing) {
+					consumer.accept(job);
+				}
+
+				return null;
+			}).when(jobService).streamJobs(any(), any());
+		}
+
+		controller = new BulkSchedulerController();
+		ReflectionTestUtils.setField(controller, "jobService", jobService);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse getScheduledJobs() throws Exception {
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/jobs");
+		request.addHeader("Accept", accept);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		controller.getScheduledJobs(null, null, null, false, accept, new ServletWebRequest(request, response), response);
+
+		return response;
+	}
+}
@@ -0,0 +1,148 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.SCHEDULER_GROUP;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TRIGGER_GROUP;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.entities.JobListing;
+
+/**
+ * The job listing behind /jobs at 100, 10k and 100k jobs, read from the Quartz tables in
+ * an embedded H2 database in MySQL mode: the whole listing, streamed, a page of 100 from
+ * the middle and the overdue filter. cachedListing is the same listing served by
+ * JobListingCache while nothing has changed.
+ *
+ * The listing reads the JDBC job store tables directly, RAMJobStore has no tables to
+ * read and is not a backend of the listing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JobListingBenchmark {
+
+	@Param({ "100", "10000", "100000" })
+	public int jobs;
+
+	private static final String SCHEDULER = "quartzScheduler";
+	private static final int PAGE_SIZE = 100;
+
+	private SingleConnectionDataSource dataSource;
+	private QuartzPendingJobStore pendingJobStore;
+	private JobListingCache jobListingCache;
+	private String middle;
+
+	@Setup
+	public void setUp() throws SchedulerException {
+
+		dataSource = new SingleConnectionDataSource(
+				String.format("jdbc:h2:mem:%s;MODE=MySQL;DB_CLOSE_DELAY=-1", UUID.randomUUID()), true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE QRTZ_JOB_DETAILS (SCHED_NAME VARCHAR(120) NOT NULL, JOB_NAME VARCHAR(190) NOT NULL, "
+				+ "JOB_GROUP VARCHAR(190) NOT NULL, DESCRIPTION VARCHAR(250) NULL, PRIMARY KEY (SCHED_NAME, JOB_NAME, JOB_GROUP))");
+		jdbcTemplate.execute("CREATE TABLE QRTZ_TRIGGERS (SCHED_NAME VARCHAR(120) NOT NULL, TRIGGER_NAME VARCHAR(190) NOT NULL, "
+				+ "TRIGGER_GROUP VARCHAR(190) NOT NULL, JOB_NAME VARCHAR(190) NOT NULL, JOB_GROUP VARCHAR(190) NOT NULL, "
+				+ "DESCRIPTION VARCHAR(250) NULL, NEXT_FIRE_TIME BIGINT NULL, PREV_FIRE_TIME BIGINT NULL, "
+				+ "TRIGGER_STATE VARCHAR(16) DEFAULT 'WAITING' NOT NULL, PRIMARY KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP))");
+		jdbcTemplate.execute("CREATE INDEX IDX_QRTZ_T_J ON QRTZ_TRIGGERS (SCHED_NAME, JOB_NAME, JOB_GROUP)");
+		jdbcTemplate.execute("CREATE INDEX IDX_QRTZ_T_NFT_ST ON QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_STATE, NEXT_FIRE_TIME)");
+
+		long now = System.currentTimeMillis();
+		List<Object[]> details = new ArrayList<Object[]>();
+		List<Object[]> triggers = new ArrayList<Object[]>();
+
+		for (int i = 0; i < jobs; i++) {
+			// One in ten is an ids job and one in twenty overdue
+			String name = String.format(i % 10 == 0 ? "job_results_ids_%07d" : "job_results_%07d", i);
+			long nextFireTime = i % 20 == 0 ? now - 600000 : now + (i % 300) * 1000L;
+
+			details.add(new Object[] { SCHEDULER, name, SCHEDULER_GROUP, "Query BigQuery status of result table" });
+			triggers.add(new Object[] { SCHEDULER, name, TRIGGER_GROUP, name, SCHEDULER_GROUP, String.format("Check %s", name),
+					nextFireTime, nextFireTime - 300000 });
+		}
+
+		jdbcTemplate.batchUpdate("INSERT INTO QRTZ_JOB_DETAILS (SCHED_NAME, JOB_NAME, JOB_GROUP, DESCRIPTION) VALUES (?, ?, ?, ?)", details);
+		jdbcTemplate.batchUpdate("INSERT INTO QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP, JOB_NAME, JOB_GROUP, DESCRIPTION, "
+				+ "NEXT_FIRE_TIME, PREV_FIRE_TIME) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", triggers);
+
+		QuartzJobRepository jobRepository = new QuartzJobRepository();
+		ReflectionTestUtils.setField(jobRepository, "jdbcTemplate", jdbcTemplate);
+		// H2 does not accept the MySQL streaming fetch size
+		ReflectionTestUtils.setField(jobRepository, "fetchSize", 1000);
+		jobRepository.init();
+
+		Scheduler scheduler = mock(Scheduler.class, withSettings().stubOnly());
+		when(scheduler.getSchedulerName()).thenReturn(SCHEDULER);
+
+		pendingJobStore = new QuartzPendingJobStore();
+		ReflectionTestUtils.setField(pendingJobStore, "scheduler", scheduler);
+		ReflectionTestUtils.setField(pendingJobStore, "jobRepository", jobRepository);
+		ReflectionTestUtils.setField(pendingJobStore, "clock", Clock.systemDefaultZone());
+		ReflectionTestUtils.setField(pendingJobStore, "overdueSeconds", 60L);
+
+		jobListingCache = new JobListingCache();
+		ReflectionTestUtils.setField(jobListingCache, "pendingJobStore", pendingJobStore);
+		ReflectionTestUtils.setField(jobListingCache, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(jobListingCache, "enabled", true);
+		jobListingCache.init();
+		jobListingCache.getListing();
+
+		middle = jdbcTemplate.queryForObject("SELECT JOB_NAME FROM QRTZ_JOB_DETAILS ORDER BY JOB_NAME LIMIT 1 OFFSET ?", String.class, jobs / 2);
+	}
+
+	@TearDown
+	public void tearDown() {
+		dataSource.destroy();
+	}
+
+	@Benchmark
+	public List<BulkSchedulerJob> getJobs() throws SchedulerException {
+		return pendingJobStore.getJobs(JobFilter.all());
+	}
+
+	@Benchmark
+	public void streamJobs(Blackhole blackhole) throws Exception {
+		pendingJobStore.streamJobs(JobFilter.all(), blackhole::consume);
+	}
+
+	@Benchmark
+	public List<BulkSchedulerJob> getPage() throws SchedulerException {
+		return pendingJobStore.getJobs(new JobFilter(middle, PAGE_SIZE, null, false));
+	}
+
+	@Benchmark
+	public List<BulkSchedulerJob> getOverdueJobs() throws SchedulerException {
+		return pendingJobStore.getJobs(new JobFilter(null, null, null, true));
+	}
+
+	@Benchmark
+	public JobListing cachedListing() throws SchedulerException {
+		return jobListingCache.getListing();
+	}
+}
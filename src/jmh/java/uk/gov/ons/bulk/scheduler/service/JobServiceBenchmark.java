@@ -0,0 +1,172 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.SCHEDULER_GROUP;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.StandardTableDefinition;
+import com.google.cloud.bigquery.StandardTableDefinition.StreamingBuffer;
+import com.google.cloud.bigquery.Table;
+import com.google.cloud.bigquery.TableId;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import uk.gov.ons.bulk.scheduler.component.SchedulerComponent;
+import uk.gov.ons.bulk.scheduler.entities.Exportable;
+
+/**
+ * One fired check through JobService.execute with the metadata strategy, the BigQuery
+ * gateway and the adaptive poll policy, against a BigQuery that answers tables.get from
+ * memory. While buffering the table still has rows in its streaming buffer and the job
+ * is rescheduled, once exportable the export is handed to a publisher that does nothing.
+ * The Scheduler is a stub, so neither the reschedule nor the export touch a job store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JobServiceBenchmark {
+
+	@Param({ "buffering", "exportable" })
+	public String table;
+
+	private static final int EXPECTED_ROWS = 100000;
+
+	private JobService jobService;
+	private BigQueryGateway bigQueryGateway;
+	private JobEventBroadcaster jobEventBroadcaster;
+	private final JobKey key = new JobKey("job_results_16", SCHEDULER_GROUP);
+
+	@Setup
+	public void setUp() {
+
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+		StreamingBuffer streamingBuffer = mock(StreamingBuffer.class, withSettings().stubOnly());
+		when(streamingBuffer.getEstimatedRows()).thenReturn(1000L);
+
+		StandardTableDefinition definition = mock(StandardTableDefinition.class, withSettings().stubOnly());
+		boolean buffering = "buffering".equals(table);
+		when(definition.getNumRows()).thenReturn(buffering ? EXPECTED_ROWS - 1000L : EXPECTED_ROWS);
+		when(definition.getStreamingBuffer()).thenReturn(buffering ? streamingBuffer : null);
+
+		Table bigQueryTable = mock(Table.class, withSettings().stubOnly());
+		when(bigQueryTable.getDefinition()).thenReturn(definition);
+
+		BigQuery bigQuery = mock(BigQuery.class, withSettings().stubOnly());
+		when(bigQuery.getTable(any(TableId.class))).thenReturn(bigQueryTable);
+
+		bigQueryGateway = new BigQueryGateway();
+		ReflectionTestUtils.setField(bigQueryGateway, "bigQuery", bigQuery);
+		ReflectionTestUtils.setField(bigQueryGateway, "clock", Clock.systemDefaultZone());
+		ReflectionTestUtils.setField(bigQueryGateway, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(bigQueryGateway, "timeoutSeconds", 60L);
+		ReflectionTestUtils.setField(bigQueryGateway, "acquireTimeoutMillis", 1000L);
+		ReflectionTestUtils.setField(bigQueryGateway, "initialLimit", 20);
+		ReflectionTestUtils.setField(bigQueryGateway, "minLimit", 2);
+		ReflectionTestUtils.setField(bigQueryGateway, "maxLimit", 100);
+		ReflectionTestUtils.setField(bigQueryGateway, "backoffRatio", 0.5);
+		ReflectionTestUtils.setField(bigQueryGateway, "latencyThresholdMillis", 10000L);
+		ReflectionTestUtils.setField(bigQueryGateway, "failureThreshold", 5);
+		ReflectionTestUtils.setField(bigQueryGateway, "openSeconds", 120L);
+		bigQueryGateway.init();
+
+		JobProgressTracker progressTracker = new JobProgressTracker();
+		ReflectionTestUtils.setField(progressTracker, "clock", Clock.systemDefaultZone());
+		ReflectionTestUtils.setField(progressTracker, "expectedRowsRatio", 1.0);
+		ReflectionTestUtils.setField(progressTracker, "maxTrackedTables", 100000);
+
+		QueryReadinessStrategy queryReadinessStrategy = new QueryReadinessStrategy();
+		ReflectionTestUtils.setField(queryReadinessStrategy, "bigQueryGateway", bigQueryGateway);
+		ReflectionTestUtils.setField(queryReadinessStrategy, "progressTracker", progressTracker);
+
+		MetadataReadinessStrategy metadataReadinessStrategy = new MetadataReadinessStrategy();
+		ReflectionTestUtils.setField(metadataReadinessStrategy, "bigQueryGateway", bigQueryGateway);
+		ReflectionTestUtils.setField(metadataReadinessStrategy, "queryReadinessStrategy", queryReadinessStrategy);
+		ReflectionTestUtils.setField(metadataReadinessStrategy, "progressTracker", progressTracker);
+
+		AdaptivePollPolicy adaptivePollPolicy = new AdaptivePollPolicy();
+		ReflectionTestUtils.setField(adaptivePollPolicy, "minSeconds", 30L);
+		ReflectionTestUtils.setField(adaptivePollPolicy, "maxSeconds", 1800L);
+		ReflectionTestUtils.setField(adaptivePollPolicy, "backoffMultiplier", 2.0);
+		ReflectionTestUtils.setField(adaptivePollPolicy, "initialRowsPerSecond", 1000.0);
+
+		SchedulerComponent schedulerComponent = new SchedulerComponent();
+		ReflectionTestUtils.setField(schedulerComponent, "clock", Clock.systemDefaultZone());
+		ReflectionTestUtils.setField(schedulerComponent, "frequencyInMinutes", 5);
+		ReflectionTestUtils.setField(schedulerComponent, "adaptiveEnabled", true);
+		ReflectionTestUtils.setField(schedulerComponent, "maxJitterSeconds", 30L);
+		ReflectionTestUtils.setField(schedulerComponent, "adaptivePollPolicy", adaptivePollPolicy);
+
+		// No subscribers, as when nobody is watching /jobs/events
+		jobEventBroadcaster = new JobEventBroadcaster();
+		ReflectionTestUtils.setField(jobEventBroadcaster, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(jobEventBroadcaster, "clock", Clock.systemDefaultZone());
+		jobEventBroadcaster.init();
+
+		JobProgressStore jobProgressStore = new JobProgressStore();
+		ReflectionTestUtils.setField(jobProgressStore, "clock", Clock.systemDefaultZone());
+		ReflectionTestUtils.setField(jobProgressStore, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(jobProgressStore, "maxEntries", 10000);
+		jobProgressStore.init();
+
+		PipelineMetrics pipelineMetrics = new PipelineMetrics();
+		ReflectionTestUtils.setField(pipelineMetrics, "clock", Clock.systemDefaultZone());
+		ReflectionTestUtils.setField(pipelineMetrics, "meterRegistry", meterRegistry);
+
+		jobService = new JobService();
+		ReflectionTestUtils.setField(jobService, "scheduler", mock(Scheduler.class, withSettings().stubOnly()));
+		ReflectionTestUtils.setField(jobService, "exportPublisher", new ExportPublisher() {
+
+			@Override
+			public void export(Exportable exportable, JobKey key) {
+			}
+
+			@Override
+			public boolean isInFlight(JobKey key) {
+				return false;
+			}
+		});
+		ReflectionTestUtils.setField(jobService, "readinessStrategies", List.of(metadataReadinessStrategy, queryReadinessStrategy));
+		ReflectionTestUtils.setField(jobService, "readinessStrategyName", "metadata");
+		ReflectionTestUtils.setField(jobService, "progressTracker", progressTracker);
+		ReflectionTestUtils.setField(jobService, "adaptivePollPolicy", adaptivePollPolicy);
+		ReflectionTestUtils.setField(jobService, "schedulerComponent", schedulerComponent);
+		ReflectionTestUtils.setField(jobService, "jobEventBroadcaster", jobEventBroadcaster);
+		ReflectionTestUtils.setField(jobService, "jobProgressStore", jobProgressStore);
+		ReflectionTestUtils.setField(jobService, "pipelineMetrics", pipelineMetrics);
+		ReflectionTestUtils.setField(jobService, "adaptiveEnabled", true);
+		ReflectionTestUtils.setField(jobService, "frequencyInMinutes", 5);
+		jobService.init();
+	}
+
+	@TearDown
+	public void tearDown() {
+		bigQueryGateway.shutdown();
+		jobEventBroadcaster.stop();
+	}
+
+	@Benchmark
+	public void execute() {
+		jobService.execute("16", null, EXPECTED_ROWS, key, System.currentTimeMillis(), 0);
+	}
+}
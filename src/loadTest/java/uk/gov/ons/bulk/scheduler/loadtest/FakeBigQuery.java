@@ -0,0 +1,169 @@
+package uk.gov.ons.bulk.scheduler.loadtest;
+
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.FieldList;
+import com.google.cloud.bigquery.FieldValue;
+import com.google.cloud.bigquery.FieldValueList;
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
+import com.google.cloud.bigquery.StandardSQLTypeName;
+import com.google.cloud.bigquery.StandardTableDefinition;
+import com.google.cloud.bigquery.StandardTableDefinition.StreamingBuffer;
+import com.google.cloud.bigquery.Table;
+import com.google.cloud.bigquery.TableId;
+import com.google.cloud.bigquery.TableResult;
+import org.mockito.Answers;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Stands in for BigQuery with result tables whose rows all land in the streaming buffer
+ * when the table is created and drain into managed storage at the table's own rate.
+ * Once drained the buffer is still reported, without an estimate, for ambiguousMillis.
+ * Answers tables.get and the row_count and COUNT(1) queries of the metadata and query
+ * readiness strategies. As in BigQuery, COUNT(1) includes the rows still in the buffer
+ * and row_count does not. The batched strategy's queries are not answered. Tables drain
+ * by clock, which the simulation moves on in virtual time.
+ */
+class FakeBigQuery {
+
+    private static final Pattern COUNT_QUERY = Pattern.compile("COUNT\\(1\\) AS count FROM \\S+\\.(\\w+)$");
+
+    private final Map<String, SimulatedTable> tables = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final long latencyMillis;
+    private final long ambiguousMillis;
+    private final BigQuery bigQuery;
+
+    FakeBigQuery(Clock clock, long latencyMillis, long ambiguousMillis) {
+        this.clock = clock;
+        this.latencyMillis = latencyMillis;
+        this.ambiguousMillis = ambiguousMillis;
+        // Stub only, Mockito would otherwise keep every call for the length of the run
+        bigQuery = mock(BigQuery.class, withSettings().stubOnly().defaultAnswer(this::answer));
+    }
+
+    BigQuery getBigQuery() {
+        return bigQuery;
+    }
+
+    void createTable(String tableId, long rows, double drainRowsPerSecond) {
+        tables.put(tableId, new SimulatedTable(clock.millis(), rows, drainRowsPerSecond));
+    }
+
+    /**
+     * Calls answered so far, by BigQuery method.
+     */
+    Map<String, Long> getCalls() {
+        Map<String, Long> counts = new TreeMap<>();
+        calls.forEach((method, count) -> counts.put(method, count.sum()));
+        return counts;
+    }
+
+    private Object answer(InvocationOnMock invocation) throws Throwable {
+
+        String method = invocation.getMethod().getName();
+        Object argument = invocation.getArguments().length > 0 ? invocation.getArgument(0) : null;
+
+        if (!(method.equals("getTable") && argument instanceof TableId) && !(method.equals("query") && argument instanceof QueryJobConfiguration)) {
+            return Answers.RETURNS_DEFAULTS.answer(invocation);
+        }
+
+        calls.computeIfAbsent(method, key -> new LongAdder()).increment();
+
+        if (latencyMillis > 0) {
+            Thread.sleep(latencyMillis);
+        }
+
+        return method.equals("getTable") ? table((TableId) argument) : query((QueryJobConfiguration) argument);
+    }
+
+    private Table table(TableId tableId) {
+
+        SimulatedTable simulated = tables.get(tableId.getTable());
+
+        if (simulated == null) {
+            return null;
+        }
+
+        long now = clock.millis();
+        long drained = simulated.drained(now);
+        StreamingBuffer streamingBuffer = null;
+
+        if (drained < simulated.rows()) {
+            streamingBuffer = streamingBuffer(simulated.rows() - drained);
+        } else if (now < simulated.drainedAt() + ambiguousMillis) {
+            streamingBuffer = streamingBuffer(null);
+        }
+
+        StandardTableDefinition definition = mock(StandardTableDefinition.class, withSettings().stubOnly());
+        when(definition.getNumRows()).thenReturn(drained);
+        when(definition.getStreamingBuffer()).thenReturn(streamingBuffer);
+
+        Table table = mock(Table.class, withSettings().stubOnly());
+        when(table.getDefinition()).thenReturn(definition);
+
+        return table;
+    }
+
+    private StreamingBuffer streamingBuffer(Long estimatedRows) {
+        StreamingBuffer streamingBuffer = mock(StreamingBuffer.class, withSettings().stubOnly());
+        when(streamingBuffer.getEstimatedRows()).thenReturn(estimatedRows);
+        return streamingBuffer;
+    }
+
+    private TableResult query(QueryJobConfiguration queryConfig) {
+
+        String query = queryConfig.getQuery();
+        List<FieldValueList> rows;
+
+        if (query.contains("__TABLES__") && queryConfig.getNamedParameters().containsKey("tableId")) {
+            QueryParameterValue tableId = queryConfig.getNamedParameters().get("tableId");
+            SimulatedTable simulated = tables.get(tableId.getValue());
+            rows = simulated != null ? List.of(row("row_count", simulated.drained(clock.millis()))) : List.of();
+        } else {
+            Matcher matcher = COUNT_QUERY.matcher(query);
+
+            if (!matcher.find() || !tables.containsKey(matcher.group(1))) {
+                throw new UnsupportedOperationException(String.format("Not faked: %s", query));
+            }
+
+            rows = List.of(row("count", tables.get(matcher.group(1)).rows()));
+        }
+
+        TableResult result = mock(TableResult.class, withSettings().stubOnly());
+        when(result.iterateAll()).thenReturn(rows);
+
+        return result;
+    }
+
+    private FieldValueList row(String name, long value) {
+        return FieldValueList.of(List.of(FieldValue.of(FieldValue.Attribute.PRIMITIVE, Long.toString(value))),
+                FieldList.of(Field.of(name, StandardSQLTypeName.INT64)));
+    }
+
+    private record SimulatedTable(long createdAt, long rows, double drainRowsPerSecond) {
+
+        long drained(long now) {
+            return Math.min(rows, (long) ((now - createdAt) / 1000.0 * drainRowsPerSecond));
+        }
+
+        long drainedAt() {
+            return createdAt + (long) Math.ceil(rows * 1000 / drainRowsPerSecond);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package uk.gov.ons.bulk.scheduler.loadtest;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.pubsub.v1.ProjectSubscriptionName;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The original message header of a message sent straight to pubsubInputChannel, as the
+ * inbound adapter would set it, telling the load test when it is acked or nacked.
+ */
+class FakePubsubMessage implements BasicAcknowledgeablePubsubMessage {
+
+    private final PubsubMessage pubsubMessage;
+    private final Runnable onAck;
+    private final Runnable onNack;
+
+    FakePubsubMessage(PubsubMessage pubsubMessage, Runnable onAck, Runnable onNack) {
+        this.pubsubMessage = pubsubMessage;
+        this.onAck = onAck;
+        this.onNack = onNack;
+    }
+
+    @Override
+    public ProjectSubscriptionName getProjectSubscriptionName() {
+        return ProjectSubscriptionName.of("loadtest", "processing-finished-subscription");
+    }
+
+    @Override
+    public PubsubMessage getPubsubMessage() {
+        return pubsubMessage;
+    }
+
+    @Override
+    public CompletableFuture<Void> ack() {
+        onAck.run();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> nack() {
+        onNack.run();
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,20 @@
+package uk.gov.ons.bulk.scheduler.loadtest;
+
+/**
+ * Percentiles of the timings reported by the load test and the simulation.
+ */
+final class Percentiles {
+
+    private Percentiles() {
+    }
+
+    static String summary(long[] sorted, String unit) {
+        return String.format("p50 %d%s, p90 %d%s, p99 %d%s, max %d%s", percentile(sorted, 0.5), unit, percentile(sorted, 0.9), unit,
+                percentile(sorted, 0.99), unit, sorted[sorted.length - 1], unit);
+    }
+
+    // Nearest rank
+    static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
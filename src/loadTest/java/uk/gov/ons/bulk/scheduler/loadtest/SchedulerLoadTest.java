@@ -0,0 +1,225 @@
+package uk.gov.ons.bulk.scheduler.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.gax.core.CredentialsProvider;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.service.JobService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.IDS_TABLE_ID;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TABLE_ID;
+
+/**
+ * Sends loadtest.messages synthetic processing finished messages through the real
+ * PubSubComponent, Quartz on an embedded H2 job store and JobService, against
+ * {@link FakeBigQuery}. Messages go straight to pubsubInputChannel, the inbound adapter
+ * is not started, and exports are taken from the outbox by a stubbed PubSubTemplate.
+ * Reports throughput, the time from sending a message to its export being published
+ * and the BigQuery calls made. Every loadtest property can be overridden with -P on
+ * the loadTest task.
+ */
+@SpringBootTest
+@ActiveProfiles("loadtest")
+class SchedulerLoadTest {
+
+    @TestConfiguration
+    static class StandIns {
+
+        @Bean
+        FakeBigQuery fakeBigQuery(Clock clock, @Value("${loadtest.bigquery.latency-millis}") long latencyMillis,
+                @Value("${loadtest.bigquery.ambiguous-seconds}") long ambiguousSeconds) {
+            return new FakeBigQuery(clock, latencyMillis, ambiguousSeconds * 1000);
+        }
+
+        @Bean
+        BigQuery bigQuery(FakeBigQuery fakeBigQuery) {
+            return fakeBigQuery.getBigQuery();
+        }
+
+        @Bean
+        CredentialsProvider googleCredentials() {
+            return NoCredentialsProvider.create();
+        }
+    }
+
+    @MockitoBean
+    private PubSubTemplate pubSubTemplate;
+
+    @Autowired
+    @Qualifier("pubsubInputChannel")
+    private MessageChannel pubsubInputChannel;
+
+    @Autowired
+    private FakeBigQuery fakeBigQuery;
+
+    @Autowired
+    private JobService jobService;
+
+    @Value("${loadtest.messages}")
+    private int messages;
+
+    @Value("${loadtest.publish-rate}")
+    private double publishRate;
+
+    @Value("${loadtest.ids-ratio}")
+    private double idsRatio;
+
+    @Value("${loadtest.short-ratio}")
+    private double shortRatio;
+
+    @Value("${loadtest.expected-rows.min}")
+    private int minExpectedRows;
+
+    @Value("${loadtest.expected-rows.max}")
+    private int maxExpectedRows;
+
+    @Value("${loadtest.bigquery.drain-rows-per-second.min}")
+    private double minDrainRate;
+
+    @Value("${loadtest.bigquery.drain-rows-per-second.max}")
+    private double maxDrainRate;
+
+    @Value("${loadtest.seed}")
+    private long seed;
+
+    @Value("${loadtest.timeout-minutes}")
+    private long timeoutMinutes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, JobTiming> timings = new ConcurrentHashMap<>();
+    private final LongAdder nacks = new LongAdder();
+    private final LongAdder duplicateExports = new LongAdder();
+
+    @Test
+    void testLoad() throws Exception {
+        CountDownLatch exported = new CountDownLatch(messages);
+
+        when(pubSubTemplate.publish(anyString(), anyString())).thenAnswer(invocation -> {
+            JsonNode exportable = objectMapper.readTree((String) invocation.getArgument(1));
+            JobTiming timing = timings.get(exportable.get("jobId").asText());
+
+            if (timing != null && timing.exportedAt.compareAndSet(0, System.currentTimeMillis())) {
+                exported.countDown();
+            } else {
+                duplicateExports.increment();
+            }
+
+            return CompletableFuture.completedFuture("loadtest");
+        });
+
+        Random random = new Random(seed);
+        long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        long intervalNanos = publishRate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / publishRate) : 0;
+
+        for (int i = 0; i < messages; i++) {
+            LockSupport.parkNanos(startNanos + i * intervalNanos - System.nanoTime());
+            send(Integer.toString(i + 1), random);
+        }
+
+        long sent = System.currentTimeMillis();
+
+        assertTrue(exported.await(timeoutMinutes, TimeUnit.MINUTES),
+                String.format("%d of %d jobs exported within %d minutes", messages - exported.getCount(), messages, timeoutMinutes));
+
+        report(start, sent);
+
+        assertEquals(0, nacks.sum());
+        assertEquals(0, duplicateExports.sum());
+        assertEquals(0, jobService.countJobs(JobFilter.all()));
+    }
+
+    private void send(String jobId, Random random) {
+        boolean ids = random.nextDouble() < idsRatio;
+        int expectedRows = minExpectedRows + random.nextInt(maxExpectedRows - minExpectedRows + 1);
+        // Some tables end up short of the expected rows and have to be settled by a COUNT
+        long rows = random.nextDouble() < shortRatio ? expectedRows - Math.max(1, expectedRows / 100) : expectedRows;
+
+        fakeBigQuery.createTable(String.format("%s%s", ids ? IDS_TABLE_ID : TABLE_ID, jobId), rows,
+                minDrainRate + random.nextDouble() * (maxDrainRate - minDrainRate));
+
+        String payload = String.format("{\"payload\": {\"jobId\": \"%s\", \"idsJobId\": \"%s\", \"expectedRows\": %d}}",
+                jobId, ids ? String.format("ids_%s", jobId) : "", expectedRows);
+
+        Instant now = Instant.now();
+        JobTiming timing = new JobTiming(now.toEpochMilli());
+        timings.put(jobId, timing);
+
+        PubsubMessage pubsubMessage = PubsubMessage.newBuilder()
+                .setData(ByteString.copyFromUtf8(payload))
+                .setPublishTime(Timestamp.newBuilder().setSeconds(now.getEpochSecond()).setNanos(now.getNano()))
+                .build();
+
+        pubsubInputChannel.send(MessageBuilder.withPayload(payload.getBytes(StandardCharsets.UTF_8))
+                .setHeader(GcpPubSubHeaders.ORIGINAL_MESSAGE, new FakePubsubMessage(pubsubMessage,
+                        () -> timing.ackedAt.compareAndSet(0, System.currentTimeMillis()), nacks::increment))
+                .build());
+    }
+
+    private void report(long start, long sent) {
+        long[] toSchedule = timings.values().stream().mapToLong(timing -> timing.ackedAt.get() - timing.sentAt).sorted().toArray();
+        long[] toExport = timings.values().stream().mapToLong(timing -> timing.exportedAt.get() - timing.sentAt).sorted().toArray();
+        long lastAcked = timings.values().stream().mapToLong(timing -> timing.ackedAt.get()).max().orElse(start);
+        long lastExported = timings.values().stream().mapToLong(timing -> timing.exportedAt.get()).max().orElse(start);
+        Map<String, Long> calls = fakeBigQuery.getCalls();
+
+        StringBuilder report = new StringBuilder(String.format("%nLoad test: %d messages%n", messages));
+        report.append(String.format("  sent              %.1f/s over %.1fs%n", rate(messages, start, sent), (sent - start) / 1000.0));
+        report.append(String.format("  scheduled         %.1f/s, last acked after %.1fs%n", rate(messages, start, lastAcked), (lastAcked - start) / 1000.0));
+        report.append(String.format("  exported          %.1f/s, last exported after %.1fs%n", rate(messages, start, lastExported), (lastExported - start) / 1000.0));
+        report.append(String.format("  time to schedule  %s%n", Percentiles.summary(toSchedule, "ms")));
+        report.append(String.format("  time to export    %s%n", Percentiles.summary(toExport, "ms")));
+        calls.forEach((method, count) -> report.append(String.format("  bigquery %-8s  %d, %.2f per job%n", method, count, (double) count / messages)));
+
+        System.out.println(report);
+    }
+
+    private double rate(int count, long from, long to) {
+        return count * 1000.0 / Math.max(1, to - from);
+    }
+
+    private static class JobTiming {
+
+        final long sentAt;
+        final AtomicLong ackedAt = new AtomicLong();
+        final AtomicLong exportedAt = new AtomicLong();
+
+        JobTiming(long sentAt) {
+            this.sentAt = sentAt;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package uk.gov.ons.bulk.scheduler.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.gax.core.CredentialsProvider;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.service.JobService;
+import uk.gov.ons.bulk.scheduler.service.TimingWheelEngine;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.IDS_TABLE_ID;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.JOB_NAME;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.JOB_NAME_IDS;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TABLE_ID;
+
+/**
+ * Replays loadtest.simulation.jobs jobs arriving at random over arrival-hours through
+ * the timing wheel engine and JobService in virtual time. A {@link SimulatedClock} is
+ * the clock of the whole application, the engine is simulated and is ticked here once
+ * per tick-millis of virtual time, every due check running before the clock moves on.
+ * BigQuery is {@link FakeBigQuery} with no latency, its tables draining by the same
+ * clock, and exports are taken by a stubbed PubSubTemplate as they are published.
+ *
+ * Jobs are handed straight to the engine, the inbound channel runs on its own threads
+ * and is covered by the load test. Quartz has no clock to replace, only the engine it
+ * shares JobService, the readiness strategies and the poll policies with is simulated.
+ *
+ * Reports the virtual and wall time taken, the checks fired and BigQuery calls made per
+ * job and the time from a job arriving to its export in virtual time. Run once per
+ * policy, e.g. with -Ploadtest.simulation.adaptive=false for the fixed frequency.
+ */
+@SpringBootTest
+@ActiveProfiles("simulation")
+class SchedulerSimulation {
+
+    @TestConfiguration
+    static class StandIns {
+
+        @Bean
+        @Primary
+        SimulatedClock simulatedClock(@Value("${loadtest.simulation.start}") String start) {
+            return new SimulatedClock(Instant.parse(start), ZoneOffset.UTC);
+        }
+
+        // No latency, a call takes no virtual time
+        @Bean
+        FakeBigQuery fakeBigQuery(SimulatedClock simulatedClock, @Value("${loadtest.simulation.bigquery.ambiguous-seconds}") long ambiguousSeconds) {
+            return new FakeBigQuery(simulatedClock, 0, ambiguousSeconds * 1000);
+        }
+
+        @Bean
+        BigQuery bigQuery(FakeBigQuery fakeBigQuery) {
+            return fakeBigQuery.getBigQuery();
+        }
+
+        @Bean
+        CredentialsProvider googleCredentials() {
+            return NoCredentialsProvider.create();
+        }
+    }
+
+    @MockitoBean
+    private PubSubTemplate pubSubTemplate;
+
+    @Autowired
+    private SimulatedClock clock;
+
+    @Autowired
+    private TimingWheelEngine timingWheelEngine;
+
+    @Autowired
+    private FakeBigQuery fakeBigQuery;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${aims.scheduler.wheel.tick-millis}")
+    private long tickMillis;
+
+    @Value("${aims.scheduler.adaptive.enabled}")
+    private boolean adaptiveEnabled;
+
+    @Value("${aims.scheduler.frequency-minutes}")
+    private int frequencyInMinutes;
+
+    @Value("${loadtest.simulation.jobs}")
+    private int jobs;
+
+    @Value("${loadtest.simulation.arrival-hours}")
+    private long arrivalHours;
+
+    @Value("${loadtest.simulation.max-hours}")
+    private long maxHours;
+
+    @Value("${loadtest.simulation.ids-ratio}")
+    private double idsRatio;
+
+    @Value("${loadtest.simulation.short-ratio}")
+    private double shortRatio;
+
+    @Value("${loadtest.simulation.expected-rows.min}")
+    private int minExpectedRows;
+
+    @Value("${loadtest.simulation.expected-rows.max}")
+    private int maxExpectedRows;
+
+    @Value("${loadtest.simulation.bigquery.drain-rows-per-second.min}")
+    private double minDrainRate;
+
+    @Value("${loadtest.simulation.bigquery.drain-rows-per-second.max}")
+    private double maxDrainRate;
+
+    @Value("${loadtest.simulation.seed}")
+    private long seed;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private long[] arrivedAt;
+    private long[] exportedAt;
+    private int exported;
+    private int duplicateExports;
+
+    @Test
+    void testSimulation() {
+        arrivedAt = new long[jobs];
+        exportedAt = new long[jobs];
+
+        // Published on the ticking thread, the export is confirmed before the check returns
+        when(pubSubTemplate.publish(anyString(), anyString())).thenAnswer(invocation -> {
+            int job = Integer.parseInt(objectMapper.readTree((String) invocation.getArgument(1)).get("jobId").asText()) - 1;
+
+            if (exportedAt[job] == 0) {
+                exportedAt[job] = clock.millis();
+                exported++;
+            } else {
+                duplicateExports++;
+            }
+
+            return CompletableFuture.completedFuture("simulation");
+        });
+
+        Random random = new Random(seed);
+        long start = clock.millis();
+        long[] arrivals = random.longs(jobs, start, start + TimeUnit.HOURS.toMillis(arrivalHours)).sorted().toArray();
+        long deadline = start + TimeUnit.HOURS.toMillis(maxHours);
+        long wallStart = System.currentTimeMillis();
+        int arrived = 0;
+        long now = start;
+
+        while (exported < jobs && now <= deadline) {
+            clock.set(now);
+
+            while (arrived < jobs && arrivals[arrived] <= now) {
+                arrive(arrived++, random);
+            }
+
+            timingWheelEngine.tick();
+            now += tickMillis;
+        }
+
+        report(start, clock.millis(), System.currentTimeMillis() - wallStart);
+
+        assertEquals(jobs, exported, String.format("%d of %d jobs exported within %d simulated hours", exported, jobs, maxHours));
+        assertEquals(0, duplicateExports);
+        assertEquals(0, jobService.countJobs(JobFilter.all()));
+    }
+
+    private void arrive(int job, Random random) {
+        String jobId = Integer.toString(job + 1);
+        boolean ids = random.nextDouble() < idsRatio;
+        int expectedRows = minExpectedRows + random.nextInt(maxExpectedRows - minExpectedRows + 1);
+        // Some tables end up short of the expected rows and have to be settled by a COUNT
+        long rows = random.nextDouble() < shortRatio ? expectedRows - Math.max(1, expectedRows / 100) : expectedRows;
+
+        fakeBigQuery.createTable(String.format("%s%s", ids ? IDS_TABLE_ID : TABLE_ID, jobId), rows,
+                minDrainRate + random.nextDouble() * (maxDrainRate - minDrainRate));
+
+        arrivedAt[job] = clock.millis();
+        timingWheelEngine.schedule(String.format("%s_%s", ids ? JOB_NAME_IDS : JOB_NAME, jobId), jobId, ids ? String.format("ids_%s", jobId) : "",
+                expectedRows);
+    }
+
+    private void report(long start, long end, long wallMillis) {
+        long[] toExport = new long[exported];
+        int i = 0;
+
+        for (int job = 0; job < jobs; job++) {
+            if (exportedAt[job] != 0) {
+                toExport[i++] = TimeUnit.MILLISECONDS.toSeconds(exportedAt[job] - arrivedAt[job]);
+            }
+        }
+
+        Arrays.sort(toExport);
+        long fires = meterRegistry.find("bulk.scheduler.fire.delay").tag("engine", "wheel").timers().stream().mapToLong(Timer::count).sum();
+        Map<String, Long> calls = fakeBigQuery.getCalls();
+
+        StringBuilder report = new StringBuilder(String.format("%nSimulation: %d jobs arriving over %dh, %s polling%n", jobs, arrivalHours,
+                adaptiveEnabled ? "adaptive" : String.format("every %d minutes", frequencyInMinutes)));
+        report.append(String.format("  simulated         %.1fh in %.1fs%n", (end - start) / 3600000.0, wallMillis / 1000.0));
+        report.append(String.format("  exported          %d%n", exported));
+        report.append(String.format("  checks fired      %d, %.2f per job%n", fires, (double) fires / jobs));
+        calls.forEach((method, count) -> report.append(String.format("  bigquery %-8s  %d, %.2f per job%n", method, count, (double) count / jobs)));
+
+        if (exported > 0) {
+            report.append(String.format("  time to export    %s%n", Percentiles.summary(toExport, "s")));
+        }
+
+        System.out.println(report);
+    }
+}
@@ -0,0 +1,44 @@
+package uk.gov.ons.bulk.scheduler.loadtest;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * A clock that only moves when the simulation moves it.
+ */
+class SimulatedClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile long millis;
+
+    SimulatedClock(Instant start, ZoneId zone) {
+        this.millis = start.toEpochMilli();
+        this.zone = zone;
+    }
+
+    void set(long millis) {
+        this.millis = millis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        // A copy in another zone would not move with this clock, and nothing in the scheduler asks for one
+        throw new UnsupportedOperationException("A simulated clock has a single zone");
+    }
+}
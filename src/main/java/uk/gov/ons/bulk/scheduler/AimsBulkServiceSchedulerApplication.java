@@ -1,14 +1,18 @@
 package uk.gov.ons.bulk.scheduler;
 
+import java.time.Clock;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
 
 @SpringBootApplication
+@EnableScheduling
 public class AimsBulkServiceSchedulerApplication {
 
 	public static void main(String[] args) {
@@ -21,4 +25,13 @@ public class AimsBulkServiceSchedulerApplication {
 		return new OpenAPI()
 				.info(new Info().title("Bulk Scheduler API").version(appVersion).description(appDesciption));
 	}
+
+	/**
+	 * Where the scheduler reads the time when it schedules and checks jobs, replaced by a
+	 * simulated clock to run the timing wheel engine in virtual time.
+	 */
+	@Bean
+	public Clock clock() {
+		return Clock.systemDefaultZone();
+	}
 }
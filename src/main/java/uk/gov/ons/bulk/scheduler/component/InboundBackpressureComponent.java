@@ -0,0 +1,84 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.google.cloud.spring.pubsub.integration.inbound.PubSubInboundChannelAdapter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.service.PendingJobStore;
+
+/**
+ * Stops pulling from the subscription while the scheduler holds more than pause-above
+ * pending jobs and starts again once it has drained below resume-below. Messages left
+ * on the subscription in the meantime are simply delivered later. Only an adapter that is
+ * running is paused, so one left stopped by aims.pubsub.inbound.auto-startup false is
+ * never started here.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "aims.pubsub.backpressure.enabled", havingValue = "true")
+public class InboundBackpressureComponent {
+
+	@Autowired
+	private PendingJobStore pendingJobStore;
+
+	@Autowired
+	private PubSubInboundChannelAdapter messageChannelAdapter;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${aims.pubsub.backpressure.pause-above}")
+	private int pauseAbove;
+
+	@Value("${aims.pubsub.backpressure.resume-below}")
+	private int resumeBelow;
+
+	private final AtomicInteger pendingJobs = new AtomicInteger();
+	private volatile boolean paused;
+
+	@PostConstruct
+	public void registerMetrics() {
+		Gauge.builder("bulk.scheduler.pending.jobs", pendingJobs, AtomicInteger::get)
+				.description("Jobs waiting for their table to become exportable")
+				.register(meterRegistry);
+		Gauge.builder("bulk.scheduler.inbound.paused", this, component -> component.isPaused() ? 1 : 0)
+				.description("1 while pulling from the subscription is paused for backpressure")
+				.register(meterRegistry);
+	}
+
+	@Scheduled(fixedDelayString = "${aims.pubsub.backpressure.check-millis}")
+	public void check() {
+
+		try {
+			int pending = pendingJobStore.countJobs();
+			pendingJobs.set(pending);
+
+			if (!paused && pending > pauseAbove && messageChannelAdapter.isRunning()) {
+				log.warn(String.format("%d jobs pending, pausing subscription until below %d", pending, resumeBelow));
+				messageChannelAdapter.stop();
+				paused = true;
+			} else if (paused && pending < resumeBelow) {
+				log.info(String.format("%d jobs pending, resuming subscription", pending));
+				messageChannelAdapter.start();
+				paused = false;
+			}
+		} catch (SchedulerException e) {
+			log.error(String.format("Problem counting pending jobs: %s", e.getMessage()));
+		}
+	}
+
+	boolean isPaused() {
+		return paused;
+	}
+}
@@ -0,0 +1,167 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TRIGGER_GROUP;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The scheduler is not auto-started (spring.quartz.auto-startup is false). Before starting
+ * it, every trigger that misfired while the service was down is given a new start time
+ * released by a token bucket, in priority order, so the catch-up is drained at a fixed
+ * rate rather than fired all at once.
+ */
+@Slf4j
+@Component
+public class MisfireRecoveryComponent {
+
+	@Autowired
+	private Scheduler scheduler;
+
+	@Autowired
+	private SchedulerComponent schedulerComponent;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private Clock clock;
+
+	@Value("${aims.scheduler.misfire.recovery-enabled}")
+	private boolean recoveryEnabled;
+
+	@Value("${aims.scheduler.misfire.threshold-seconds}")
+	private long thresholdSeconds;
+
+	@Value("${aims.scheduler.misfire.rate-per-second}")
+	private double ratePerSecond;
+
+	@Value("${aims.scheduler.misfire.burst}")
+	private int burst;
+
+	@Value("${aims.scheduler.misfire.priority}")
+	private String priority;
+
+	private volatile long[] releaseTimes = new long[0];
+
+	@PostConstruct
+	public void registerMetrics() {
+		Gauge.builder("bulk.scheduler.misfire.backlog", this, MisfireRecoveryComponent::getBacklog)
+				.description("Misfired jobs still waiting for their catch-up check")
+				.register(meterRegistry);
+		FunctionCounter.builder("bulk.scheduler.misfire.drained", this, recovery -> recovery.releaseTimes.length - recovery.getBacklog())
+				.description("Misfired jobs released for their catch-up check")
+				.register(meterRegistry);
+	}
+
+	@Order(2)
+	@EventListener(ApplicationReadyEvent.class)
+	public void recoverAndStart() {
+
+		try {
+			if (recoveryEnabled) {
+				recover();
+			}
+		} catch (SchedulerException e) {
+			log.error(String.format("Problem recovering misfired jobs: %s", e.getMessage()));
+		} finally {
+			try {
+				scheduler.start();
+			} catch (SchedulerException e) {
+				log.error(String.format("Problem starting scheduler: %s", e.getMessage()));
+			}
+		}
+	}
+
+	void recover() throws SchedulerException {
+
+		Date now = Date.from(clock.instant());
+		Date overdueBefore = new Date(now.getTime() - thresholdSeconds * 1000);
+		List<Trigger> overdue = new ArrayList<Trigger>();
+
+		for (TriggerKey triggerKey : scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(TRIGGER_GROUP))) {
+
+			Trigger trigger = scheduler.getTrigger(triggerKey);
+
+			if (trigger != null && trigger.getNextFireTime() != null && trigger.getNextFireTime().before(overdueBefore)) {
+				overdue.add(trigger);
+			}
+		}
+
+		overdue.sort(priorityOrder(overdue));
+
+		long[] times = new long[overdue.size()];
+
+		for (int i = 0; i < overdue.size(); i++) {
+			Trigger trigger = overdue.get(i);
+			Date startAt = releaseTime(now, i);
+
+			scheduler.rescheduleJob(trigger.getKey(), schedulerComponent.createTrigger(trigger.getJobKey(), startAt, 
+					schedulerComponent.getChecks(trigger.getJobDataMap(), trigger)));
+			times[i] = startAt.getTime();
+		}
+
+		releaseTimes = times;
+
+		if (times.length > 0) {
+			log.info(String.format("Draining %d misfired jobs at %.1f per second, %s first, until %s", 
+					times.length, ratePerSecond, priority, new Date(times[times.length - 1])));
+		}
+	}
+
+	/**
+	 * The first burst jobs are released straight away, the rest one token at a time.
+	 */
+	Date releaseTime(Date now, int position) {
+		return position < burst ? now : new Date(now.getTime() + (long) Math.ceil((position - burst + 1) * 1000 / ratePerSecond));
+	}
+
+	int getBacklog() {
+		long now = clock.millis();
+		return (int) Arrays.stream(releaseTimes).filter(time -> time > now).count();
+	}
+
+	private Comparator<Trigger> priorityOrder(List<Trigger> triggers) throws SchedulerException {
+
+		if (!"smallest".equals(priority)) {
+			// Longest overdue first
+			return Comparator.comparing(Trigger::getNextFireTime);
+		}
+
+		Map<JobKey, Integer> expectedRows = new HashMap<JobKey, Integer>();
+
+		for (Trigger trigger : triggers) {
+			JobDetail detail = scheduler.getJobDetail(trigger.getJobKey());
+			expectedRows.put(trigger.getJobKey(), detail != null ? detail.getJobDataMap().getInt("expectedRows") : Integer.MAX_VALUE);
+		}
+
+		return Comparator.comparing((Trigger trigger) -> expectedRows.get(trigger.getJobKey()))
+				.thenComparing(Trigger::getNextFireTime);
+	}
+}
@@ -0,0 +1,179 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.entities.OutboxEntry;
+
+/**
+ * Publishes the rows of BULK_EXPORT_OUTBOX to the export topic in batches, off the Quartz
+ * worker threads. Each row is leased before it is published so that two replicas do not
+ * send it together, deleted once Pub/Sub confirms it and pushed back with exponential
+ * backoff if publishing fails. Rows left behind by a crash are picked up when their
+ * lease runs out. A row that has failed max-attempts times is parked, kept with a next
+ * attempt time that never comes due, for an operator to look at; setting its
+ * NEXT_ATTEMPT_TIME to 0 sends it again.
+ *
+ * A batch is waited on once, for publish-timeout-seconds in all, and the lease is twice
+ * that so it cannot run out while the batch is still being confirmed. The relay runs on
+ * a thread of its own so a slow batch does not hold up the other scheduled tasks.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "aims.export.mode", havingValue = "outbox")
+public class OutboxRelayComponent {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PubSubTemplate pubSubTemplate;
+
+	@Autowired
+	private Clock clock;
+
+	@Value("${aims.pubsub.export-topic}")
+	private String pubsubExportTopic;
+
+	@Value("${aims.export.outbox.relay-millis}")
+	private long relayMillis;
+
+	@Value("${aims.export.outbox.batch-size}")
+	private int batchSize;
+
+	@Value("${aims.export.outbox.publish-timeout-seconds}")
+	private long publishTimeoutSeconds;
+
+	@Value("${aims.export.retry.initial-backoff-millis}")
+	private long initialBackoffMillis;
+
+	@Value("${aims.export.retry.max-backoff-millis}")
+	private long maxBackoffMillis;
+
+	@Value("${aims.export.retry.max-attempts}")
+	private int maxAttempts;
+
+	private String SELECT_DUE = "SELECT ID, JOB_NAME, PAYLOAD, ATTEMPTS, NEXT_ATTEMPT_TIME FROM BULK_EXPORT_OUTBOX WHERE NEXT_ATTEMPT_TIME <= ? ORDER BY ID LIMIT ?";
+	private String CLAIM = "UPDATE BULK_EXPORT_OUTBOX SET NEXT_ATTEMPT_TIME = ? WHERE ID = ? AND NEXT_ATTEMPT_TIME = ?";
+	private String DELETE = "DELETE FROM BULK_EXPORT_OUTBOX WHERE ID = ?";
+	private String RETRY = "UPDATE BULK_EXPORT_OUTBOX SET ATTEMPTS = ATTEMPTS + 1, NEXT_ATTEMPT_TIME = ? WHERE ID = ?";
+
+	private final RowMapper<OutboxEntry> rowMapper = (rs, rowNum) -> new OutboxEntry(rs.getLong("ID"), rs.getString("JOB_NAME"),
+			rs.getString("PAYLOAD"), rs.getInt("ATTEMPTS"), rs.getLong("NEXT_ATTEMPT_TIME"));
+
+	private ScheduledExecutorService relayExecutor;
+
+	@PostConstruct
+	public void start() {
+		relayExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "outbox-relay");
+			thread.setDaemon(true);
+			return thread;
+		});
+		relayExecutor.scheduleWithFixedDelay(this::relayQuietly, relayMillis, relayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		relayExecutor.shutdownNow();
+	}
+
+	private void relayQuietly() {
+		try {
+			relay();
+		} catch (RuntimeException e) {
+			// An exception would cancel every later run of the relay
+			log.error(String.format("Problem relaying exports from outbox: %s", e.getMessage()));
+		}
+	}
+
+	public void relay() {
+
+		long now = clock.millis();
+		long leaseUntil = now + 2 * publishTimeoutSeconds * 1000;
+		List<OutboxEntry> due = jdbcTemplate.query(SELECT_DUE, rowMapper, now, batchSize);
+
+		// Publish the whole batch before waiting so the publisher can send it in as few requests as possible
+		Map<OutboxEntry, CompletableFuture<String>> published = new LinkedHashMap<OutboxEntry, CompletableFuture<String>>();
+
+		for (OutboxEntry entry : due) {
+			if (jdbcTemplate.update(CLAIM, leaseUntil, entry.getId(), entry.getNextAttemptTime()) == 1) {
+				published.put(entry, publish(entry));
+			}
+		}
+
+		if (published.isEmpty()) {
+			return;
+		}
+
+		try {
+			// One deadline for the whole batch, a failed publish is read from its own future below
+			CompletableFuture.allOf(published.values().toArray(new CompletableFuture<?>[0])).get(publishTimeoutSeconds, TimeUnit.SECONDS);
+		} catch (ExecutionException | TimeoutException e) {
+			log.debug(String.format("Not every export in the batch was confirmed: %s", e.getMessage()));
+		} catch (InterruptedException e) {
+			// Unconfirmed rows are published again when their lease runs out
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		for (Map.Entry<OutboxEntry, CompletableFuture<String>> result : published.entrySet()) {
+			OutboxEntry entry = result.getKey();
+			CompletableFuture<String> future = result.getValue();
+
+			if (future.state() == Future.State.SUCCESS) {
+				jdbcTemplate.update(DELETE, entry.getId());
+			} else {
+				String reason = future.state() == Future.State.FAILED ? future.exceptionNow().getMessage() : "timed out";
+				int attempt = entry.getAttempts() + 1;
+
+				if (attempt >= maxAttempts) {
+					log.error(String.format("Unable to publish export of %s after %d attempts, parking outbox row %d: %s", 
+							entry.getJobName(), attempt, entry.getId(), reason));
+					jdbcTemplate.update(RETRY, Long.MAX_VALUE, entry.getId());
+					continue;
+				}
+
+				long backoff = backoffMillis(attempt);
+				log.warn(String.format("Problem publishing export of %s, attempt %d, retrying in %d ms: %s", 
+						entry.getJobName(), attempt, backoff, reason));
+				jdbcTemplate.update(RETRY, clock.millis() + backoff, entry.getId());
+			}
+		}
+
+		log.debug(String.format("Relayed %d exports from outbox", published.size()));
+	}
+
+	private CompletableFuture<String> publish(OutboxEntry entry) {
+		try {
+			return pubSubTemplate.publish(pubsubExportTopic, entry.getPayload());
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	long backoffMillis(int attempt) {
+		return (long) Math.min(maxBackoffMillis, initialBackoffMillis * Math.pow(2, attempt - 1));
+	}
+}
@@ -1,21 +1,27 @@
 package uk.gov.ons.bulk.scheduler.component;
 
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.JOB_NAME;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.JOB_NAME_IDS;
+
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.quartz.JobDetail;
-import org.quartz.Scheduler;
-import org.quartz.SchedulerException;
+import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.Trigger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
-import org.springframework.integration.annotation.MessagingGateway;
 import org.springframework.integration.annotation.ServiceActivator;
-import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.annotation.JsonSetter;
@@ -24,12 +30,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.spring.pubsub.core.PubSubTemplate;
 import com.google.cloud.spring.pubsub.integration.AckMode;
 import com.google.cloud.spring.pubsub.integration.inbound.PubSubInboundChannelAdapter;
-import com.google.cloud.spring.pubsub.integration.outbound.PubSubMessageHandler;
 import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
 import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import com.google.protobuf.Timestamp;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import uk.gov.ons.bulk.scheduler.entities.Message;
+import uk.gov.ons.bulk.scheduler.service.JobScheduleBatcher;
+import uk.gov.ons.bulk.scheduler.service.PipelineMetrics;
+import uk.gov.ons.bulk.scheduler.service.ScheduledJobIndex;
+import uk.gov.ons.bulk.scheduler.service.TimingWheelEngine;
 
 @Slf4j
 @Component
@@ -41,24 +52,65 @@ public class PubSubComponent {
 	@Value("${aims.pubsub.subscription}")
 	private String pubsubSubscription;
 	
-	@Value("${aims.pubsub.export-topic}")
-	private String pubsubExportTopic;
-	
 	@Value("${aims.scheduler.frequency-minutes}")
 	private int frequencyInMinutes;
 	
-	@Autowired
-	private Scheduler scheduler;
+	@Value("${aims.pubsub.inbound.concurrency}")
+	private int inboundConcurrency;
+	
+	@Value("${aims.pubsub.inbound.queue-capacity}")
+	private int inboundQueueCapacity;
+	
+	// Off when messages are sent straight to pubsubInputChannel, as by the load test
+	@Value("${aims.pubsub.inbound.auto-startup}")
+	private boolean inboundAutoStartup;
 	
 	@Autowired
 	private SchedulerComponent schedulerComponent;
 	
-	private final String JOB_NAME = "job_results";
-	private final String JOB_NAME_IDS = "job_results_ids";
+	@Autowired
+	private JobScheduleBatcher jobScheduleBatcher;
+	
+	@Autowired
+	private ScheduledJobIndex scheduledJobIndex;
+	
+	@Autowired
+	private PipelineMetrics pipelineMetrics;
+
+	@Autowired
+	private Clock clock;
+	
+	// Only present when aims.scheduler.engine is wheel
+	@Autowired(required = false)
+	private TimingWheelEngine timingWheelEngine;
+	
+	private ThreadPoolTaskExecutor inboundExecutor;
 		
+	/*
+	 * Messages are handed to a bounded pool so several can be scheduled at once. When the
+	 * pool and its queue are full the message runs on the subscriber thread instead, which
+	 * stops it pulling more until it is done. Pub/Sub flow control caps how many messages
+	 * are leased in the first place.
+	 */
 	@Bean
 	public MessageChannel pubsubInputChannel() {
-		return new DirectChannel();
+		inboundExecutor = new ThreadPoolTaskExecutor();
+		inboundExecutor.setCorePoolSize(inboundConcurrency);
+		inboundExecutor.setMaxPoolSize(inboundConcurrency);
+		inboundExecutor.setQueueCapacity(inboundQueueCapacity);
+		inboundExecutor.setThreadNamePrefix("pubsub-inbound-");
+		inboundExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		inboundExecutor.setWaitForTasksToCompleteOnShutdown(true);
+		inboundExecutor.initialize();
+		
+		return new ExecutorChannel(inboundExecutor);
+	}
+	
+	@PreDestroy
+	public void shutdownInbound() {
+		if (inboundExecutor != null) {
+			inboundExecutor.shutdown();
+		}
 	}
 	
 	@Bean
@@ -68,26 +120,16 @@ public class PubSubComponent {
 				String.format("projects/%s/subscriptions/%s", gcpProject, pubsubSubscription));
 		adapter.setOutputChannel(inputChannel);
 		adapter.setAckMode(AckMode.MANUAL);
+		adapter.setAutoStartup(inboundAutoStartup);
 
 		return adapter;
 	}
 
-	@Bean
-	@ServiceActivator(inputChannel = "pubsubOutputChannel")
-	public MessageHandler messageSender(PubSubTemplate pubsubTemplate) {
-		return new PubSubMessageHandler(pubsubTemplate, pubsubExportTopic);
-	}
-	
-	@MessagingGateway(defaultRequestChannel = "pubsubOutputChannel")
-	public interface PubsubOutboundGateway {
-
-		void sendToPubsub(String text);
-	}
-
 	@Bean
 	@ServiceActivator(inputChannel = "pubsubInputChannel")
 	public MessageHandler messageReceiver() {
 		return message -> {
+			long received = System.nanoTime();
 			log.debug("Message arrived! Payload: " + new String((byte[]) message.getPayload()));
 			
 			try {
@@ -99,16 +141,51 @@ public class PubSubComponent {
 				String jobId = msg.getPayload().getJobId();
 				String idsJobId = msg.getPayload().getIdsJobId();
 				int expectedRows = msg.getPayload().getExpectedRows();
-				String jobName = idsJobId != null && idsJobId.length() > 0 ? JOB_NAME_IDS : JOB_NAME;
-				
-				JobDetail jobDetail = schedulerComponent.createJobDetail(String.format("%s_%s", jobName, jobId), jobId, idsJobId, expectedRows);
-				Trigger trigger = schedulerComponent.createTrigger(jobDetail);
-				scheduler.scheduleJob(jobDetail, trigger);
+				String jobName = String.format("%s_%s", idsJobId != null && idsJobId.length() > 0 ? JOB_NAME_IDS : JOB_NAME, jobId);
 				
-				// Send ACK
 				BasicAcknowledgeablePubsubMessage originalMessage = message.getHeaders()
 						.get(GcpPubSubHeaders.ORIGINAL_MESSAGE, BasicAcknowledgeablePubsubMessage.class);
-				originalMessage.ack();	
+				boolean idsJob = PipelineMetrics.isIdsJob(idsJobId);
+				recordInboundLag(idsJob, originalMessage);
+				
+				if (timingWheelEngine != null) {
+					try {
+						// A single row insert, a duplicate message finds the job already there
+						timingWheelEngine.schedule(jobName, jobId, idsJobId, expectedRows);
+					} catch (RuntimeException e) {
+						log.error(String.format("Unable to schedule job: %s", e));
+						// Send NACK so it is redelivered rather than waiting out its ack deadline
+						originalMessage.nack();
+						return;
+					}
+					
+					originalMessage.ack();
+					pipelineMetrics.recordScheduled(idsJob, received);
+					return;
+				}
+				
+				if (scheduledJobIndex.contains(jobName)) {
+					// Redelivered message, the job is already scheduled
+					log.debug(String.format("Job %s already scheduled, acking duplicate message", jobName));
+					originalMessage.ack();
+					return;
+				}
+				
+				JobDetail jobDetail = schedulerComponent.createJobDetail(jobName, jobId, idsJobId, expectedRows);
+				Trigger trigger = schedulerComponent.createTrigger(jobDetail);
+				
+				// Send ACK once the batch containing this job has been stored
+				jobScheduleBatcher.schedule(jobDetail, trigger).whenComplete((result, se) -> {
+					if (se == null || se instanceof ObjectAlreadyExistsException) {
+						scheduledJobIndex.add(jobName);
+						originalMessage.ack();
+						pipelineMetrics.recordScheduled(idsJob, received);
+					} else {
+						log.error(String.format("Unable to schedule job: %s", se));
+						// Send NACK so it is redelivered rather than waiting out its ack deadline
+						originalMessage.nack();
+					}
+				});
 							
 			} catch (IOException ioe) {
 				log.error(String.format("Unable to read message: %s", ioe));
@@ -117,9 +194,16 @@ public class PubSubComponent {
 				BasicAcknowledgeablePubsubMessage originalMessage = message.getHeaders()
 						.get(GcpPubSubHeaders.ORIGINAL_MESSAGE, BasicAcknowledgeablePubsubMessage.class);
 				originalMessage.nack();	
-			} catch (SchedulerException se) {
-				log.error(String.format("Unable to schedule job: %s", se));
 			}
 		};
 	}
+	
+	private void recordInboundLag(boolean idsJob, BasicAcknowledgeablePubsubMessage originalMessage) {
+		
+		Timestamp publishTime = originalMessage.getPubsubMessage().getPublishTime();
+		
+		if (publishTime.getSeconds() > 0) {
+			pipelineMetrics.recordInboundLag(idsJob, Duration.between(Instant.ofEpochSecond(publishTime.getSeconds(), publishTime.getNanos()), clock.instant()));
+		}
+	}
 }
@@ -3,19 +3,26 @@ package uk.gov.ons.bulk.scheduler.component;
 import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.SCHEDULER_GROUP;
 import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TRIGGER_GROUP;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
+import org.quartz.JobKey;
 import org.quartz.SimpleScheduleBuilder;
+import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import uk.gov.ons.bulk.scheduler.entities.BigQueryJob;
+import uk.gov.ons.bulk.scheduler.service.AdaptivePollPolicy;
 
 @Component
 public class SchedulerComponent {
@@ -23,12 +30,29 @@ public class SchedulerComponent {
 	@Value("${aims.scheduler.frequency-minutes}")
 	private int frequencyInMinutes;
 	
+	@Value("${aims.scheduler.adaptive.enabled}")
+	private boolean adaptiveEnabled;
+	
+	@Value("${aims.scheduler.jitter.max-seconds}")
+	private long maxJitterSeconds;
+	
+	@Value("${aims.scheduler.phase-spread.enabled}")
+	private boolean phaseSpreadEnabled;
+	
+	@Autowired
+	private AdaptivePollPolicy adaptivePollPolicy;
+	
+	@Autowired
+	private Clock clock;
+	
 	public JobDetail createJobDetail(String jobName, String jobId, String idsJobId, int expectedRows) {
 		
 		JobDataMap jobDataMap = new JobDataMap();
 		jobDataMap.put("jobId", jobId);
 		jobDataMap.put("idsJobId", idsJobId);
 		jobDataMap.put("expectedRows", expectedRows);
+		// Created as the job's message arrives
+		jobDataMap.put("receivedAt", clock.millis());
 		
         return JobBuilder.newJob(BigQueryJob.class)
                 .withIdentity(jobName, SCHEDULER_GROUP)
@@ -38,14 +62,67 @@ public class SchedulerComponent {
 	}
 	
     public Trigger createTrigger(JobDetail jobDetail) {
+    	
+    	if (adaptiveEnabled) {
+    		// Small jobs get their first check sooner when the poll schedule is adaptive
+    		return createTrigger(jobDetail.getKey(), adaptivePollPolicy.initialDelay(jobDetail.getJobDataMap().getInt("expectedRows")), 0);
+    	}
+    	
+    	Date earliest = Date.from(ZonedDateTime.now(clock).plusMinutes(frequencyInMinutes).toInstant());
+    	
+        return createTrigger(jobDetail.getKey(), phaseSpreadEnabled ? phaseAligned(jobDetail.getKey(), earliest) : jittered(earliest), 0);
+    }
+    
+    public Trigger createTrigger(JobKey jobKey, Duration delay, int checks) {
+        return createTrigger(jobKey, jittered(Date.from(ZonedDateTime.now(clock).plus(delay).toInstant())), checks);
+    }
+    
+    /**
+     * A trigger that replaces another carries on from the checks it had counted.
+     */
+    public Trigger createTrigger(JobKey jobKey, Date startAt, int checks) {
         return TriggerBuilder.newTrigger()
-                .forJob(jobDetail)
-                .withIdentity(jobDetail.getKey().getName(), TRIGGER_GROUP)
-                .startAt(Date.from(ZonedDateTime.now().plusMinutes(frequencyInMinutes).toInstant()))
+                .forJob(jobKey)
+                .withIdentity(jobKey.getName(), TRIGGER_GROUP)
+                .usingJobData("checks", checks)
+                .startAt(startAt)
                 .withSchedule(SimpleScheduleBuilder.simpleSchedule()
                 		.withIntervalInMinutes(frequencyInMinutes)
                 		.withMisfireHandlingInstructionFireNow()
                 		.repeatForever())
                 .build();
     }
+    
+    /**
+     * The readiness checks counted by the trigger: the count it was created with, or the
+     * job's own count for jobs stored before triggers kept it, and the times it has fired
+     * since. Nothing is written back to the job when it fires.
+     */
+    public int getChecks(JobDataMap jobDataMap, Trigger trigger) {
+    	
+    	int checks = jobDataMap.containsKey("checks") ? jobDataMap.getInt("checks") : 0;
+    	
+    	return trigger instanceof SimpleTrigger simpleTrigger ? checks + simpleTrigger.getTimesTriggered() : checks;
+    }
+    
+    /**
+     * The first time at or after earliest that falls on this job's phase within the polling 
+     * interval. Phases come from a hash of the job name, so a burst of jobs created together 
+     * is spread evenly across the interval rather than all firing at the same moment.
+     */
+    public Date phaseAligned(JobKey jobKey, Date earliest) {
+    	
+    	long interval = Duration.ofMinutes(frequencyInMinutes).toMillis();
+    	// Fibonacci hashing, job names differ only by their trailing id
+    	long phase = ((jobKey.getName().hashCode() * 0x9E3779B97F4A7C15L) >>> 1) % interval;
+    	long offset = Math.floorMod(earliest.getTime() - phase, interval);
+    	
+    	return offset == 0 ? earliest : new Date(earliest.getTime() + interval - offset);
+    }
+    
+    private Date jittered(Date startAt) {
+    	return maxJitterSeconds > 0 
+    			? new Date(startAt.getTime() + ThreadLocalRandom.current().nextLong(maxJitterSeconds * 1000 + 1)) 
+    			: startAt;
+    }
 }
@@ -0,0 +1,198 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerListener;
+import org.quartz.listeners.JobListenerSupport;
+import org.quartz.listeners.TriggerListenerSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.entities.DueTriggers;
+import uk.gov.ons.bulk.scheduler.service.PipelineMetrics;
+import uk.gov.ons.bulk.scheduler.service.QuartzJobRepository;
+
+/**
+ * Measures how far Quartz is falling behind: the lag between a trigger's scheduled and
+ * actual fire time, the triggers that are due but have not been picked up by a worker
+ * and how many of the pool's workers are busy. The listeners are registered by
+ * {@link SchedulerListenerComponent}, the due triggers are counted every sample-millis
+ * and the latest sample is published as gauges and read by
+ * {@link SchedulerLagHealthIndicator}.
+ *
+ * The due triggers are counted across the whole job store, so every instance of a
+ * clustered scheduler reports the same backlog. Jobs run by the timing wheel engine do
+ * not go through Quartz and are not measured here.
+ */
+@Slf4j
+@Component
+public class SchedulerLagComponent {
+
+	// Built by SchedulerFactoryBean, which needs the listeners from this component first
+	@Lazy
+	@Autowired
+	private Scheduler scheduler;
+
+	@Autowired
+	private QuartzJobRepository jobRepository;
+
+	@Autowired
+	private PipelineMetrics pipelineMetrics;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private Clock clock;
+
+	@Value("${aims.scheduler.lag.degraded.fire-lag-seconds}")
+	private long degradedFireLagSeconds;
+
+	@Value("${aims.scheduler.lag.degraded.due-triggers}")
+	private int degradedDueTriggers;
+
+	@Value("${aims.scheduler.lag.degraded.utilisation}")
+	private double degradedUtilisation;
+
+	private final AtomicInteger busyWorkers = new AtomicInteger();
+	// Largest fire lag since the last sample
+	private final AtomicLong maxFireLagMillis = new AtomicLong();
+	private volatile Sample sample = new Sample(0, 0, 0, 0, 0);
+
+	@PostConstruct
+	public void registerMetrics() {
+		Gauge.builder("bulk.scheduler.quartz.fire.lag", this, component -> component.getSample().fireLagMillis() / 1000.0)
+				.description("Largest delay in seconds between a trigger's scheduled and actual fire time in the last sample")
+				.register(meterRegistry);
+		Gauge.builder("bulk.scheduler.quartz.due.triggers", this, component -> component.getSample().dueTriggers())
+				.description("Triggers past their fire time that no worker has picked up")
+				.register(meterRegistry);
+		Gauge.builder("bulk.scheduler.quartz.due.oldest", this, component -> component.getSample().oldestDueMillis() / 1000.0)
+				.description("Seconds the longest waiting due trigger is past its fire time")
+				.register(meterRegistry);
+		Gauge.builder("bulk.scheduler.quartz.workers.busy", busyWorkers, AtomicInteger::get)
+				.description("Quartz workers running a job")
+				.register(meterRegistry);
+		Gauge.builder("bulk.scheduler.quartz.workers.utilisation", this, component -> component.getSample().utilisation())
+				.description("Fraction of the Quartz workers running a job")
+				.register(meterRegistry);
+		Gauge.builder("bulk.scheduler.quartz.degraded", this, component -> component.isDegraded() ? 1 : 0)
+				.description("1 while a scheduling lag threshold is exceeded, scale out on this")
+				.register(meterRegistry);
+	}
+
+	@Scheduled(fixedDelayString = "${aims.scheduler.lag.sample-millis}")
+	public void sample() {
+
+		try {
+			// Triggers pile up while the scheduler is in standby, that is not lag
+			if (!scheduler.isStarted() || scheduler.isInStandbyMode()) {
+				return;
+			}
+
+			long now = clock.millis();
+			DueTriggers due = jobRepository.findDueTriggers(scheduler.getSchedulerName(), now);
+			int poolSize = scheduler.getMetaData().getThreadPoolSize();
+
+			int dueTriggers = due != null ? due.getCount() : 0;
+			long oldestDueMillis = due != null && due.getOldestFireTime() != null ? Math.max(0, now - due.getOldestFireTime()) : 0;
+			double utilisation = poolSize > 0 ? Math.min(1.0, (double) busyWorkers.get() / poolSize) : 0;
+
+			sample = new Sample(maxFireLagMillis.getAndSet(0), dueTriggers, oldestDueMillis, busyWorkers.get(), utilisation);
+
+			if (isDegraded()) {
+				log.warn(String.format("Scheduler falling behind: fire lag %dms, %d triggers due, oldest %dms overdue, %d of %d workers busy",
+						sample.fireLagMillis(), dueTriggers, oldestDueMillis, sample.busyWorkers(), poolSize));
+			}
+		} catch (SchedulerException | DataAccessException e) {
+			log.error(String.format("Problem sampling scheduler lag: %s", e.getMessage()));
+		}
+	}
+
+	/**
+	 * A worker that is stuck stops triggers firing at all, so a due trigger that has
+	 * been waiting counts as lag as well.
+	 */
+	public boolean isDegraded() {
+
+		Sample current = sample;
+
+		return Math.max(current.fireLagMillis(), current.oldestDueMillis()) > degradedFireLagSeconds * 1000
+				|| current.dueTriggers() > degradedDueTriggers
+				|| current.utilisation() >= degradedUtilisation;
+	}
+
+	public Sample getSample() {
+		return sample;
+	}
+
+	TriggerListener triggerListener() {
+
+		return new TriggerListenerSupport() {
+
+			@Override
+			public String getName() {
+				return "scheduler-lag";
+			}
+
+			@Override
+			public void triggerFired(Trigger trigger, JobExecutionContext context) {
+				recordFired(context);
+			}
+		};
+	}
+
+	JobListener jobListener() {
+
+		return new JobListenerSupport() {
+
+			@Override
+			public String getName() {
+				return "scheduler-lag";
+			}
+
+			@Override
+			public void jobToBeExecuted(JobExecutionContext context) {
+				busyWorkers.incrementAndGet();
+			}
+
+			@Override
+			public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+				busyWorkers.decrementAndGet();
+			}
+		};
+	}
+
+	void recordFired(JobExecutionContext context) {
+
+		long lagMillis = Math.max(0, clock.millis() - context.getScheduledFireTime().getTime());
+		maxFireLagMillis.accumulateAndGet(lagMillis, Math::max);
+
+		pipelineMetrics.recordFireDelay(PipelineMetrics.isIdsJob(context.getMergedJobDataMap().getString("idsJobId")), "quartz",
+				Duration.ofMillis(lagMillis));
+	}
+
+	int getBusyWorkers() {
+		return busyWorkers.get();
+	}
+
+	public record Sample(long fireLagMillis, int dueTriggers, long oldestDueMillis, int busyWorkers, double utilisation) {
+	}
+}
@@ -0,0 +1,38 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import uk.gov.ons.bulk.scheduler.component.SchedulerLagComponent.Sample;
+
+/**
+ * Reports schedulerLag as DEGRADED while the last sample of {@link SchedulerLagComponent}
+ * exceeds one of the aims.scheduler.lag.degraded thresholds. DEGRADED is mapped to 200,
+ * the instance is still serving and must not be restarted or taken out of the load
+ * balancer, adding replicas is the remedy.
+ */
+@Component
+public class SchedulerLagHealthIndicator implements HealthIndicator {
+
+	public static final Status DEGRADED = new Status("DEGRADED", "Scheduler is falling behind its triggers");
+
+	@Autowired
+	private SchedulerLagComponent schedulerLagComponent;
+
+	@Override
+	public Health health() {
+
+		Sample sample = schedulerLagComponent.getSample();
+
+		return Health.status(schedulerLagComponent.isDegraded() ? DEGRADED : Status.UP)
+				.withDetail("fireLagMillis", sample.fireLagMillis())
+				.withDetail("dueTriggers", sample.dueTriggers())
+				.withDetail("oldestDueMillis", sample.oldestDueMillis())
+				.withDetail("busyWorkers", sample.busyWorkers())
+				.withDetail("utilisation", sample.utilisation())
+				.build();
+	}
+}
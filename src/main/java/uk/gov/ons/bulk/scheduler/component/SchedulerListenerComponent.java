@@ -0,0 +1,110 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.quartz.listeners.TriggerListenerSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+import org.springframework.stereotype.Component;
+
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerTrigger;
+import uk.gov.ons.bulk.scheduler.entities.JobEvent;
+import uk.gov.ons.bulk.scheduler.service.JobEventBroadcaster;
+import uk.gov.ons.bulk.scheduler.service.JobListingCache;
+
+/**
+ * Registers Quartz listeners that apply each job added or deleted and each trigger
+ * scheduled, unscheduled or fired to the cached job listing, and broadcast the jobs that
+ * are scheduled and deleted, along with the listeners of {@link SchedulerLagComponent}
+ * that measure how late triggers fire. SchedulerFactoryBean takes a single set of listeners, so
+ * every listener of the application is registered here.
+ */
+@Component
+public class SchedulerListenerComponent implements SchedulerFactoryBeanCustomizer {
+
+	@Autowired
+	private JobListingCache jobListingCache;
+
+	@Autowired
+	private JobEventBroadcaster jobEventBroadcaster;
+
+	@Autowired
+	private SchedulerLagComponent schedulerLagComponent;
+
+	@Override
+	public void customize(SchedulerFactoryBean schedulerFactoryBean) {
+		schedulerFactoryBean.setSchedulerListeners(new SchedulerListenerSupport() {
+
+			// Its trigger follows in jobScheduled
+			@Override
+			public void jobAdded(JobDetail jobDetail) {
+				jobListingCache.put(new BulkSchedulerJob(jobDetail.getKey().getName(), jobDetail.getKey().getGroup(), 
+						jobDetail.getDescription(), List.of()));
+				jobEventBroadcaster.publish(JobEvent.Type.SCHEDULED, jobDetail.getKey().getName());
+			}
+
+			@Override
+			public void jobDeleted(JobKey jobKey) {
+				jobListingCache.remove(jobKey.getName());
+				jobEventBroadcaster.publish(JobEvent.Type.DELETED, jobKey.getName());
+			}
+
+			@Override
+			public void jobScheduled(Trigger trigger) {
+				jobListingCache.putTrigger(trigger.getJobKey().getName(), toListing(trigger));
+			}
+
+			// Triggers are named after their job
+			@Override
+			public void jobUnscheduled(TriggerKey triggerKey) {
+				jobListingCache.putTrigger(triggerKey.getName(), null);
+			}
+
+			@Override
+			public void triggerFinalized(Trigger trigger) {
+				jobListingCache.putTrigger(trigger.getJobKey().getName(), null);
+			}
+
+			@Override
+			public void schedulingDataCleared() {
+				jobListingCache.invalidate();
+			}
+		});
+
+		schedulerFactoryBean.setGlobalTriggerListeners(new TriggerListenerSupport() {
+
+			@Override
+			public String getName() {
+				return "job-listing";
+			}
+
+			// The trigger's next and previous fire times move on every time it fires
+			@Override
+			public void triggerFired(Trigger trigger, JobExecutionContext context) {
+				jobListingCache.putTrigger(trigger.getJobKey().getName(), toListing(trigger));
+			}
+		}, schedulerLagComponent.triggerListener());
+
+		schedulerFactoryBean.setGlobalJobListeners(schedulerLagComponent.jobListener());
+	}
+
+	private BulkSchedulerTrigger toListing(Trigger trigger) {
+		return new BulkSchedulerTrigger(trigger.getDescription(), toLocalDateTime(trigger.getNextFireTime()), 
+				toLocalDateTime(trigger.getPreviousFireTime()));
+	}
+
+	private LocalDateTime toLocalDateTime(Date date) {
+		return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+	}
+}
@@ -0,0 +1,97 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TRIGGER_GROUP;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves existing triggers onto their phase within the polling interval at startup, so
+ * jobs scheduled before phase spreading was enabled (or in one burst) stop firing together.
+ * Triggers already pushed beyond the next interval by the adaptive schedule are left alone,
+ * as are overdue triggers, which {@link MisfireRecoveryComponent} drains afterwards.
+ * 
+ * Nothing is moved when the poll schedule is adaptive, as it is by default, so this only
+ * runs with aims.scheduler.adaptive.enabled false. Its triggers are placed by the
+ * predicted completion of their table, not by phase, and moving a short re-check onto
+ * its phase could hold back a nearly ready table for a whole interval.
+ */
+@Slf4j
+@Component
+public class TriggerRebalanceComponent {
+
+	@Autowired
+	private Scheduler scheduler;
+
+	@Autowired
+	private SchedulerComponent schedulerComponent;
+
+	@Autowired
+	private Clock clock;
+
+	@Value("${aims.scheduler.frequency-minutes}")
+	private int frequencyInMinutes;
+
+	@Value("${aims.scheduler.phase-spread.rebalance-on-startup}")
+	private boolean rebalanceOnStartup;
+
+	@Value("${aims.scheduler.adaptive.enabled}")
+	private boolean adaptiveEnabled;
+
+	@Order(1)
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebalance() {
+
+		if (!rebalanceOnStartup) {
+			return;
+		}
+
+		if (adaptiveEnabled) {
+			log.info("Poll schedule is adaptive, triggers are not rebalanced onto their phase");
+			return;
+		}
+
+		Date now = Date.from(clock.instant());
+		Date horizon = new Date(now.getTime() + Duration.ofMinutes(frequencyInMinutes).toMillis());
+		int moved = 0;
+
+		try {
+			for (TriggerKey triggerKey : scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(TRIGGER_GROUP))) {
+
+				Trigger trigger = scheduler.getTrigger(triggerKey);
+
+				if (trigger == null || trigger.getNextFireTime() == null 
+						|| trigger.getNextFireTime().before(now) || trigger.getNextFireTime().after(horizon)) {
+					continue;
+				}
+
+				Date startAt = schedulerComponent.phaseAligned(trigger.getJobKey(), now);
+
+				if (Math.abs(startAt.getTime() - trigger.getNextFireTime().getTime()) > 1000) {
+					scheduler.rescheduleJob(triggerKey, schedulerComponent.createTrigger(trigger.getJobKey(), startAt, 
+							schedulerComponent.getChecks(trigger.getJobDataMap(), trigger)));
+					moved++;
+				}
+			}
+
+			log.info(String.format("Rebalanced %d triggers across the %d minute polling interval", moved, frequencyInMinutes));
+		} catch (SchedulerException e) {
+			log.error(String.format("Problem rebalancing triggers: %s", e.getMessage()));
+		}
+	}
+}
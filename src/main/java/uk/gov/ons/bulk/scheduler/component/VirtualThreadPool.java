@@ -0,0 +1,132 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Quartz ThreadPool that runs every job on its own virtual thread. Jobs spend nearly all
+ * of their time blocked on BigQuery, so a semaphore caps how many run at once rather
+ * than a fixed set of platform threads. The cap is org.quartz.threadPool.threadCount.
+ */
+@Slf4j
+public class VirtualThreadPool implements ThreadPool {
+
+	private int threadCount = 10;
+	private String instanceName = "quartz";
+	private Semaphore permits;
+	private ExecutorService executor;
+	private volatile boolean shutdown;
+	private final Object availability = new Object();
+
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
+	@Override
+	public void initialize() throws SchedulerConfigException {
+
+		if (threadCount <= 0) {
+			throw new SchedulerConfigException("Thread count must be > 0");
+		}
+
+		permits = new Semaphore(threadCount);
+		executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(String.format("%s-worker-", instanceName), 0).factory());
+
+		log.info(String.format("Running up to %d concurrent jobs on virtual threads", threadCount));
+	}
+
+	@Override
+	public boolean runInThread(Runnable runnable) {
+
+		if (runnable == null || shutdown) {
+			return false;
+		}
+
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		executor.execute(() -> {
+			try {
+				runnable.run();
+			} finally {
+				permits.release();
+				synchronized (availability) {
+					availability.notifyAll();
+				}
+			}
+		});
+
+		return true;
+	}
+
+	@Override
+	public int blockForAvailableThreads() {
+
+		synchronized (availability) {
+			while (permits.availablePermits() < 1 && !shutdown) {
+				try {
+					availability.wait(500);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+
+		return permits.availablePermits();
+	}
+
+	@Override
+	public void shutdown(boolean waitForJobsToComplete) {
+
+		shutdown = true;
+
+		synchronized (availability) {
+			availability.notifyAll();
+		}
+
+		if (!waitForJobsToComplete) {
+			executor.shutdownNow();
+			return;
+		}
+
+		executor.shutdown();
+
+		try {
+			while (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+				log.info(String.format("Waiting for %d jobs to complete", threadCount - permits.availablePermits()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public int getPoolSize() {
+		return threadCount;
+	}
+
+	@Override
+	public void setInstanceId(String schedInstId) {
+	}
+
+	@Override
+	public void setInstanceName(String schedName) {
+		this.instanceName = schedName;
+	}
+}
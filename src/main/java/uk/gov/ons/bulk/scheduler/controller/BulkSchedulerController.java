@@ -1,29 +1,49 @@
 package uk.gov.ons.bulk.scheduler.controller;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.quartz.SchedulerException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.extern.slf4j.Slf4j;
 import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.entities.JobListing;
+import uk.gov.ons.bulk.scheduler.entities.JobProgressReport;
+import uk.gov.ons.bulk.scheduler.service.JobConsumer;
 import uk.gov.ons.bulk.scheduler.service.JobService;
 
 @Slf4j
@@ -34,33 +54,192 @@ public class BulkSchedulerController {
 	@Autowired
 	private JobService jobService;
 	
-	@Operation(summary = "Get a list of scheduled jobs on the system")
+	@Value("${aims.scheduler.jobs.max-page-size}")
+	private int maxPageSize;
+	
+	private static final String NDJSON = "application/x-ndjson";
+	
+	private final ObjectMapper jobsMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+			.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+			.setSerializationInclusion(Include.NON_NULL);
+	
+	@Operation(summary = "Get a list of scheduled jobs on the system", 
+			description = "The whole listing is streamed as it is read unless a limit is given. A full page carries a Link header "
+					+ "with rel=\"next\" to the next page, and a next field in JSON. Send Accept: application/x-ndjson for one job per line instead of a single JSON object")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Scheduled Jobs list returned OK (can be empty)",
 					content = { @Content(mediaType = "application/json",
+							schema = @Schema(implementation = BulkSchedulerJob.class)),
+							@Content(mediaType = NDJSON,
 							schema = @Schema(implementation = BulkSchedulerJob.class)) }),
 			@ApiResponse(responseCode = "500", description = "Problem with Scheduler",
 					content = @Content) })
-	@GetMapping(value = "/jobs", produces = "application/json")
-	public ResponseEntity<String> getScheduledJobs() {
+	@GetMapping(value = "/jobs", produces = { "application/json", NDJSON })
+	public void getScheduledJobs(
+			@Parameter(description = "Name of the last job of the previous page") @RequestParam(required = false) String after,
+			@Parameter(description = "Maximum number of jobs to return, capped at the maximum page size. Without it every job is returned") @RequestParam(required = false) @Min(value = 1, message = "{limit.val.message}") Integer limit,
+			@Parameter(description = "Only ids jobs when true, only standard jobs when false") @RequestParam(required = false) Boolean ids,
+			@Parameter(description = "Only jobs whose next check is overdue") @RequestParam(required = false, defaultValue = "false") boolean overdue,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+			WebRequest webRequest,
+			HttpServletResponse response) throws IOException {
 
-		List<BulkSchedulerJob> jobs;
+		Integer pageSize = limit != null ? Math.min(limit, maxPageSize) : null;
+		JobFilter filter = new JobFilter(after, pageSize, ids, overdue);
+		
+		// Overdue depends on the clock as well as the set of jobs, so it always goes to the store
+		String eTag = overdue ? null : jobService.getJobListingETag();
+		
+		if (eTag != null && webRequest.checkNotModified(eTag)) {
+			// Nothing has changed since the client's copy, answered without reading the store
+			return;
+		}
+		
+		boolean ndjson = accept != null && accept.contains(NDJSON);
+		response.setContentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON_VALUE);
+		
 		try {
-			jobs = jobService.getJobs();
+			if (eTag != null) {
+				JobListing listing = jobService.getJobListing();
+				response.setHeader(HttpHeaders.ETAG, listing.getETag());
+				
+				writeJobs(response, ndjson, pageSize, consumer -> {
+					for (BulkSchedulerJob job : listing.getJobs().stream()
+							.filter(cached -> filter.matches(cached.getName(), null, 0))
+							.limit(pageSize != null ? pageSize : Long.MAX_VALUE)
+							.toList()) {
+						consumer.accept(job);
+					}
+				});
+			} else {
+				writeJobs(response, ndjson, pageSize, consumer -> jobService.streamJobs(filter, consumer));
+			}
+		} catch (SchedulerException e) {
+			String error = String.format("/jobs error: %s", e.getMessage());
+			log.error(error);
+			
+			if (response.isCommitted()) {
+				// Too late for a 500, the client sees a truncated listing
+				throw new IOException(error, e);
+			}
+			
+			response.reset();
+			response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+			response.getOutputStream().write(new ObjectMapper().createObjectNode().put("error", error).toString().getBytes(StandardCharsets.UTF_8));
+		}
+	}
+	
+	/*
+	 * Jobs are written as they are handed over, the response never holds the listing. A
+	 * page, at most max-page-size jobs, is read before anything is written so that the
+	 * Link header to the next one can go ahead of the body.
+	 */
+	private void writeJobs(HttpServletResponse response, boolean ndjson, Integer limit, JobSource source) throws SchedulerException, IOException {
+		
+		if (limit != null) {
+			List<BulkSchedulerJob> page = new ArrayList<BulkSchedulerJob>(limit);
+			source.forEach(page::add);
+			
+			if (page.size() == limit) {
+				// Pass back as after to get the next page
+				response.setHeader(HttpHeaders.LINK, String.format("<%s>; rel=\"next\"", ServletUriComponentsBuilder.fromCurrentRequest()
+						.replaceQueryParam("after", page.get(page.size() - 1).getName())
+						.build()
+						.encode()
+						.toUriString()));
+			}
+			
+			source = consumer -> {
+				for (BulkSchedulerJob job : page) {
+					consumer.accept(job);
+				}
+			};
+		}
+		
+		JsonGenerator generator = jobsMapper.getFactory().createGenerator(response.getOutputStream());
+		AtomicInteger written = new AtomicInteger();
+		AtomicReference<String> last = new AtomicReference<String>();
+		
+		if (ndjson) {
+			generator.setRootValueSeparator(null);
+		} else {
+			generator.writeStartObject();
+			generator.writeArrayFieldStart("jobs");
+		}
+		
+		source.forEach(job -> {
+			generator.writeObject(job);
 			
-			ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
-					.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
-					.setSerializationInclusion(Include.NON_NULL);
+			if (ndjson) {
+				generator.writeRaw('\n');
+			}
 			
-			return ResponseEntity.ok(objectMapper.createObjectNode().set("jobs", objectMapper.valueToTree(jobs)).toString());
+			if (written.getAndIncrement() == 0) {
+				// Get the first job to the client without waiting for the buffer to fill
+				generator.flush();
+			}
+			
+			last.set(job.getName());
+		});
+		
+		if (!ndjson) {
+			generator.writeEndArray();
+			
+			if (limit != null && written.get() == limit) {
+				generator.writeStringField("next", last.get());
+			}
+			
+			generator.writeEndObject();
+		}
+		
+		generator.flush();
+	}
+	
+	@Operation(summary = "Count the scheduled jobs on the system")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Number of scheduled jobs returned OK",
+					content = @Content),
+			@ApiResponse(responseCode = "500", description = "Problem with Scheduler",
+					content = @Content) })
+	@GetMapping(value = "/jobs/count", produces = "application/json")
+	public ResponseEntity<String> countScheduledJobs(
+			@Parameter(description = "Only ids jobs when true, only standard jobs when false") @RequestParam(required = false) Boolean ids,
+			@Parameter(description = "Only jobs whose next check is overdue") @RequestParam(required = false, defaultValue = "false") boolean overdue) {
+		
+		try {
+			int count = jobService.countJobs(new JobFilter(null, null, ids, overdue));
+			return ResponseEntity.ok(new ObjectMapper().createObjectNode().put("count", count).toString());
 		} catch (SchedulerException e) {
-			String response = String.format("/jobs error: %s", e.getMessage());
+			String response = String.format("/jobs/count error: %s", e.getMessage());
 			log.error(response);
 			return ResponseEntity.internalServerError()
 					.body(new ObjectMapper().createObjectNode().put("error", response).toString());
 		}
 	}
 	
+	@Operation(summary = "Get the progress of a Scheduled Job", 
+			description = "From the job's last readiness check, no query is run. The ETA is estimated from the rate the table is filling")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Progress of the Scheduled Job returned OK",
+					content = { @Content(mediaType = "application/json",
+							schema = @Schema(implementation = JobProgressReport.class)) }),
+			@ApiResponse(responseCode = "404", description = "Scheduled Job has not been checked yet",
+					content = @Content) })
+	@GetMapping(value = "/job/{jobname}/progress", produces = "application/json")
+	public ResponseEntity<String> getJobProgress(
+			@PathVariable(required = true, name = "jobname") @NotBlank(message = "{jobname.val.message}") String jobName) throws IOException {
+		
+		JobProgressReport progress = jobService.getProgress(jobName);
+		
+		if (progress == null) {
+			return ResponseEntity.status(HttpServletResponse.SC_NOT_FOUND).body(new ObjectMapper().createObjectNode()
+					.put("error", String.format("Scheduled Job %s has not been checked", jobName)).toString());
+		}
+		
+		return ResponseEntity.ok(jobsMapper.writeValueAsString(progress));
+	}
+	
 	@Operation(summary = "Delete a Scheduled Job")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Scheduled Job successfully removed from system",
@@ -95,4 +274,9 @@ public class BulkSchedulerController {
 					.body(new ObjectMapper().createObjectNode().put("error", response).toString());
 		}
 	}
+	
+	private interface JobSource {
+		
+		void forEach(JobConsumer consumer) throws SchedulerException, IOException;
+	}
 }
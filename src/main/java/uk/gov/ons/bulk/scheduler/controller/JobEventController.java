@@ -0,0 +1,46 @@
+package uk.gov.ons.bulk.scheduler.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import uk.gov.ons.bulk.scheduler.entities.JobEvent;
+import uk.gov.ons.bulk.scheduler.service.JobEventBroadcaster;
+
+@RestController
+public class JobEventController {
+
+	@Autowired
+	private JobEventBroadcaster jobEventBroadcaster;
+
+	@Operation(summary = "Stream job lifecycle events",
+			description = "Server-Sent Events named scheduled, checked, exportable and deleted. Events are dropped for a client that cannot keep up")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Event stream opened",
+					content = { @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+							schema = @Schema(implementation = JobEvent.class)) }),
+			@ApiResponse(responseCode = "503", description = "Too many clients subscribed",
+					content = @Content) })
+	@GetMapping(value = "/jobs/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> getJobEvents(
+			@Parameter(description = "Only the events of this job") @RequestParam(required = false, name = "jobname") String jobName) {
+
+		SseEmitter emitter = jobEventBroadcaster.subscribe(jobName);
+
+		if (emitter == null) {
+			return ResponseEntity.status(503).build();
+		}
+
+		return ResponseEntity.ok(emitter);
+	}
+}
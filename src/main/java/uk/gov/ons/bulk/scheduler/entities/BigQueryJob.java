@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.component.SchedulerComponent;
 import uk.gov.ons.bulk.scheduler.service.JobService;
 
 @Slf4j
@@ -16,6 +17,9 @@ public class BigQueryJob implements Job {
 	
 	@Autowired
 	private JobService jobService;
+	
+	@Autowired
+	private SchedulerComponent schedulerComponent;
 
 	@Override
 	public void execute(JobExecutionContext context) throws JobExecutionException {
@@ -23,8 +27,16 @@ public class BigQueryJob implements Job {
 		// Query BigQuery to get row count for the result table
 		log.info("Job ** {} ** fired @ {}", context.getJobDetail().getKey().getName(), context.getFireTime());
 		
-		JobDataMap jobDataMap = context.getJobDetail().getJobDataMap();
-        jobService.execute(jobDataMap.getString("jobId"), jobDataMap.getString("idsJobId"), jobDataMap.getInt("expectedRows"), context.getJobDetail().getKey());
+		// The trigger's checks override the job's
+		JobDataMap jobDataMap = context.getMergedJobDataMap();
+		
+		// Jobs scheduled before receivedAt was kept do not have it
+		Long receivedAt = jobDataMap.containsKey("receivedAt") ? jobDataMap.getLong("receivedAt") : null;
+		// This fire has already been counted
+		int checks = schedulerComponent.getChecks(jobDataMap, context.getTrigger()) - 1;
+		
+		jobService.execute(jobDataMap.getString("jobId"), jobDataMap.getString("idsJobId"), jobDataMap.getInt("expectedRows"), 
+				context.getJobDetail().getKey(), receivedAt, checks);
 
         log.info("Next job scheduled @ {}", context.getNextFireTime());
 	}
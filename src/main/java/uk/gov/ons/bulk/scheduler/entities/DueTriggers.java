@@ -0,0 +1,11 @@
+package uk.gov.ons.bulk.scheduler.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+public @Data class DueTriggers {
+	private int count;
+	// Null when nothing is due
+	private Long oldestFireTime;
+}
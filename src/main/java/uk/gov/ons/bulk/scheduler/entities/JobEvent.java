@@ -0,0 +1,28 @@
+package uk.gov.ons.bulk.scheduler.entities;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+public @Data class JobEvent {
+	
+	public enum Type {
+		SCHEDULED, CHECKED, EXPORTABLE, DELETED;
+		
+		public String getEventName() {
+			return name().toLowerCase();
+		}
+	}
+	
+	private long id;
+	private Type type;
+	private String jobName;
+	private Long rowCount;
+	private Long count;
+	private Integer expectedRows;
+	private Instant time;
+}
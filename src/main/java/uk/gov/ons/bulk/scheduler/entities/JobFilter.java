@@ -0,0 +1,39 @@
+package uk.gov.ons.bulk.scheduler.entities;
+
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.JOB_NAME_IDS;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Narrows a job listing. Jobs are listed in job name order: after is the name of the
+ * last job of the previous page and limit the size of the page, null for every job.
+ * ids selects only ids jobs when true and only standard jobs when false. overdue keeps
+ * jobs whose next check is more than the misfire threshold in the past.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public @Data class JobFilter {
+	private String after;
+	private Integer limit;
+	private Boolean ids;
+	private boolean overdue;
+
+	public static JobFilter all() {
+		return new JobFilter();
+	}
+
+	public boolean matches(String jobName, Long nextCheckMillis, long overdueBeforeMillis) {
+
+		if (after != null && jobName.compareTo(after) <= 0) {
+			return false;
+		}
+
+		if (ids != null && ids != jobName.startsWith(String.format("%s_", JOB_NAME_IDS))) {
+			return false;
+		}
+
+		return !overdue || (nextCheckMillis != null && nextCheckMillis < overdueBeforeMillis);
+	}
+}
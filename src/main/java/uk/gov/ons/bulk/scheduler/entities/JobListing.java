@@ -0,0 +1,12 @@
+package uk.gov.ons.bulk.scheduler.entities;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+public @Data class JobListing {
+	private String eTag;
+	private List<BulkSchedulerJob> jobs;
+}
@@ -0,0 +1,29 @@
+package uk.gov.ons.bulk.scheduler.entities;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import lombok.Data;
+
+public @Data class JobProgress {
+
+	private Long rowCount;
+	private Instant checkedAt;
+	private Long previousRowCount;
+	private Instant previousCheckedAt;
+	private Duration lastDelay;
+
+	/**
+	 * Rows per second moved into managed storage between the last two checks, or null
+	 * until there are two checks to compare.
+	 */
+	public Double getFlushRate() {
+
+		if (rowCount == null || previousRowCount == null || checkedAt == null || previousCheckedAt == null) {
+			return null;
+		}
+
+		double seconds = Duration.between(previousCheckedAt, checkedAt).toMillis() / 1000.0;
+		return seconds > 0 ? (rowCount - previousRowCount) / seconds : null;
+	}
+}
@@ -0,0 +1,24 @@
+package uk.gov.ons.bulk.scheduler.entities;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+public @Data class JobProgressReport {
+	private String jobName;
+	private Long rowCount;
+	private Long count;
+	private int expectedRows;
+	private Double percentComplete;
+	private Double flushRate;
+	private Instant firstCheckedAt;
+	private Instant checkedAt;
+	private int checks;
+	private Instant nextCheckAt;
+	private Instant eta;
+	private boolean exportable;
+}
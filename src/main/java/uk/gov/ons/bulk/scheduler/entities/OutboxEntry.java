@@ -0,0 +1,15 @@
+package uk.gov.ons.bulk.scheduler.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+public @Data class OutboxEntry {
+	private long id;
+	private String jobName;
+	private String payload;
+	private int attempts;
+	private long nextAttemptTime;
+}
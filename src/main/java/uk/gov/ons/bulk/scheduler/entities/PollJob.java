@@ -0,0 +1,18 @@
+package uk.gov.ons.bulk.scheduler.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+public @Data class PollJob {
+	private String jobName;
+	private String jobId;
+	private String idsJobId;
+	private int expectedRows;
+	private long nextCheck;
+	private Long receivedAt;
+	// Readiness checks made so far
+	private int checks;
+}
@@ -0,0 +1,19 @@
+package uk.gov.ons.bulk.scheduler.entities;
+
+import lombok.Data;
+
+public @Data class ReadinessResult {
+
+	private Long rowCount;
+	private Long count;
+
+	public ReadinessResult(Long rowCount, Long count) {
+		super();
+		this.rowCount = rowCount;
+		this.count = count;
+	}
+
+	public boolean isExportable() {
+		return rowCount != null && count != null && rowCount.equals(count);
+	}
+}
@@ -0,0 +1,18 @@
+package uk.gov.ons.bulk.scheduler.entities;
+
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published after every heartbeat with the partitions of the job keyspace this replica
+ * owns.
+ */
+@AllArgsConstructor
+public @Data class ShardAssignment {
+
+	private String replicaId;
+	private Set<Integer> partitions;
+	private boolean changed;
+}
@@ -0,0 +1,27 @@
+package uk.gov.ons.bulk.scheduler.exception;
+
+import java.time.Duration;
+
+import lombok.Getter;
+
+/**
+ * BigQuery is degraded or the scheduler is already using all the concurrency it is allowed.
+ * The check should be deferred for retryAfter rather than retried straight away.
+ */
+@Getter
+public class BigQueryUnavailableException extends ReadinessCheckException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Duration retryAfter;
+
+	public BigQueryUnavailableException(String message, Duration retryAfter) {
+		super(message);
+		this.retryAfter = retryAfter;
+	}
+
+	public BigQueryUnavailableException(String message, Duration retryAfter, Throwable cause) {
+		super(message, cause);
+		this.retryAfter = retryAfter;
+	}
+}
@@ -0,0 +1,14 @@
+package uk.gov.ons.bulk.scheduler.exception;
+
+public class ReadinessCheckException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	public ReadinessCheckException(String message) {
+		super(message);
+	}
+
+	public ReadinessCheckException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,58 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import uk.gov.ons.bulk.scheduler.entities.JobProgress;
+
+/**
+ * Predicts when a result table will be complete from its expected rows and the
+ * flush rate seen between checks, and schedules the next check for then. Tables
+ * that are not moving are backed off. Every delay is kept between the configured
+ * minimum and maximum.
+ */
+@Service
+public class AdaptivePollPolicy {
+
+	@Value("${aims.scheduler.adaptive.min-seconds}")
+	private long minSeconds;
+
+	@Value("${aims.scheduler.adaptive.max-seconds}")
+	private long maxSeconds;
+
+	@Value("${aims.scheduler.adaptive.backoff-multiplier}")
+	private double backoffMultiplier;
+
+	@Value("${aims.scheduler.adaptive.initial-rows-per-second}")
+	private double initialRowsPerSecond;
+
+	public Duration initialDelay(int expectedRows) {
+		return bounded(expectedRows > 0 ? expectedRows / initialRowsPerSecond : minSeconds);
+	}
+
+	public Duration nextDelay(JobProgress progress, int expectedRows) {
+
+		if (progress.getRowCount() != null && expectedRows > 0 && progress.getRowCount() >= expectedRows) {
+			// Every row has landed, only waiting for the buffer to drain
+			return bounded(minSeconds);
+		}
+
+		Double flushRate = progress.getFlushRate();
+
+		if (flushRate != null && flushRate > 0 && expectedRows > 0) {
+			return bounded((expectedRows - progress.getRowCount()) / flushRate);
+		}
+
+		if (progress.getLastDelay() == null) {
+			return bounded(minSeconds);
+		}
+
+		return bounded(progress.getLastDelay().getSeconds() * backoffMultiplier);
+	}
+
+	private Duration bounded(double seconds) {
+		return Duration.ofSeconds(Math.max(minSeconds, Math.min(maxSeconds, (long) Math.ceil(seconds))));
+	}
+}
@@ -0,0 +1,187 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.DATA_SET;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.IDS_DATA_SET;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.IDS_TABLE_ID;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TABLE_ID;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.entities.ReadinessResult;
+import uk.gov.ons.bulk.scheduler.exception.ReadinessCheckException;
+import uk.gov.ons.bulk.scheduler.util.MicroBatcher;
+
+/**
+ * Collects the readiness checks of every job that fires within a short window and
+ * resolves them together: one __TABLES__ query and one UNION ALL count query per
+ * dataset, instead of two queries per job. Tables whose row_count shows they are
+ * still short of their expected rows are not counted.
+ */
+@Slf4j
+@Service
+public class BatchedReadinessStrategy implements ReadinessStrategy {
+
+	@Autowired
+	private BigQueryGateway bigQueryGateway;
+
+	@Autowired
+	private JobProgressTracker progressTracker;
+
+	@Value("${aims.scheduler.readiness.batch.window-millis}")
+	private long windowMillis;
+
+	@Value("${aims.scheduler.readiness.batch.max-size}")
+	private int maxBatchSize;
+
+	@Value("${aims.scheduler.readiness.batch.timeout-seconds}")
+	private long timeoutSeconds;
+
+	private String QUERY_BATCH_ROW_COUNT = "SELECT table_id, row_count FROM %s.__TABLES__ WHERE table_id IN UNNEST(@ids)";
+	private String QUERY_BATCH_COUNT = "SELECT '%s' AS table_id, COUNT(1) AS count FROM %s.%s";
+
+	private MicroBatcher<PendingCheck> batcher;
+
+	@PostConstruct
+	public void start() {
+		batcher = new MicroBatcher<PendingCheck>("readiness-batch", windowMillis, maxBatchSize, this::resolve);
+	}
+
+	// Checks still waiting for a batch fail now rather than at their timeout
+	@PreDestroy
+	public void stop() {
+		ReadinessCheckException stopped = new ReadinessCheckException("Batched readiness checks stopped");
+		batcher.shutdownNow().forEach(check -> check.future().completeExceptionally(stopped));
+	}
+
+	@Override
+	public String getName() {
+		return "batched";
+	}
+
+	@Override
+	public ReadinessResult check(String jobId, boolean idsJob, int expectedRows) throws InterruptedException, ReadinessCheckException {
+
+		CompletableFuture<ReadinessResult> future = submit(jobId, idsJob, expectedRows);
+
+		try {
+			return future.get(timeoutSeconds, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ReadinessCheckException cause) {
+				// Keep the type so that a BigQueryUnavailableException still defers the check
+				throw cause;
+			}
+
+			throw new ReadinessCheckException(String.format("Batched readiness check failed: %s", e.getCause().getMessage()), e.getCause());
+		} catch (TimeoutException e) {
+			future.cancel(false);
+			throw new ReadinessCheckException(String.format("Timed out waiting for batched readiness check of job %s", jobId), e);
+		}
+	}
+
+	CompletableFuture<ReadinessResult> submit(String jobId, boolean idsJob, int expectedRows) {
+
+		PendingCheck check = new PendingCheck(jobId, idsJob, expectedRows, new CompletableFuture<ReadinessResult>());
+		batcher.add(check);
+
+		return check.future();
+	}
+
+	void flush() {
+		batcher.flush();
+	}
+
+	private void resolve(List<PendingCheck> batch) {
+
+		log.debug(String.format("Resolving %d readiness checks in one batch", batch.size()));
+
+		Map<Boolean, List<PendingCheck>> byDataSet = batch.stream().collect(Collectors.partitioningBy(PendingCheck::idsJob));
+		byDataSet.forEach((idsJob, checks) -> {
+			if (!checks.isEmpty()) {
+				resolve(idsJob, checks);
+			}
+		});
+	}
+
+	private void resolve(boolean idsJob, List<PendingCheck> checks) {
+
+		String dataSet = idsJob ? IDS_DATA_SET : DATA_SET;
+		String tableId = idsJob ? IDS_TABLE_ID : TABLE_ID;
+
+		// The same job can be submitted twice if a trigger fires while its previous check is still pending
+		Map<String, List<PendingCheck>> byTable = checks.stream().collect(Collectors.groupingBy(
+				check -> String.format("%s%s", tableId, check.jobId()), LinkedHashMap::new, Collectors.toList()));
+
+		try {
+			Map<String, Long> rowCounts = runBatchRowCountQuery(dataSet, idsJob, byTable.keySet().toArray(new String[0]));
+
+			// Tables still short of their expected rows are left out of the count query
+			List<String> countable = rowCounts.keySet().stream()
+					.filter(table -> byTable.get(table).stream()
+							.noneMatch(check -> progressTracker.isIncomplete(table, rowCounts.get(table), check.expectedRows())))
+					.toList();
+			Map<String, Long> counts = countable.isEmpty() ? Map.of() : runBatchCountQuery(dataSet, idsJob, countable);
+
+			byTable.forEach((table, tableChecks) -> {
+				ReadinessResult result = new ReadinessResult(rowCounts.get(table), counts.get(table));
+				tableChecks.forEach(check -> check.future().complete(result));
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			checks.forEach(check -> check.future().completeExceptionally(e));
+		} catch (ReadinessCheckException e) {
+			log.error(String.format("Problem querying BigQuery for batch of %d tables: %s", byTable.size(), e.getMessage()));
+			checks.forEach(check -> check.future().completeExceptionally(e));
+		}
+	}
+
+	private Map<String, Long> runBatchRowCountQuery(String dataSet, boolean idsJob, String[] tableIds) throws InterruptedException, ReadinessCheckException {
+
+		Map<String, Long> rowCounts = new HashMap<String, Long>();
+
+		QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(String.format(QUERY_BATCH_ROW_COUNT, dataSet))
+				.addNamedParameter("ids", QueryParameterValue.array(tableIds, String.class)).build();
+
+		bigQueryGateway.query("batch_row_count", idsJob, queryConfig).iterateAll().forEach(row -> {
+			rowCounts.put(row.get("table_id").getStringValue(), row.get("row_count").getLongValue());
+		});
+
+		return rowCounts;
+	}
+
+	private Map<String, Long> runBatchCountQuery(String dataSet, boolean idsJob, List<String> tableIds) throws InterruptedException, ReadinessCheckException {
+
+		Map<String, Long> counts = new HashMap<String, Long>();
+
+		// Only tables that exist in __TABLES__ are counted, a missing table would fail the whole UNION ALL
+		String query = tableIds.stream()
+				.map(table -> String.format(QUERY_BATCH_COUNT, table, dataSet, table))
+				.collect(Collectors.joining(" UNION ALL "));
+
+		bigQueryGateway.query("batch_count", idsJob, QueryJobConfiguration.newBuilder(query).build()).iterateAll().forEach(row -> {
+			counts.put(row.get("table_id").getStringValue(), row.get("count").getLongValue());
+		});
+
+		return counts;
+	}
+
+	private record PendingCheck(String jobId, boolean idsJob, int expectedRows, CompletableFuture<ReadinessResult> future) {
+	}
+}
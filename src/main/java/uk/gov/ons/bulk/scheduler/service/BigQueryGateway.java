@@ -0,0 +1,391 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.BigQueryException;
+import com.google.cloud.bigquery.Job;
+import com.google.cloud.bigquery.JobInfo;
+import com.google.cloud.bigquery.JobStatistics.QueryStatistics;
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.Table;
+import com.google.cloud.bigquery.TableId;
+import com.google.cloud.bigquery.TableResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.exception.BigQueryUnavailableException;
+import uk.gov.ons.bulk.scheduler.exception.ReadinessCheckException;
+
+/**
+ * Every BigQuery call made by the readiness strategies goes through here. Calls are
+ * bounded by an AIMD concurrency limit (grown by one per limit's worth of fast calls,
+ * cut by backoff-ratio on a timeout or quota error), each call has a timeout, and a
+ * circuit breaker stops calls altogether for open-seconds once failure-threshold calls
+ * in a row have failed so that checks are deferred instead of burning their fires.
+ * A call keeps its slot until BigQuery has answered it, even once the caller has timed
+ * out, as cancelling it does not abort the HTTP request.
+ */
+@Slf4j
+@Service
+public class BigQueryGateway {
+
+	enum CircuitState { CLOSED, HALF_OPEN, OPEN }
+
+	private static final Set<String> OVERLOAD_REASONS = Set.of("rateLimitExceeded", "quotaExceeded", "backendError", "jobRateLimitExceeded");
+
+	@Autowired
+	private BigQuery bigQuery;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private Clock clock;
+
+	@Value("${aims.bigquery.timeout-seconds}")
+	private long timeoutSeconds;
+
+	@Value("${aims.bigquery.acquire-timeout-millis}")
+	private long acquireTimeoutMillis;
+
+	@Value("${aims.bigquery.limit.initial}")
+	private int initialLimit;
+
+	@Value("${aims.bigquery.limit.min}")
+	private int minLimit;
+
+	@Value("${aims.bigquery.limit.max}")
+	private int maxLimit;
+
+	@Value("${aims.bigquery.limit.backoff-ratio}")
+	private double backoffRatio;
+
+	@Value("${aims.bigquery.limit.latency-threshold-millis}")
+	private long latencyThresholdMillis;
+
+	@Value("${aims.bigquery.circuit-breaker.failure-threshold}")
+	private int failureThreshold;
+
+	@Value("${aims.bigquery.circuit-breaker.open-seconds}")
+	private long openSeconds;
+
+	@Value("${aims.bigquery.bytes-processed.enabled}")
+	private boolean bytesProcessedEnabled;
+
+	private final Object lock = new Object();
+	private double limit;
+	private int inFlight;
+	private int consecutiveFailures;
+	private CircuitState circuitState = CircuitState.CLOSED;
+	private long openUntil;
+	private boolean trialInFlight;
+	private ExecutorService executor;
+	// Registered once per set of tags, keyed by their values
+	private final Map<List<String>, Timer> timers = new ConcurrentHashMap<List<String>, Timer>();
+	private final Map<List<String>, Counter> rejections = new ConcurrentHashMap<List<String>, Counter>();
+	private final Map<List<String>, DistributionSummary> bytesProcessed = new ConcurrentHashMap<List<String>, DistributionSummary>();
+
+	@PostConstruct
+	public void init() {
+
+		limit = initialLimit;
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+
+		Gauge.builder("bigquery.calls.inflight", this, gateway -> gateway.getInFlight())
+				.description("BigQuery calls currently in flight").register(meterRegistry);
+		Gauge.builder("bigquery.calls.limit", this, gateway -> gateway.getLimit())
+				.description("Adaptive limit on concurrent BigQuery calls").register(meterRegistry);
+		Gauge.builder("bigquery.circuit.state", this, gateway -> gateway.getCircuitState().ordinal())
+				.description("BigQuery circuit breaker state: 0 closed, 1 half open, 2 open").register(meterRegistry);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The query name and job type only tag the metrics of the call. With
+	 * bytes-processed.enabled the query is run as a job and waited for, so its statistics
+	 * come back with it inside the same call rather than from a getJob of their own.
+	 */
+	public TableResult query(String query, boolean idsJob, QueryJobConfiguration queryConfig) throws InterruptedException, ReadinessCheckException {
+
+		if (!bytesProcessedEnabled) {
+			return call("query", query, idsJob, () -> bigQuery.query(queryConfig));
+		}
+
+		return call("query", query, idsJob, () -> {
+			Job job = bigQuery.create(JobInfo.of(queryConfig)).waitFor();
+
+			if (job == null) {
+				throw new BigQueryException(404, "Query job no longer exists");
+			}
+
+			if (job.getStatus().getError() != null) {
+				throw new BigQueryException(job.getStatus().getExecutionErrors());
+			}
+
+			recordBytesProcessed(query, idsJob, job);
+			return job.getQueryResults();
+		});
+	}
+
+	public Table getTable(TableId tableId, boolean idsJob) throws InterruptedException, ReadinessCheckException {
+		return call("getTable", "table_metadata", idsJob, () -> bigQuery.getTable(tableId));
+	}
+
+	private void recordBytesProcessed(String query, boolean idsJob, Job job) {
+
+		try {
+			QueryStatistics statistics = job.getStatistics();
+
+			if (statistics != null && statistics.getTotalBytesProcessed() != null) {
+				bytesProcessed.computeIfAbsent(List.of(query, PipelineMetrics.jobType(idsJob)), tags -> DistributionSummary.builder("bigquery.bytes.processed")
+						.description("Bytes processed by a BigQuery readiness query")
+						.baseUnit("bytes")
+						.tag("query", tags.get(0))
+						.tag("type", tags.get(1))
+						.publishPercentileHistogram()
+						.register(meterRegistry))
+						.record(statistics.getTotalBytesProcessed());
+			}
+		} catch (ClassCastException e) {
+			log.debug(String.format("Unable to read bytes processed by BigQuery job %s: %s", job.getJobId().getJob(), e.getMessage()));
+		}
+	}
+
+	private <T> T call(String operation, String query, boolean idsJob, Callable<T> call) throws InterruptedException, ReadinessCheckException {
+
+		acquire(operation);
+
+		long start = System.nanoTime();
+		Future<T> future;
+
+		try {
+			// Released when BigQuery answers, not when the caller stops waiting
+			future = executor.submit(() -> {
+				try {
+					return call.call();
+				} finally {
+					release();
+				}
+			});
+		} catch (RuntimeException e) {
+			release();
+			throw e;
+		}
+
+		try {
+			T result = future.get(timeoutSeconds, TimeUnit.SECONDS);
+			long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			onSuccess(latencyMillis);
+			record(operation, query, idsJob, "success", start);
+			return result;
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			onFailure();
+			record(operation, query, idsJob, "timeout", start);
+			throw new BigQueryUnavailableException(String.format("BigQuery %s timed out after %d seconds", operation, timeoutSeconds), 
+					Duration.ofSeconds(timeoutSeconds), e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof InterruptedException interrupted) {
+				abandonTrial();
+				record(operation, query, idsJob, "interrupted", start);
+				throw interrupted;
+			}
+
+			if (cause instanceof BigQueryException bigQueryException && isOverload(bigQueryException)) {
+				onFailure();
+				record(operation, query, idsJob, "overload", start);
+				throw new BigQueryUnavailableException(String.format("BigQuery %s failed: %s", operation, cause.getMessage()), 
+						Duration.ofSeconds(openSeconds), cause);
+			}
+
+			// Not a sign of BigQuery being degraded, e.g. a missing table, but no reason to grow the limit either
+			onAnswered();
+			record(operation, query, idsJob, "error", start);
+			throw new ReadinessCheckException(String.format("BigQuery %s failed: %s", operation, cause.getMessage()), cause);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			abandonTrial();
+			throw e;
+		}
+	}
+
+	private void acquire(String operation) throws InterruptedException, BigQueryUnavailableException {
+
+		synchronized (lock) {
+			long now = clock.millis();
+
+			if (circuitState == CircuitState.OPEN) {
+				if (now < openUntil) {
+					reject(operation, "circuit_open");
+					throw new BigQueryUnavailableException("BigQuery circuit breaker is open", Duration.ofMillis(openUntil - now));
+				}
+
+				circuitState = CircuitState.HALF_OPEN;
+				trialInFlight = false;
+			}
+
+			if (circuitState == CircuitState.HALF_OPEN) {
+				if (trialInFlight) {
+					reject(operation, "circuit_half_open");
+					throw new BigQueryUnavailableException("BigQuery circuit breaker is testing recovery", Duration.ofSeconds(timeoutSeconds));
+				}
+
+				trialInFlight = true;
+			}
+
+			long deadline = now + acquireTimeoutMillis;
+
+			while (inFlight >= (int) limit) {
+				long remaining = deadline - clock.millis();
+
+				if (remaining <= 0) {
+					if (circuitState == CircuitState.HALF_OPEN) {
+						trialInFlight = false;
+					}
+
+					reject(operation, "limit");
+					throw new BigQueryUnavailableException(String.format("BigQuery concurrency limit of %d reached", (int) limit), 
+							Duration.ofMillis(latencyThresholdMillis));
+				}
+
+				lock.wait(remaining);
+			}
+
+			inFlight++;
+		}
+	}
+
+	private void release() {
+		synchronized (lock) {
+			inFlight--;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * The trial call was abandoned without a verdict, let the next call try.
+	 */
+	private void abandonTrial() {
+		synchronized (lock) {
+			if (circuitState == CircuitState.HALF_OPEN) {
+				trialInFlight = false;
+			}
+		}
+	}
+
+	private void onSuccess(long latencyMillis) {
+
+		synchronized (lock) {
+			if (latencyMillis < latencyThresholdMillis) {
+				// Additive increase, one extra slot per limit's worth of fast calls
+				limit = Math.min(maxLimit, limit + 1 / limit);
+			}
+
+			onAnswered();
+		}
+	}
+
+	/**
+	 * BigQuery answered the call, whatever the answer was.
+	 */
+	private void onAnswered() {
+
+		synchronized (lock) {
+			consecutiveFailures = 0;
+
+			if (circuitState == CircuitState.HALF_OPEN) {
+				log.info("BigQuery has recovered, closing circuit breaker");
+				circuitState = CircuitState.CLOSED;
+				trialInFlight = false;
+			}
+		}
+	}
+
+	private void onFailure() {
+
+		synchronized (lock) {
+			// Multiplicative decrease
+			limit = Math.max(minLimit, limit * backoffRatio);
+			consecutiveFailures++;
+
+			if (circuitState == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+				log.warn(String.format("BigQuery degraded after %d failures, opening circuit breaker for %d seconds", consecutiveFailures, openSeconds));
+				circuitState = CircuitState.OPEN;
+				openUntil = clock.millis() + openSeconds * 1000;
+				trialInFlight = false;
+			}
+		}
+	}
+
+	private boolean isOverload(BigQueryException e) {
+		return e.getCode() == 429 || e.getCode() >= 500 || (e.getReason() != null && OVERLOAD_REASONS.contains(e.getReason()));
+	}
+
+	private void reject(String operation, String reason) {
+		rejections.computeIfAbsent(List.of(operation, reason), tags -> Counter.builder("bigquery.calls.rejected")
+				.description("BigQuery calls refused by the concurrency limit or circuit breaker")
+				.tag("operation", tags.get(0))
+				.tag("reason", tags.get(1))
+				.register(meterRegistry))
+				.increment();
+	}
+
+	private void record(String operation, String query, boolean idsJob, String outcome, long start) {
+		timers.computeIfAbsent(List.of(operation, query, PipelineMetrics.jobType(idsJob), outcome), tags -> Timer.builder("bigquery.calls")
+				.description("Latency of BigQuery calls")
+				.tag("operation", tags.get(0))
+				.tag("query", tags.get(1))
+				.tag("type", tags.get(2))
+				.tag("outcome", tags.get(3))
+				.publishPercentileHistogram()
+				.register(meterRegistry))
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	int getInFlight() {
+		synchronized (lock) {
+			return inFlight;
+		}
+	}
+
+	double getLimit() {
+		synchronized (lock) {
+			return limit;
+		}
+	}
+
+	CircuitState getCircuitState() {
+		synchronized (lock) {
+			return circuitState;
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import uk.gov.ons.bulk.scheduler.entities.Exportable;
+
+/**
+ * Sends the Exportable message for a job whose table is ready and deletes the job once
+ * the message is safely on its way. The job is left in place if sending fails so the
+ * next check exports it again.
+ */
+public interface ExportPublisher {
+
+	void export(Exportable exportable, JobKey key) throws JsonProcessingException, SchedulerException;
+
+	/**
+	 * True while an export of the job has been accepted but not yet confirmed, the
+	 * table does not need checking again in the meantime.
+	 */
+	boolean isInFlight(JobKey key);
+}
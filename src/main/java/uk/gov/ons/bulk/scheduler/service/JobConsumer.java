@@ -0,0 +1,15 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.io.IOException;
+
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+
+/**
+ * Receives jobs one at a time as they are read, typically writing them straight to the
+ * response.
+ */
+@FunctionalInterface
+public interface JobConsumer {
+
+	void accept(BulkSchedulerJob job) throws IOException;
+}
@@ -0,0 +1,248 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.entities.JobEvent;
+
+/**
+ * Fans job lifecycle events out to the subscribers of /jobs/events. Publishing only
+ * offers the event to a bounded queue per subscriber and never blocks, each subscriber
+ * has its own virtual thread that writes its queue to the response. When a slow client
+ * lets its queue fill, the oldest event (or with drop-policy newest, the new one) is
+ * dropped and counted, so the scheduler threads publishing the events never wait on a
+ * client.
+ *
+ * Only events of this instance are broadcast, a client of a sharded deployment sees the
+ * jobs scheduled, checked and deleted by the replica it is connected to.
+ */
+@Slf4j
+@Service
+public class JobEventBroadcaster {
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private Clock clock;
+
+	@Value("${aims.events.max-subscribers}")
+	private int maxSubscribers;
+
+	@Value("${aims.events.buffer-size}")
+	private int bufferSize;
+
+	@Value("${aims.events.drop-policy}")
+	private String dropPolicy;
+
+	@Value("${aims.events.heartbeat-seconds}")
+	private long heartbeatSeconds;
+
+	@Value("${aims.events.timeout-minutes}")
+	private long timeoutMinutes;
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	private final AtomicLong sequence = new AtomicLong();
+	private Counter published;
+	private Counter dropped;
+
+	@PostConstruct
+	public void init() {
+		published = Counter.builder("bulk.scheduler.events.published")
+				.description("Job events published to the subscribers of /jobs/events")
+				.register(meterRegistry);
+		dropped = Counter.builder("bulk.scheduler.events.dropped")
+				.description("Job events dropped because a subscriber's buffer was full")
+				.register(meterRegistry);
+		Gauge.builder("bulk.scheduler.events.subscribers", subscribers, Set::size)
+				.description("Clients subscribed to /jobs/events")
+				.register(meterRegistry);
+	}
+
+	@PreDestroy
+	public void stop() {
+		subscribers.forEach(this::unsubscribe);
+	}
+
+	/**
+	 * Returns null if there are already max-subscribers clients. A null jobName
+	 * subscribes to the events of every job.
+	 */
+	public SseEmitter subscribe(String jobName) {
+
+		SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+
+		Subscriber subscriber = subscribe(jobName, new EventSink() {
+
+			@Override
+			public void send(JobEvent event) throws IOException {
+				emitter.send(SseEmitter.event()
+						.id(Long.toString(event.getId()))
+						.name(event.getType().getEventName())
+						.data(event, MediaType.APPLICATION_JSON));
+			}
+
+			// Keeps proxies from closing a connection that has been quiet for a while
+			@Override
+			public void heartbeat() throws IOException {
+				emitter.send(SseEmitter.event().comment("heartbeat"));
+			}
+
+			@Override
+			public void close() {
+				emitter.complete();
+			}
+		});
+
+		if (subscriber == null) {
+			return null;
+		}
+
+		// The client can reconnect, EventSource does so by default
+		emitter.onTimeout(() -> unsubscribe(subscriber));
+		emitter.onCompletion(() -> unsubscribe(subscriber));
+		emitter.onError(e -> unsubscribe(subscriber));
+
+		return emitter;
+	}
+
+	synchronized Subscriber subscribe(String jobName, EventSink sink) {
+
+		if (subscribers.size() >= maxSubscribers) {
+			log.warn(String.format("Refusing job events subscriber, already %d subscribed", subscribers.size()));
+			return null;
+		}
+
+		Subscriber subscriber = new Subscriber(jobName, sink, new ArrayBlockingQueue<JobEvent>(bufferSize));
+		subscriber.thread = Thread.ofVirtual().name("job-events").unstarted(() -> drain(subscriber));
+		subscribers.add(subscriber);
+		subscriber.thread.start();
+
+		return subscriber;
+	}
+
+	void unsubscribe(Subscriber subscriber) {
+
+		if (subscribers.remove(subscriber)) {
+			subscriber.thread.interrupt();
+			subscriber.sink.close();
+
+			if (subscriber.dropped.get() > 0) {
+				log.info(String.format("Job events subscriber gone, %d events were dropped for it", subscriber.dropped.get()));
+			}
+		}
+	}
+
+	public void publish(JobEvent.Type type, String jobName) {
+		publish(type, jobName, null, null, null);
+	}
+
+	public void publish(JobEvent.Type type, String jobName, Long rowCount, Long count, Integer expectedRows) {
+
+		if (subscribers.isEmpty()) {
+			return;
+		}
+
+		JobEvent event = new JobEvent(sequence.incrementAndGet(), type, jobName, rowCount, count, expectedRows, clock.instant());
+		published.increment();
+
+		for (Subscriber subscriber : subscribers) {
+			if (subscriber.jobName == null || subscriber.jobName.equals(jobName)) {
+				offer(subscriber, event);
+			}
+		}
+	}
+
+	private void offer(Subscriber subscriber, JobEvent event) {
+
+		if ("newest".equals(dropPolicy)) {
+			if (!subscriber.queue.offer(event)) {
+				drop(subscriber);
+			}
+
+			return;
+		}
+
+		while (!subscriber.queue.offer(event)) {
+			// The drain thread may take the head first, in which case nothing is dropped
+			if (subscriber.queue.poll() != null) {
+				drop(subscriber);
+			}
+		}
+	}
+
+	private void drop(Subscriber subscriber) {
+		subscriber.dropped.incrementAndGet();
+		dropped.increment();
+	}
+
+	private void drain(Subscriber subscriber) {
+
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				JobEvent event = subscriber.queue.poll(heartbeatSeconds, TimeUnit.SECONDS);
+
+				if (event != null) {
+					subscriber.sink.send(event);
+				} else {
+					subscriber.sink.heartbeat();
+				}
+			}
+		} catch (InterruptedException e) {
+			// Unsubscribed
+		} catch (IOException | IllegalStateException e) {
+			log.debug(String.format("Job events subscriber disconnected: %s", e.getMessage()));
+			unsubscribe(subscriber);
+		}
+	}
+
+	int getSubscriberCount() {
+		return subscribers.size();
+	}
+
+	interface EventSink {
+
+		void send(JobEvent event) throws IOException;
+
+		void heartbeat() throws IOException;
+
+		void close();
+	}
+
+	static final class Subscriber {
+
+		private final String jobName;
+		private final EventSink sink;
+		private final BlockingQueue<JobEvent> queue;
+		private final AtomicLong dropped = new AtomicLong();
+		private Thread thread;
+
+		private Subscriber(String jobName, EventSink sink, BlockingQueue<JobEvent> queue) {
+			this.jobName = jobName;
+			this.sink = sink;
+			this.queue = queue;
+		}
+
+		long getDropped() {
+			return dropped.get();
+		}
+	}
+}
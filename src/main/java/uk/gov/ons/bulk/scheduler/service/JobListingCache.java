@@ -0,0 +1,153 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerTrigger;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.entities.JobListing;
+
+/**
+ * Holds the job listing in memory, read once from the pending job store and then kept
+ * up to date by applying each job that is added, deleted, rescheduled or fired to it
+ * one entry at a time. The store is only read again at the first listing after startup
+ * or after {@link #invalidate()}, e.g. when Quartz's scheduling data is cleared. Every
+ * change moves a version on, which doubles as the ETag of /jobs so an unchanged poll is
+ * answered with a 304 without building the listing.
+ *
+ * Only changes made by this instance are seen, the Quartz listeners are not told about
+ * triggers fired by another node of a cluster. Sharded replicas only see their own
+ * partitions, so the cache is off when sharding is enabled and /jobs is read from the
+ * table without an ETag.
+ */
+@Slf4j
+@Service
+public class JobListingCache {
+
+	@Autowired
+	private PendingJobStore pendingJobStore;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${aims.scheduler.jobs.cache.enabled}")
+	private boolean enabled;
+
+	@Value("${aims.scheduler.sharding.enabled}")
+	private boolean shardingEnabled;
+
+	// Distinguishes the versions of one run of the service from those of the last
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+	// In job name order, as the store lists them
+	private final NavigableMap<String, BulkSchedulerJob> jobs = new TreeMap<String, BulkSchedulerJob>();
+	private volatile long version;
+	private boolean loaded;
+	private volatile Snapshot snapshot;
+	private Counter loads;
+
+	@PostConstruct
+	public void init() {
+		loads = Counter.builder("bulk.scheduler.jobs.cache.loads")
+				.description("Job listings read from the pending job store because the cached one was not loaded")
+				.register(meterRegistry);
+	}
+
+	public boolean isEnabled() {
+		return enabled && !shardingEnabled;
+	}
+
+	/**
+	 * Adds the job, or replaces it with its triggers.
+	 */
+	public synchronized void put(BulkSchedulerJob job) {
+
+		if (loaded) {
+			jobs.put(job.getName(), job);
+		}
+
+		version++;
+	}
+
+	/**
+	 * Replaces the triggers of the job with trigger, or removes them when it is null.
+	 * Every job has a single trigger named after it.
+	 */
+	public synchronized void putTrigger(String jobName, BulkSchedulerTrigger trigger) {
+
+		BulkSchedulerJob job = jobs.get(jobName);
+
+		if (job != null) {
+			jobs.put(jobName, new BulkSchedulerJob(job.getName(), job.getGroup(), job.getDescription(),
+					trigger != null ? List.of(trigger) : List.of()));
+		} else if (loaded && trigger != null) {
+			// Not added through this cache, e.g. by another node, the store has to be read again to find it
+			loaded = false;
+		}
+
+		version++;
+	}
+
+	public synchronized void remove(String jobName) {
+		jobs.remove(jobName);
+		version++;
+	}
+
+	/**
+	 * Reads the whole listing from the store again at the next request.
+	 */
+	public synchronized void invalidate() {
+		loaded = false;
+		version++;
+	}
+
+	public String getETag() {
+		return eTag(version);
+	}
+
+	public JobListing getListing() throws SchedulerException {
+
+		Snapshot current = snapshot;
+
+		if (current == null || current.version() != version) {
+			current = build();
+		}
+
+		return new JobListing(eTag(current.version()), current.jobs());
+	}
+
+	private synchronized Snapshot build() throws SchedulerException {
+
+		if (!loaded) {
+			// Changes wait for the lock, so none is lost between the read and the listing
+			jobs.clear();
+			pendingJobStore.getJobs(JobFilter.all()).forEach(job -> jobs.put(job.getName(), job));
+			loaded = true;
+			loads.increment();
+			log.debug(String.format("Job listing version %d loaded with %d jobs", version, jobs.size()));
+		}
+
+		if (snapshot == null || snapshot.version() != version) {
+			snapshot = new Snapshot(version, List.copyOf(jobs.values()));
+		}
+
+		return snapshot;
+	}
+
+	private String eTag(long version) {
+		return String.format("\"%s-%d\"", epoch, version);
+	}
+
+	private record Snapshot(long version, List<BulkSchedulerJob> jobs) {
+	}
+}
@@ -0,0 +1,120 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import uk.gov.ons.bulk.scheduler.entities.JobProgress;
+import uk.gov.ons.bulk.scheduler.entities.JobProgressReport;
+import uk.gov.ons.bulk.scheduler.entities.ReadinessResult;
+
+/**
+ * Keeps the outcome of the last readiness check of each job, with the flush rate and
+ * the estimated time the table will be exportable, so that progress can be reported
+ * without another BigQuery query. A job stays here after it has been exported until
+ * the oldest entries are dropped at max-entries, and is removed when deleted by hand.
+ *
+ * Only the checks made by this instance are held, when sharded a job's progress is on
+ * the replica that owns its partition.
+ */
+@Service
+public class JobProgressStore {
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private Clock clock;
+
+	@Value("${aims.scheduler.progress.max-entries}")
+	private int maxEntries;
+
+	private final Map<String, JobProgressReport> entries = new LinkedHashMap<String, JobProgressReport>() {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, JobProgressReport> eldest) {
+			return size() > maxEntries;
+		}
+	};
+
+	@PostConstruct
+	public void init() {
+		Gauge.builder("bulk.scheduler.progress.size", this, JobProgressStore::size)
+				.description("Jobs whose last readiness check is held for /job/{jobname}/progress")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Records a check of the job. The progress is the job's table as the tracker holds it
+	 * after this check, nextDelay is null once the table is exportable.
+	 */
+	public JobProgressReport record(String jobName, ReadinessResult result, int expectedRows, JobProgress progress, Duration nextDelay) {
+
+		Instant checkedAt = Instant.now(clock);
+		Long rowCount = result.getRowCount();
+		Double flushRate = progress.getFlushRate();
+
+		Double percentComplete = null;
+
+		if (rowCount != null && expectedRows > 0) {
+			percentComplete = Math.min(100.0, rowCount * 100.0 / expectedRows);
+		}
+
+		Instant nextCheckAt = nextDelay != null ? checkedAt.plus(nextDelay) : null;
+		Instant eta = null;
+
+		if (result.isExportable()) {
+			eta = checkedAt;
+		} else if (rowCount != null && expectedRows > 0 && rowCount >= expectedRows) {
+			// Every row has landed, it is exportable once the buffer drains
+			eta = nextCheckAt;
+		} else if (rowCount != null && expectedRows > 0 && flushRate != null && flushRate > 0) {
+			eta = checkedAt.plusSeconds((long) Math.ceil((expectedRows - rowCount) / flushRate));
+		}
+
+		synchronized (entries) {
+			JobProgressReport previous = entries.remove(jobName);
+			JobProgressReport report = new JobProgressReport(jobName, rowCount, result.getCount(), expectedRows, percentComplete, flushRate,
+					previous != null ? previous.getFirstCheckedAt() : checkedAt, checkedAt, previous != null ? previous.getChecks() + 1 : 1,
+					nextCheckAt, eta, result.isExportable());
+
+			entries.put(jobName, report);
+			return report;
+		}
+	}
+
+	/**
+	 * The job's last check, or null if it has not been checked by this instance.
+	 */
+	public JobProgressReport get(String jobName) {
+
+		synchronized (entries) {
+			return entries.get(jobName);
+		}
+	}
+
+	public void remove(String jobName) {
+
+		synchronized (entries) {
+			entries.remove(jobName);
+		}
+	}
+
+	int size() {
+
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import uk.gov.ons.bulk.scheduler.entities.JobProgress;
+
+/**
+ * Remembers the row counts seen by the last two checks of each result table so the
+ * readiness strategies can compare them with the expected rows of the job and the
+ * adaptive poll policy can estimate how fast the table is filling. A table is forgotten
+ * once its job is exported or deleted, and the least recently checked tables are dropped
+ * at max-tracked-tables, e.g. those of jobs deleted on another replica.
+ */
+@Service
+public class JobProgressTracker {
+
+	@Autowired
+	private Clock clock;
+
+	@Value("${aims.scheduler.readiness.expected-rows-ratio}")
+	private double expectedRowsRatio;
+
+	@Value("${aims.scheduler.readiness.max-tracked-tables}")
+	private int maxTrackedTables;
+
+	// In access order, so the tables dropped are those not checked for longest
+	private final Map<String, JobProgress> progress = new LinkedHashMap<String, JobProgress>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, JobProgress> eldest) {
+			return size() > maxTrackedTables;
+		}
+	};
+
+	/**
+	 * The table cannot be complete while row_count is below the expected rows and
+	 * still growing. A table that has stopped growing short of expectedRows gets the
+	 * full check, it may never reach it.
+	 */
+	public boolean isIncomplete(String tableId, long rowCount, int expectedRows) {
+
+		if (expectedRows <= 0 || rowCount >= expectedRows * expectedRowsRatio) {
+			return false;
+		}
+
+		JobProgress previous;
+
+		synchronized (progress) {
+			previous = progress.get(tableId);
+		}
+
+		return previous == null || previous.getRowCount() == null || rowCount > previous.getRowCount();
+	}
+
+	public boolean isComplete(long rowCount, int expectedRows) {
+		return expectedRows > 0 && rowCount >= expectedRows;
+	}
+
+	public void record(String tableId, Long rowCount) {
+
+		if (rowCount == null) {
+			return;
+		}
+
+		synchronized (progress) {
+			JobProgress next = progress.computeIfAbsent(tableId, key -> new JobProgress());
+			next.setPreviousRowCount(next.getRowCount());
+			next.setPreviousCheckedAt(next.getCheckedAt());
+			next.setRowCount(rowCount);
+			next.setCheckedAt(Instant.now(clock));
+		}
+	}
+
+	public void recordDelay(String tableId, Duration delay) {
+
+		synchronized (progress) {
+			progress.computeIfAbsent(tableId, key -> new JobProgress()).setLastDelay(delay);
+		}
+	}
+
+	public JobProgress getProgress(String tableId) {
+
+		synchronized (progress) {
+			return progress.getOrDefault(tableId, new JobProgress());
+		}
+	}
+
+	public void forget(String tableId) {
+
+		synchronized (progress) {
+			progress.remove(tableId);
+		}
+	}
+
+	int size() {
+
+		synchronized (progress) {
+			return progress.size();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.util.MicroBatcher;
+
+/**
+ * Collects the jobs arriving from Pub/Sub within a short window and stores them with a
+ * single scheduleJobs call, which the JDBC job store does in one transaction under one
+ * QRTZ_LOCKS lock. The returned future completes once the batch has committed, so the
+ * message is only acked when its job is safely stored.
+ */
+@Slf4j
+@Service
+public class JobScheduleBatcher {
+
+	@Autowired
+	private Scheduler scheduler;
+
+	@Value("${aims.pubsub.inbound.batch.window-millis}")
+	private long windowMillis;
+
+	@Value("${aims.pubsub.inbound.batch.max-size}")
+	private int maxBatchSize;
+
+	private MicroBatcher<PendingJob> batcher;
+
+	@PostConstruct
+	public void start() {
+		batcher = new MicroBatcher<PendingJob>("schedule-batch", windowMillis, maxBatchSize, this::store);
+	}
+
+	@PreDestroy
+	public void stop() {
+		// Store whatever has been collected, the messages are not acked otherwise
+		batcher.close(windowMillis + 30000);
+	}
+
+	public CompletableFuture<Void> schedule(JobDetail jobDetail, Trigger trigger) {
+
+		PendingJob job = new PendingJob(jobDetail, trigger, new CompletableFuture<Void>());
+		batcher.add(job);
+
+		return job.future();
+	}
+
+	void flush() {
+		batcher.flush();
+	}
+
+	private void store(List<PendingJob> batch) {
+
+		// A redelivered message can put the same job in the batch twice, store it once
+		Map<JobKey, List<PendingJob>> byKey = batch.stream().collect(Collectors.groupingBy(
+				job -> job.jobDetail().getKey(), LinkedHashMap::new, Collectors.toList()));
+
+		Map<JobDetail, Set<? extends Trigger>> triggersAndJobs = new LinkedHashMap<JobDetail, Set<? extends Trigger>>();
+		byKey.values().forEach(jobs -> triggersAndJobs.put(jobs.get(0).jobDetail(), Set.of(jobs.get(0).trigger())));
+
+		try {
+			scheduler.scheduleJobs(triggersAndJobs, false);
+			log.debug(String.format("Scheduled %d jobs in one batch", triggersAndJobs.size()));
+			batch.forEach(job -> job.future().complete(null));
+		} catch (SchedulerException e) {
+			// The whole batch was rolled back, store the jobs one by one so one bad job does not hold up the rest
+			log.warn(String.format("Unable to schedule batch of %d jobs, scheduling individually: %s", triggersAndJobs.size(), e.getMessage()));
+			byKey.values().forEach(this::scheduleIndividually);
+		}
+	}
+
+	private void scheduleIndividually(List<PendingJob> jobs) {
+
+		try {
+			scheduler.scheduleJob(jobs.get(0).jobDetail(), jobs.get(0).trigger());
+			jobs.forEach(job -> job.future().complete(null));
+		} catch (SchedulerException e) {
+			jobs.forEach(job -> job.future().completeExceptionally(e));
+		}
+	}
+
+	private record PendingJob(JobDetail jobDetail, Trigger trigger, CompletableFuture<Void> future) {
+	}
+}
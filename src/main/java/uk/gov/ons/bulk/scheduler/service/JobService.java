@@ -1,163 +1,274 @@
 package uk.gov.ons.bulk.scheduler.service;
 
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.IDS_TABLE_ID;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.JOB_NAME;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.JOB_NAME_IDS;
 import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.SCHEDULER_GROUP;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TABLE_ID;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TRIGGER_GROUP;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
-import org.quartz.JobDetail;
 import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
-import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.TriggerKey;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.cloud.bigquery.BigQuery;
-import com.google.cloud.bigquery.QueryJobConfiguration;
-import com.google.cloud.bigquery.QueryParameterValue;
-import com.google.cloud.bigquery.TableResult;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import uk.gov.ons.bulk.scheduler.component.PubSubComponent.PubsubOutboundGateway;
+import uk.gov.ons.bulk.scheduler.component.SchedulerComponent;
 import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
-import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerTrigger;
 import uk.gov.ons.bulk.scheduler.entities.Exportable;
-import uk.gov.ons.bulk.scheduler.entities.QueryCountResult;
-import uk.gov.ons.bulk.scheduler.entities.QueryRowCountResult;
+import uk.gov.ons.bulk.scheduler.entities.JobEvent;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.entities.JobListing;
+import uk.gov.ons.bulk.scheduler.entities.JobProgressReport;
+import uk.gov.ons.bulk.scheduler.entities.ReadinessResult;
+import uk.gov.ons.bulk.scheduler.exception.BigQueryUnavailableException;
+import uk.gov.ons.bulk.scheduler.exception.ReadinessCheckException;
 
 @Slf4j
 @Service
 public class JobService {
 	
 	@Autowired
-	private BigQuery bigQuery;
+	private Scheduler scheduler;
 	
 	@Autowired
-	private Scheduler scheduler;
+	private ExportPublisher exportPublisher;
 	
 	@Autowired
-	private PubsubOutboundGateway messagingGateway;
-	
-	private String QUERY_ROW_COUNT_DATA_SET_TABLE = "SELECT row_count FROM bulk_status.__TABLES__ WHERE table_id = @tableId";
-	private String QUERY_ROW_COUNT_IDS_DATA_SET_TABLE = "SELECT row_count FROM ids_results.__TABLES__ WHERE table_id = @tableId";
-	private String QUERY_COUNT_DATA_SET_TABLE = "SELECT COUNT(1) AS count FROM bulk_status.%s%s";
-	private String QUERY_COUNT_IDS_DATA_SET_TABLE = "SELECT COUNT(1) AS count FROM ids_results.%s%s";
-	private String TABLE_ID = "results_";
-	private String IDS_TABLE_ID = "ids_results_";
-
-	public void execute(String jobId, String idsJobId, int expectedRows, JobKey key) {
+	private List<ReadinessStrategy> readinessStrategies;
+	
+	@Value("${aims.scheduler.readiness.strategy}")
+	private String readinessStrategyName;
+	
+	private ReadinessStrategy readinessStrategy;
+	
+	@Autowired
+	private JobProgressTracker progressTracker;
+	
+	@Autowired
+	private AdaptivePollPolicy adaptivePollPolicy;
+	
+	@Autowired
+	private SchedulerComponent schedulerComponent;
+	
+	@Autowired
+	private ScheduledJobIndex scheduledJobIndex;
+	
+	@Autowired
+	private PendingJobStore pendingJobStore;
+	
+	@Autowired
+	private JobListingCache jobListingCache;
+	
+	@Autowired
+	private JobEventBroadcaster jobEventBroadcaster;
+	
+	@Autowired
+	private JobProgressStore jobProgressStore;
+	
+	@Autowired
+	private PipelineMetrics pipelineMetrics;
+	
+	@Value("${aims.scheduler.adaptive.enabled}")
+	private boolean adaptiveEnabled;
+	
+	@Value("${aims.scheduler.frequency-minutes}")
+	private int frequencyInMinutes;
+	
+	
+	@PostConstruct
+	public void init() {
+		readinessStrategy = readinessStrategies.stream()
+				.filter(strategy -> strategy.getName().equals(readinessStrategyName))
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException(String.format("Unknown readiness strategy: %s", readinessStrategyName)));
 		
-		try {
-			// Is this an idsJob?
-			boolean idsJob;
+		log.info(String.format("Using %s readiness strategy", readinessStrategy.getName()));
+	}
 
-			if (idsJobId != null && idsJobId.length() > 0) {
-				idsJob = true;
-			} else {
-				idsJob = false;
-				idsJobId = "";
-			}
+	/**
+	 * Returns true if the job's table was checked, checks being the number of times it
+	 * had been checked before.
+	 */
+	public boolean execute(String jobId, String idsJobId, int expectedRows, JobKey key, Long receivedAt, int checks) {
+		
+		boolean checked = false;
 		
-			// Should only have one result
-			List<QueryRowCountResult> queryRowCountResultList = runRowCountQuery(jobId, idsJob);
-			List<QueryCountResult> queryCountResultList = runCountQuery(jobId, idsJob);
+		try {
+			Duration delay = poll(jobId, idsJobId, expectedRows, key, receivedAt, checks);
+			checked = true;
 			
-			if (queryRowCountResultList.size() > 0 && queryCountResultList.size() > 0 
-					&& (queryRowCountResultList.get(0).getRowCount().equals(queryCountResultList.get(0).getCount()))) {
-				
-				log.debug(String.format("queryRowCountResult: %d", queryRowCountResultList.get(0).getRowCount()));
-				log.debug(String.format("queryCountResult: %d", queryCountResultList.get(0).getCount()));
-				
-				// Data in BigQuery table is exportable
-				// Cloud Function will update bulk-status-db to results-ready in required table
-				// It will not export an IDS table to GCS.
-				// Create new pub sub message 
-				// Terminate the job
-				String tableId = idsJob ? IDS_TABLE_ID : TABLE_ID;
-				
-				log.debug(String.format("Table: %s%s is now exportable.", tableId, jobId));
-				messagingGateway.sendToPubsub(new ObjectMapper().writeValueAsString(new Exportable(jobId, idsJobId)));
-				scheduler.deleteJob(key);
+			if (delay != null && adaptiveEnabled) {
+				Trigger trigger = schedulerComponent.createTrigger(key, delay, checks + 1);
+				scheduler.rescheduleJob(new TriggerKey(key.getName(), TRIGGER_GROUP), trigger);
 			}
 			
 		} catch (InterruptedException e) {
 			log.error(String.format("Problem querying BigQuery: %s", e.getMessage()));
+		} catch (BigQueryUnavailableException e) {
+			log.warn(String.format("BigQuery unavailable, deferring check of job %s: %s", jobId, e.getMessage()));
+			defer(key, e.getRetryAfter(), checks);
+		} catch (ReadinessCheckException e) {
+			log.error(String.format("Problem querying BigQuery: %s", e.getMessage()));
 		} catch (SchedulerException e) {
 			log.error(String.format("Problem scheduling: %s", e.getMessage()));
 		} catch (JsonProcessingException e) {
 			log.error(String.format("Problem creating Exportable object: %s", e.getMessage()));
+		} catch (DataAccessException e) {
+			// e.g. the outbox row could not be written, the job is kept and exported at a later check
+			log.error(String.format("Problem writing export of job %s: %s", key.getName(), e.getMessage()));
 		}
+		
+		return checked;
 	}
 	
-	public boolean deleteJob(String jobName) throws SchedulerException {
-		return scheduler.deleteJob(new JobKey(jobName, SCHEDULER_GROUP));
-	}
-	
-	public List<BulkSchedulerJob> getJobs() throws SchedulerException {
-
-		List<BulkSchedulerJob> jobs = new ArrayList<BulkSchedulerJob>();
+	/**
+	 * Checks the job's table once and hands it to the export publisher when it is ready.
+	 * Returns the delay until the table should be checked again, or null if it has been
+	 * exported or its export is still being published. Shared by every polling engine.
+	 * receivedAt is when the job's message arrived, null for a job scheduled without it,
+	 * and checks the number of times the table has been checked before, kept with the
+	 * job by its engine.
+	 */
+	public Duration poll(String jobId, String idsJobId, int expectedRows, JobKey key, Long receivedAt, int checks) 
+			throws InterruptedException, ReadinessCheckException, SchedulerException, JsonProcessingException {
 		
-		for(JobKey key : scheduler.getJobKeys(GroupMatcher.groupEquals(SCHEDULER_GROUP))) {			
-			JobDetail detail = scheduler.getJobDetail(key);
-			List<BulkSchedulerTrigger> triggers = new ArrayList<BulkSchedulerTrigger>();
+		if (exportPublisher.isInFlight(key)) {
+			log.debug(String.format("Export of %s is still being published", key.getName()));
+			return null;
+		}
+		
+		// Is this an idsJob?
+		boolean idsJob;
 
-			for (Trigger trigger : scheduler.getTriggersOfJob(key)) {
-				
-				LocalDateTime nextFireTime = trigger.getNextFireTime() != null ? 
-						trigger.getNextFireTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime() : null;
-				LocalDateTime previousFireTime = trigger.getPreviousFireTime() != null ? 
-						trigger.getPreviousFireTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime() : null;
-				
-				triggers.add(new BulkSchedulerTrigger(trigger.getDescription(),	nextFireTime, previousFireTime));
-			}
+		if (idsJobId != null && idsJobId.length() > 0) {
+			idsJob = true;
+		} else {
+			idsJob = false;
+			idsJobId = "";
+		}
+	
+		String tableId = idsJob ? IDS_TABLE_ID : TABLE_ID;
+		String table = String.format("%s%s", tableId, jobId);
+		long start = System.nanoTime();
+		ReadinessResult result = readinessStrategy.check(jobId, idsJob, expectedRows);
+		pipelineMetrics.recordCheck(idsJob, readinessStrategy.getName(), result.isExportable(), start);
+		progressTracker.record(table, result.getRowCount());
+		jobEventBroadcaster.publish(JobEvent.Type.CHECKED, key.getName(), result.getRowCount(), result.getCount(), expectedRows);
+		
+		if (result.isExportable()) {
+			
+			log.debug(String.format("queryRowCountResult: %d", result.getRowCount()));
+			log.debug(String.format("queryCountResult: %d", result.getCount()));
 			
-			jobs.add(new BulkSchedulerJob(detail.getKey().getName(), 
-					detail.getKey().getGroup(), 
-					detail.getDescription(), 
-					triggers));
+			// Data in BigQuery table is exportable
+			// Cloud Function will update bulk-status-db to results-ready in required table
+			// It will not export an IDS table to GCS.
+			// Create new pub sub message 
+			// Terminate the job once the message is published
+			log.debug(String.format("Table: %s is now exportable.", table));
+			jobEventBroadcaster.publish(JobEvent.Type.EXPORTABLE, key.getName(), result.getRowCount(), result.getCount(), expectedRows);
+			jobProgressStore.record(key.getName(), result, expectedRows, progressTracker.getProgress(table), null);
+			exportPublisher.export(new Exportable(jobId, idsJobId), key);
+			pipelineMetrics.recordExportable(idsJob, checks + 1, receivedAt);
+			progressTracker.forget(table);
+			
+			return null;
 		}
 		
-		return jobs;
+		Duration delay = nextDelay(table, expectedRows);
+		jobProgressStore.record(key.getName(), result, expectedRows, progressTracker.getProgress(table), delay);
+		
+		return delay;
 	}
 	
-	private List<QueryRowCountResult> runRowCountQuery(String jobId, boolean idsJob) throws InterruptedException {
-
-		List<QueryRowCountResult> qr = new ArrayList<QueryRowCountResult>();
+	private Duration nextDelay(String tableId, int expectedRows) {
 		
-		String datasetTable = idsJob ? QUERY_ROW_COUNT_IDS_DATA_SET_TABLE : QUERY_ROW_COUNT_DATA_SET_TABLE;
-		String tableId = idsJob ? IDS_TABLE_ID : TABLE_ID;
+		if (!adaptiveEnabled) {
+			return Duration.ofMinutes(frequencyInMinutes);
+		}
 		
-		QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(datasetTable)
-				.addNamedParameter("tableId", QueryParameterValue.string(String.format("%s%s", tableId, jobId))).build();
-
-		TableResult results = bigQuery.query(queryConfig);
-		results.iterateAll().forEach(row -> {
-			qr.add(new QueryRowCountResult(row.get("row_count").getLongValue()));
-		});
-
-		return qr;
+		Duration delay = adaptivePollPolicy.nextDelay(progressTracker.getProgress(tableId), expectedRows);
+		progressTracker.recordDelay(tableId, delay);
+		
+		log.debug(String.format("Table: %s next checked in %d seconds", tableId, delay.getSeconds()));
+		
+		return delay;
 	}
 	
-	private List<QueryCountResult> runCountQuery(String jobId, boolean idsJob) throws InterruptedException {
-
-		List<QueryCountResult> qr = new ArrayList<QueryCountResult>();
+	private void defer(JobKey key, Duration retryAfter, int checks) {
 		
-		String tableId = idsJob ? IDS_TABLE_ID : TABLE_ID;
-		String query = idsJob ? String.format(QUERY_COUNT_IDS_DATA_SET_TABLE, tableId, jobId) : String.format(QUERY_COUNT_DATA_SET_TABLE, tableId, jobId);
+		try {
+			// Not checked, the deferred fire is not counted
+			scheduler.rescheduleJob(new TriggerKey(key.getName(), TRIGGER_GROUP), schedulerComponent.createTrigger(key, retryAfter, checks));
+		} catch (SchedulerException e) {
+			log.error(String.format("Problem scheduling: %s", e.getMessage()));
+		}
+	}
+	
+	public boolean deleteJob(String jobName) throws SchedulerException {
 		
-		QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(query).build();
-
-		TableResult results = bigQuery.query(queryConfig);
-		results.iterateAll().forEach(row -> {
-			qr.add(new QueryCountResult(row.get("count").getLongValue()));
-		});
-
-		return qr;
+		boolean deleted = pendingJobStore.delete(new JobKey(jobName, SCHEDULER_GROUP));
+		
+		// A job deleted by hand can be scheduled again by a new message
+		scheduledJobIndex.remove(jobName);
+		jobProgressStore.remove(jobName);
+		progressTracker.forget(tableOf(jobName));
+		
+		return deleted;
+	}
+	
+	/**
+	 * The result table of the job, its name is JOB_NAME or JOB_NAME_IDS followed by the job id.
+	 */
+	private String tableOf(String jobName) {
+		
+		if (jobName.startsWith(JOB_NAME_IDS + "_")) {
+			return IDS_TABLE_ID + jobName.substring(JOB_NAME_IDS.length() + 1);
+		}
+		
+		return jobName.startsWith(JOB_NAME + "_") ? TABLE_ID + jobName.substring(JOB_NAME.length() + 1) : jobName;
+	}
+	
+	public List<BulkSchedulerJob> getJobs(JobFilter filter) throws SchedulerException {
+		return pendingJobStore.getJobs(filter);
+	}
+	
+	public void streamJobs(JobFilter filter, JobConsumer consumer) throws SchedulerException, IOException {
+		pendingJobStore.streamJobs(filter, consumer);
+	}
+	
+	/**
+	 * The ETag of the cached job listing, or null if the listing is not cached.
+	 */
+	public String getJobListingETag() {
+		return jobListingCache.isEnabled() ? jobListingCache.getETag() : null;
+	}
+	
+	public JobListing getJobListing() throws SchedulerException {
+		return jobListingCache.getListing();
+	}
+	
+	/**
+	 * The outcome of the job's last readiness check, or null if it has not been checked.
+	 */
+	public JobProgressReport getProgress(String jobName) {
+		return jobProgressStore.get(jobName);
+	}
+	
+	public int countJobs(JobFilter filter) throws SchedulerException {
+		return pendingJobStore.countJobs(filter);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.DATA_SET;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.IDS_DATA_SET;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.IDS_TABLE_ID;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TABLE_ID;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.google.cloud.bigquery.StandardTableDefinition;
+import com.google.cloud.bigquery.StandardTableDefinition.StreamingBuffer;
+import com.google.cloud.bigquery.Table;
+import com.google.cloud.bigquery.TableId;
+
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.entities.QueryCountResult;
+import uk.gov.ons.bulk.scheduler.entities.ReadinessResult;
+import uk.gov.ons.bulk.scheduler.exception.ReadinessCheckException;
+
+/**
+ * Reads numRows and the streaming buffer statistics from the table metadata, which is
+ * a single tables.get API call rather than a query job. When the buffer is reported
+ * without an estimate the table is complete once numRows reaches the expected rows,
+ * and a COUNT(1) query is only run if expectedRows cannot settle it either way.
+ */
+@Slf4j
+@Service
+public class MetadataReadinessStrategy implements ReadinessStrategy {
+
+	@Autowired
+	private BigQueryGateway bigQueryGateway;
+
+	@Autowired
+	private QueryReadinessStrategy queryReadinessStrategy;
+
+	@Autowired
+	private JobProgressTracker progressTracker;
+
+	@Override
+	public String getName() {
+		return "metadata";
+	}
+
+	@Override
+	public ReadinessResult check(String jobId, boolean idsJob, int expectedRows) throws InterruptedException, ReadinessCheckException {
+
+		String dataSet = idsJob ? IDS_DATA_SET : DATA_SET;
+		String tableId = String.format("%s%s", idsJob ? IDS_TABLE_ID : TABLE_ID, jobId);
+
+		Table table = bigQueryGateway.getTable(TableId.of(dataSet, tableId), idsJob);
+
+		if (table == null) {
+			return new ReadinessResult(null, null);
+		}
+
+		StandardTableDefinition definition = table.getDefinition();
+		Long numRows = definition.getNumRows();
+		StreamingBuffer streamingBuffer = definition.getStreamingBuffer();
+
+		if (numRows != null && progressTracker.isIncomplete(tableId, numRows, expectedRows)) {
+			// Still growing short of the expected rows, as the query strategy decides it
+			return new ReadinessResult(numRows, null);
+		}
+
+		if (numRows != null && streamingBuffer == null) {
+			// No streaming buffer, every row is in managed storage
+			return new ReadinessResult(numRows, numRows);
+		}
+
+		if (numRows != null && streamingBuffer.getEstimatedRows() != null && streamingBuffer.getEstimatedRows() > 0) {
+			return new ReadinessResult(numRows, numRows + streamingBuffer.getEstimatedRows());
+		}
+
+		if (numRows != null && progressTracker.isComplete(numRows, expectedRows)) {
+			// Every expected row is in managed storage and the buffer estimate is empty
+			return new ReadinessResult(numRows, numRows);
+		}
+
+		// The buffer can be reported for a while after it has emptied, so count the rows to be sure
+		log.debug(String.format("Metadata for %s.%s is ambiguous, falling back to COUNT query", dataSet, tableId));
+		List<QueryCountResult> queryCountResultList = queryReadinessStrategy.runCountQuery(jobId, idsJob);
+
+		return new ReadinessResult(numRows, queryCountResultList.size() > 0 ? queryCountResultList.get(0).getCount() : null);
+	}
+}
@@ -0,0 +1,58 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.time.Clock;
+
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.entities.Exportable;
+
+/**
+ * Writes the Exportable message to BULK_EXPORT_OUTBOX and deletes the job in one JDBC
+ * transaction. The Quartz job store uses the Spring managed DataSource, so deleteJob
+ * joins the same transaction as the insert and either both happen or neither does.
+ * OutboxRelayComponent publishes the rows afterwards.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "aims.export.mode", havingValue = "outbox")
+public class OutboxExportPublisher implements ExportPublisher {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PendingJobStore pendingJobStore;
+
+	@Autowired
+	private Clock clock;
+
+	private String INSERT_OUTBOX = "INSERT INTO BULK_EXPORT_OUTBOX (JOB_NAME, PAYLOAD, CREATED_TIME, ATTEMPTS, NEXT_ATTEMPT_TIME) VALUES (?, ?, ?, 0, ?)";
+
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public void export(Exportable exportable, JobKey key) throws JsonProcessingException, SchedulerException {
+
+		long now = clock.millis();
+
+		jdbcTemplate.update(INSERT_OUTBOX, key.getName(), new ObjectMapper().writeValueAsString(exportable), now, now);
+		pendingJobStore.delete(key);
+
+		log.debug(String.format("Export of %s written to outbox", key.getName()));
+	}
+
+	@Override
+	public boolean isInFlight(JobKey key) {
+		// The job is gone as soon as its export is in the outbox
+		return false;
+	}
+}
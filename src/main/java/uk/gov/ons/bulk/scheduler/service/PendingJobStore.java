@@ -0,0 +1,32 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+
+/**
+ * Where the jobs still waiting for their table to become exportable are kept: the Quartz
+ * job store, or the timing wheel engine's table when aims.scheduler.engine is wheel.
+ */
+public interface PendingJobStore {
+
+	boolean delete(JobKey key) throws SchedulerException;
+
+	List<BulkSchedulerJob> getJobs(JobFilter filter) throws SchedulerException;
+
+	/**
+	 * Hands the jobs to consumer in job name order without holding the whole listing.
+	 */
+	void streamJobs(JobFilter filter, JobConsumer consumer) throws SchedulerException, IOException;
+
+	int countJobs(JobFilter filter) throws SchedulerException;
+
+	default int countJobs() throws SchedulerException {
+		return countJobs(JobFilter.all());
+	}
+}
@@ -0,0 +1,112 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Histograms of the path a job takes from its Pub/Sub message to the export of its
+ * table: how late messages arrive and how long they take to schedule, how late checks
+ * fire, how long each check takes, how many checks a table needs and the time from the
+ * message arriving to the export being published. Every meter is tagged with the type
+ * of job, ids or standard, whose tables are sized very differently.
+ */
+@Service
+public class PipelineMetrics {
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private Clock clock;
+
+	public static String jobType(boolean idsJob) {
+		return idsJob ? "ids" : "standard";
+	}
+
+	public static boolean isIdsJob(String idsJobId) {
+		return idsJobId != null && idsJobId.length() > 0;
+	}
+
+	/**
+	 * From publishing the message to it reaching this service.
+	 */
+	public void recordInboundLag(boolean idsJob, Duration lag) {
+		Timer.builder("bulk.scheduler.inbound.lag")
+				.description("Time from a processing finished message being published to it being received")
+				.tag("type", jobType(idsJob))
+				.publishPercentileHistogram()
+				.maximumExpectedValue(Duration.ofHours(1))
+				.register(meterRegistry)
+				.record(lag.isNegative() ? Duration.ZERO : lag);
+	}
+
+	/**
+	 * From receiving the message to its job being stored.
+	 */
+	public void recordScheduled(boolean idsJob, long startNanos) {
+		Timer.builder("bulk.scheduler.inbound.schedule")
+				.description("Time from receiving a message to its job being stored and the message acked")
+				.tag("type", jobType(idsJob))
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * How long after its scheduled time a check started.
+	 */
+	public void recordFireDelay(boolean idsJob, String engine, Duration delay) {
+		Timer.builder("bulk.scheduler.fire.delay")
+				.description("Time between a check's scheduled and actual fire time")
+				.tag("type", jobType(idsJob))
+				.tag("engine", engine)
+				.publishPercentileHistogram()
+				.maximumExpectedValue(Duration.ofHours(1))
+				.register(meterRegistry)
+				.record(delay.isNegative() ? Duration.ZERO : delay);
+	}
+
+	public void recordCheck(boolean idsJob, String strategy, boolean exportable, long startNanos) {
+		Timer.builder("bulk.scheduler.readiness.check")
+				.description("Duration of a readiness check of a result table, every BigQuery call included")
+				.tag("type", jobType(idsJob))
+				.tag("strategy", strategy)
+				.tag("exportable", Boolean.toString(exportable))
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Recorded once per table when it is found exportable. receivedAt is null for a job
+	 * scheduled before its arrival time was kept.
+	 */
+	public void recordExportable(boolean idsJob, int checks, Long receivedAt) {
+
+		DistributionSummary.builder("bulk.scheduler.checks.until.ready")
+				.description("Readiness checks a result table needed before it was exportable")
+				.tag("type", jobType(idsJob))
+				.publishPercentileHistogram()
+				.maximumExpectedValue(1000.0)
+				.register(meterRegistry)
+				.record(checks);
+
+		if (receivedAt != null) {
+			Timer.builder("bulk.scheduler.time.to.export")
+					.description("Time from a job's message being received to its export being published")
+					.tag("type", jobType(idsJob))
+					.publishPercentileHistogram()
+					.maximumExpectedValue(Duration.ofDays(1))
+					.register(meterRegistry)
+					.record(Duration.ofMillis(Math.max(0, clock.millis() - receivedAt)));
+		}
+	}
+}
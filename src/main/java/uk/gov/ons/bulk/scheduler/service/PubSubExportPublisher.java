@@ -0,0 +1,128 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.entities.Exportable;
+
+/**
+ * Publishes straight to the export topic without waiting on the Quartz worker thread.
+ * The publisher batches messages (spring.cloud.gcp.pubsub.publisher.batching), the job
+ * is deleted when the publish future completes and a failed publish is retried with
+ * exponential backoff up to max-attempts times.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "aims.export.mode", havingValue = "pubsub", matchIfMissing = true)
+public class PubSubExportPublisher implements ExportPublisher {
+
+	@Autowired
+	private PubSubTemplate pubSubTemplate;
+
+	@Autowired
+	private PendingJobStore pendingJobStore;
+
+	@Value("${aims.pubsub.export-topic}")
+	private String pubsubExportTopic;
+
+	@Value("${aims.export.retry.max-attempts}")
+	private int maxAttempts;
+
+	@Value("${aims.export.retry.initial-backoff-millis}")
+	private long initialBackoffMillis;
+
+	@Value("${aims.export.retry.max-backoff-millis}")
+	private long maxBackoffMillis;
+
+	private final Set<JobKey> inFlight = ConcurrentHashMap.newKeySet();
+	private ScheduledExecutorService retryExecutor;
+
+	@PostConstruct
+	public void start() {
+		retryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "export-retry");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PreDestroy
+	public void stop() {
+		retryExecutor.shutdownNow();
+	}
+
+	@Override
+	public void export(Exportable exportable, JobKey key) throws JsonProcessingException {
+
+		String payload = new ObjectMapper().writeValueAsString(exportable);
+
+		if (inFlight.add(key)) {
+			publish(payload, key, 1);
+		}
+	}
+
+	@Override
+	public boolean isInFlight(JobKey key) {
+		return inFlight.contains(key);
+	}
+
+	private void publish(String payload, JobKey key, int attempt) {
+
+		CompletableFuture<String> future;
+
+		try {
+			future = pubSubTemplate.publish(pubsubExportTopic, payload);
+		} catch (RuntimeException e) {
+			future = CompletableFuture.failedFuture(e);
+		}
+
+		future.whenComplete((messageId, e) -> {
+			if (e == null) {
+				confirmed(key, messageId);
+			} else if (attempt < maxAttempts) {
+				long backoff = backoffMillis(attempt);
+				log.warn(String.format("Problem publishing export of %s, attempt %d, retrying in %d ms: %s", key.getName(), attempt, backoff, e.getMessage()));
+				retryExecutor.schedule(() -> publish(payload, key, attempt + 1), backoff, TimeUnit.MILLISECONDS);
+			} else {
+				// The job has not been deleted, its next check will export it again
+				log.error(String.format("Unable to publish export of %s after %d attempts: %s", key.getName(), attempt, e.getMessage()));
+				inFlight.remove(key);
+			}
+		});
+	}
+
+	private void confirmed(JobKey key, String messageId) {
+
+		log.debug(String.format("Export of %s published as message %s", key.getName(), messageId));
+
+		try {
+			pendingJobStore.delete(key);
+		} catch (SchedulerException e) {
+			log.error(String.format("Problem deleting exported job %s: %s", key.getName(), e.getMessage()));
+		} finally {
+			inFlight.remove(key);
+		}
+	}
+
+	long backoffMillis(int attempt) {
+		return (long) Math.min(maxBackoffMillis, initialBackoffMillis * Math.pow(2, attempt - 1));
+	}
+}
@@ -0,0 +1,198 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.JOB_NAME_IDS;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.SCHEDULER_GROUP;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import jakarta.annotation.PostConstruct;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerTrigger;
+import uk.gov.ons.bulk.scheduler.entities.DueTriggers;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+
+/**
+ * Reads the job listing straight from the Quartz tables. One query joins each page of
+ * QRTZ_JOB_DETAILS to QRTZ_TRIGGERS, where going through the Scheduler API costs a
+ * getJobDetail and a getTriggersOfJob round trip per job. Pages are cut on JOB_NAME,
+ * which is part of the primary key, so a page starts with an index seek however deep it is.
+ */
+@Repository
+public class QuartzJobRepository {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of reading the whole result set first
+	@Value("${aims.scheduler.jobs.fetch-size}")
+	private int fetchSize;
+
+	// A streamed listing holds its pooled connection until the client has read it all
+	@Value("${aims.scheduler.jobs.query-timeout-seconds}")
+	private int queryTimeoutSeconds;
+
+	private JdbcTemplate streamingJdbcTemplate;
+
+	private String SELECT_JOBS = "SELECT j.JOB_NAME, j.JOB_GROUP, j.DESCRIPTION, t.TRIGGER_NAME, t.DESCRIPTION AS TRIGGER_DESCRIPTION, t.NEXT_FIRE_TIME, t.PREV_FIRE_TIME "
+			+ "FROM (SELECT d.SCHED_NAME, d.JOB_NAME, d.JOB_GROUP, d.DESCRIPTION FROM QRTZ_JOB_DETAILS d WHERE %s ORDER BY d.JOB_NAME%s) j "
+			+ "LEFT JOIN QRTZ_TRIGGERS t ON t.SCHED_NAME = j.SCHED_NAME AND t.JOB_NAME = j.JOB_NAME AND t.JOB_GROUP = j.JOB_GROUP "
+			+ "ORDER BY j.JOB_NAME, t.TRIGGER_NAME";
+	private String COUNT_JOBS = "SELECT COUNT(1) FROM QRTZ_JOB_DETAILS d WHERE %s";
+	private String OVERDUE = "EXISTS (SELECT 1 FROM QRTZ_TRIGGERS o WHERE o.SCHED_NAME = d.SCHED_NAME AND o.JOB_NAME = d.JOB_NAME "
+			+ "AND o.JOB_GROUP = d.JOB_GROUP AND o.NEXT_FIRE_TIME > 0 AND o.NEXT_FIRE_TIME < ?)";
+	// Served by IDX_QRTZ_T_NFT_ST
+	private String DUE_TRIGGERS = "SELECT COUNT(1) AS DUE, MIN(NEXT_FIRE_TIME) AS OLDEST FROM QRTZ_TRIGGERS "
+			+ "WHERE SCHED_NAME = ? AND TRIGGER_STATE = 'WAITING' AND NEXT_FIRE_TIME <= ?";
+	// _ is a wildcard in LIKE
+	private String IDS_PATTERN = String.format("%s_%%", JOB_NAME_IDS).replace("_", "\\_");
+
+	@PostConstruct
+	public void init() {
+		streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+		streamingJdbcTemplate.setFetchSize(fetchSize);
+		streamingJdbcTemplate.setQueryTimeout(queryTimeoutSeconds);
+	}
+
+	public List<BulkSchedulerJob> findJobs(String schedulerName, JobFilter filter, long overdueBeforeMillis) {
+
+		List<BulkSchedulerJob> jobs = new ArrayList<BulkSchedulerJob>();
+		query(schedulerName, filter, overdueBeforeMillis, jobs::add);
+
+		return jobs;
+	}
+
+	/**
+	 * Hands each job to consumer as soon as its last row has been read, so only one job
+	 * is held at a time.
+	 */
+	public void streamJobs(String schedulerName, JobFilter filter, long overdueBeforeMillis, JobConsumer consumer) throws IOException {
+
+		try {
+			query(schedulerName, filter, overdueBeforeMillis, consumer);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private void query(String schedulerName, JobFilter filter, long overdueBeforeMillis, JobConsumer consumer) {
+
+		List<Object> args = new ArrayList<Object>();
+		String where = where(schedulerName, filter, overdueBeforeMillis, args);
+		String limit = "";
+
+		if (filter.getLimit() != null) {
+			limit = " LIMIT ?";
+			args.add(filter.getLimit());
+		}
+
+		JobAssembler assembler = new JobAssembler(consumer);
+		streamingJdbcTemplate.query(String.format(SELECT_JOBS, where, limit), assembler, args.toArray());
+		assembler.finish();
+	}
+
+	public int countJobs(String schedulerName, JobFilter filter, long overdueBeforeMillis) {
+
+		List<Object> args = new ArrayList<Object>();
+		String where = where(schedulerName, filter, overdueBeforeMillis, args);
+
+		return jdbcTemplate.queryForObject(String.format(COUNT_JOBS, where), Integer.class, args.toArray());
+	}
+
+	/**
+	 * Triggers whose fire time has passed but which no worker has picked up yet.
+	 */
+	public DueTriggers findDueTriggers(String schedulerName, long nowMillis) {
+		return jdbcTemplate.queryForObject(DUE_TRIGGERS, (rs, rowNum) -> new DueTriggers(rs.getInt("DUE"), rs.getObject("OLDEST", Long.class)), 
+				schedulerName, nowMillis);
+	}
+
+	private String where(String schedulerName, JobFilter filter, long overdueBeforeMillis, List<Object> args) {
+
+		StringBuilder where = new StringBuilder("d.SCHED_NAME = ? AND d.JOB_GROUP = ?");
+		args.add(schedulerName);
+		args.add(SCHEDULER_GROUP);
+
+		if (filter.getAfter() != null) {
+			where.append(" AND d.JOB_NAME > ?");
+			args.add(filter.getAfter());
+		}
+
+		if (filter.getIds() != null) {
+			where.append(filter.getIds() ? " AND d.JOB_NAME LIKE ?" : " AND d.JOB_NAME NOT LIKE ?");
+			args.add(IDS_PATTERN);
+		}
+
+		if (filter.isOverdue()) {
+			where.append(" AND ").append(OVERDUE);
+			args.add(overdueBeforeMillis);
+		}
+
+		return where.toString();
+	}
+
+	// Quartz stores a missing fire time as -1
+	private LocalDateTime toLocalDateTime(long millis) {
+		return millis > 0 ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()) : null;
+	}
+
+	/**
+	 * Rows come ordered by job name, one per trigger, so a job is complete when the
+	 * next job's first row arrives.
+	 */
+	private class JobAssembler implements RowCallbackHandler {
+
+		private final JobConsumer consumer;
+		private BulkSchedulerJob current;
+
+		JobAssembler(JobConsumer consumer) {
+			this.consumer = consumer;
+		}
+
+		@Override
+		public void processRow(ResultSet rs) throws SQLException {
+
+			String name = rs.getString("JOB_NAME");
+
+			if (current == null || !current.getName().equals(name)) {
+				finish();
+				current = new BulkSchedulerJob(name, rs.getString("JOB_GROUP"), rs.getString("DESCRIPTION"), new ArrayList<BulkSchedulerTrigger>());
+			}
+
+			// No trigger row, e.g. a job caught between its trigger being removed and the job deleted
+			if (rs.getString("TRIGGER_NAME") != null) {
+				current.getTriggers().add(new BulkSchedulerTrigger(rs.getString("TRIGGER_DESCRIPTION"), 
+						toLocalDateTime(rs.getLong("NEXT_FIRE_TIME")), toLocalDateTime(rs.getLong("PREV_FIRE_TIME"))));
+			}
+		}
+
+		void finish() {
+
+			if (current == null) {
+				return;
+			}
+
+			try {
+				consumer.accept(current);
+			} catch (IOException e) {
+				// Stops the query, streamJobs rethrows the IOException
+				throw new UncheckedIOException(e);
+			}
+
+			current = null;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.List;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+
+@Service
+@ConditionalOnProperty(name = "aims.scheduler.engine", havingValue = "quartz", matchIfMissing = true)
+public class QuartzPendingJobStore implements PendingJobStore {
+	
+	@Autowired
+	private Scheduler scheduler;
+	
+	@Autowired
+	private QuartzJobRepository jobRepository;
+
+	@Autowired
+	private Clock clock;
+	
+	@Value("${aims.scheduler.misfire.threshold-seconds}")
+	private long overdueSeconds;
+	
+	@Override
+	public boolean delete(JobKey key) throws SchedulerException {
+		return scheduler.deleteJob(key);
+	}
+	
+	@Override
+	public int countJobs(JobFilter filter) throws SchedulerException {
+		
+		try {
+			return jobRepository.countJobs(scheduler.getSchedulerName(), filter, overdueBefore());
+		} catch (DataAccessException e) {
+			throw new SchedulerException(String.format("Problem counting jobs: %s", e.getMessage()), e);
+		}
+	}
+	
+	@Override
+	public List<BulkSchedulerJob> getJobs(JobFilter filter) throws SchedulerException {
+		
+		try {
+			return jobRepository.findJobs(scheduler.getSchedulerName(), filter, overdueBefore());
+		} catch (DataAccessException e) {
+			throw new SchedulerException(String.format("Problem reading jobs: %s", e.getMessage()), e);
+		}
+	}
+	
+	@Override
+	public void streamJobs(JobFilter filter, JobConsumer consumer) throws SchedulerException, IOException {
+		
+		try {
+			jobRepository.streamJobs(scheduler.getSchedulerName(), filter, overdueBefore(), consumer);
+		} catch (DataAccessException e) {
+			throw new SchedulerException(String.format("Problem reading jobs: %s", e.getMessage()), e);
+		}
+	}
+	
+	private long overdueBefore() {
+		return clock.millis() - overdueSeconds * 1000;
+	}
+}
@@ -0,0 +1,100 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.DATA_SET;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.IDS_DATA_SET;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.IDS_TABLE_ID;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.TABLE_ID;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
+import com.google.cloud.bigquery.TableResult;
+
+import uk.gov.ons.bulk.scheduler.entities.QueryCountResult;
+import uk.gov.ons.bulk.scheduler.entities.QueryRowCountResult;
+import uk.gov.ons.bulk.scheduler.entities.ReadinessResult;
+import uk.gov.ons.bulk.scheduler.exception.ReadinessCheckException;
+
+/**
+ * Compares __TABLES__.row_count with a COUNT(1) of the table. The COUNT(1) query is
+ * skipped while row_count shows the table is still short of its expected rows.
+ */
+@Service
+public class QueryReadinessStrategy implements ReadinessStrategy {
+
+	@Autowired
+	private BigQueryGateway bigQueryGateway;
+
+	@Autowired
+	private JobProgressTracker progressTracker;
+
+	private String QUERY_ROW_COUNT_DATA_SET_TABLE = "SELECT row_count FROM %s.__TABLES__ WHERE table_id = @tableId";
+	private String QUERY_COUNT_DATA_SET_TABLE = "SELECT COUNT(1) AS count FROM %s.%s%s";
+
+	@Override
+	public String getName() {
+		return "query";
+	}
+
+	@Override
+	public ReadinessResult check(String jobId, boolean idsJob, int expectedRows) throws InterruptedException, ReadinessCheckException {
+
+		// Should only have one result
+		List<QueryRowCountResult> queryRowCountResultList = runRowCountQuery(jobId, idsJob);
+
+		if (queryRowCountResultList.isEmpty()) {
+			// Table not created yet, nothing to count
+			return new ReadinessResult(null, null);
+		}
+
+		Long rowCount = queryRowCountResultList.get(0).getRowCount();
+
+		if (progressTracker.isIncomplete(String.format("%s%s", idsJob ? IDS_TABLE_ID : TABLE_ID, jobId), rowCount, expectedRows)) {
+			return new ReadinessResult(rowCount, null);
+		}
+
+		List<QueryCountResult> queryCountResultList = runCountQuery(jobId, idsJob);
+
+		return new ReadinessResult(rowCount, queryCountResultList.size() > 0 ? queryCountResultList.get(0).getCount() : null);
+	}
+
+	List<QueryRowCountResult> runRowCountQuery(String jobId, boolean idsJob) throws InterruptedException, ReadinessCheckException {
+
+		List<QueryRowCountResult> qr = new ArrayList<QueryRowCountResult>();
+
+		String dataSet = idsJob ? IDS_DATA_SET : DATA_SET;
+		String tableId = idsJob ? IDS_TABLE_ID : TABLE_ID;
+
+		QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(String.format(QUERY_ROW_COUNT_DATA_SET_TABLE, dataSet))
+				.addNamedParameter("tableId", QueryParameterValue.string(String.format("%s%s", tableId, jobId))).build();
+
+		TableResult results = bigQueryGateway.query("row_count", idsJob, queryConfig);
+		results.iterateAll().forEach(row -> {
+			qr.add(new QueryRowCountResult(row.get("row_count").getLongValue()));
+		});
+
+		return qr;
+	}
+
+	List<QueryCountResult> runCountQuery(String jobId, boolean idsJob) throws InterruptedException, ReadinessCheckException {
+
+		List<QueryCountResult> qr = new ArrayList<QueryCountResult>();
+
+		String dataSet = idsJob ? IDS_DATA_SET : DATA_SET;
+		String tableId = idsJob ? IDS_TABLE_ID : TABLE_ID;
+
+		QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(String.format(QUERY_COUNT_DATA_SET_TABLE, dataSet, tableId, jobId)).build();
+
+		TableResult results = bigQueryGateway.query("count", idsJob, queryConfig);
+		results.iterateAll().forEach(row -> {
+			qr.add(new QueryCountResult(row.get("count").getLongValue()));
+		});
+
+		return qr;
+	}
+}
@@ -0,0 +1,17 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import uk.gov.ons.bulk.scheduler.entities.ReadinessResult;
+import uk.gov.ons.bulk.scheduler.exception.ReadinessCheckException;
+
+/**
+ * Decides whether the streaming buffer of a result table has drained. The strategy
+ * used by {@link JobService} is selected with aims.scheduler.readiness.strategy.
+ * Strategies run their cheapest probe first and use expectedRows to skip the more
+ * expensive ones when the table cannot be complete yet.
+ */
+public interface ReadinessStrategy {
+
+	String getName();
+
+	ReadinessResult check(String jobId, boolean idsJob, int expectedRows) throws InterruptedException, ReadinessCheckException;
+}
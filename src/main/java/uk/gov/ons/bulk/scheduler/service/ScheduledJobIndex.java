@@ -0,0 +1,126 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.SCHEDULER_GROUP;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remembers the names of jobs that have been scheduled so that a redelivered Pub/Sub
+ * message can be acked without going to the job store. Entries expire after ttl-hours,
+ * which is kept well beyond the subscription's redelivery window, and the oldest are
+ * dropped once max-entries is reached. A job that has been exported stays in the index
+ * until it expires so a late redelivery does not schedule it again.
+ */
+@Slf4j
+@Service
+public class ScheduledJobIndex {
+
+	@Autowired
+	private Scheduler scheduler;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private Clock clock;
+
+	@Value("${aims.pubsub.dedupe.max-entries}")
+	private int maxEntries;
+
+	@Value("${aims.pubsub.dedupe.ttl-hours}")
+	private long ttlHours;
+
+	private final Map<String, Instant> entries = new LinkedHashMap<String, Instant>() {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+			return size() > maxEntries;
+		}
+	};
+
+	private Counter hits;
+	private Counter misses;
+
+	@PostConstruct
+	public void init() {
+
+		hits = Counter.builder("bulk.scheduler.dedupe").tag("result", "hit")
+				.description("Inbound messages for jobs that were already scheduled").register(meterRegistry);
+		misses = Counter.builder("bulk.scheduler.dedupe").tag("result", "miss")
+				.description("Inbound messages for jobs that were not yet scheduled").register(meterRegistry);
+		Gauge.builder("bulk.scheduler.dedupe.size", this, ScheduledJobIndex::size)
+				.description("Job names held in the dedupe index").register(meterRegistry);
+
+		try {
+			for (JobKey key : scheduler.getJobKeys(GroupMatcher.jobGroupEquals(SCHEDULER_GROUP))) {
+				add(key.getName());
+			}
+
+			log.info(String.format("Dedupe index warmed with %d scheduled jobs", size()));
+		} catch (SchedulerException e) {
+			log.error(String.format("Problem warming dedupe index: %s", e.getMessage()));
+		}
+	}
+
+	public boolean contains(String jobName) {
+
+		boolean found;
+
+		synchronized (entries) {
+			Instant expiresAt = entries.get(jobName);
+
+			if (expiresAt != null && !expiresAt.isAfter(clock.instant())) {
+				entries.remove(jobName);
+				expiresAt = null;
+			}
+
+			found = expiresAt != null;
+		}
+
+		(found ? hits : misses).increment();
+		return found;
+	}
+
+	public void add(String jobName) {
+
+		synchronized (entries) {
+			// Re-inserting moves the job to the young end of the eviction order
+			entries.remove(jobName);
+			entries.put(jobName, clock.instant().plus(Duration.ofHours(ttlHours)));
+		}
+	}
+
+	public void remove(String jobName) {
+
+		synchronized (entries) {
+			entries.remove(jobName);
+		}
+	}
+
+	int size() {
+
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.entities.ShardAssignment;
+import uk.gov.ons.bulk.scheduler.util.ConsistentHashRing;
+
+/**
+ * Splits the job keyspace between scheduler replicas. Every replica writes a heartbeat
+ * row to BULK_SCHEDULER_REPLICAS and builds a consistent hash ring of the replicas
+ * with a fresh heartbeat. Each of the fixed partitions belongs to the replica the ring
+ * maps it to, so when a replica joins or leaves only its share of partitions moves.
+ * The timing wheel engine only polls the jobs in the partitions its replica owns.
+ * 
+ * Replicas see a change at their next heartbeat, so for up to one heartbeat two of
+ * them may both poll a partition that is changing hands. The heartbeat runs on a thread
+ * of its own, a heartbeat held up behind other scheduled tasks for longer than
+ * expiry-millis would hand this replica's partitions to the others. Heartbeats are
+ * stamped and expired by the database's clock, to the second, so the replicas' own
+ * clocks need not agree.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "aims.scheduler.sharding.enabled", havingValue = "true")
+public class ShardCoordinator {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${aims.scheduler.sharding.replica-id}")
+	private String replicaId;
+
+	@Value("${aims.scheduler.sharding.partitions}")
+	private int partitions;
+
+	@Value("${aims.scheduler.sharding.virtual-nodes}")
+	private int virtualNodes;
+
+	@Value("${aims.scheduler.sharding.expiry-millis}")
+	private long expiryMillis;
+
+	@Value("${aims.scheduler.sharding.heartbeat-millis}")
+	private long heartbeatMillis;
+
+	private String UPDATE_HEARTBEAT = "UPDATE BULK_SCHEDULER_REPLICAS SET HEARTBEAT = ? WHERE REPLICA_ID = ?";
+	private String INSERT_REPLICA = "INSERT INTO BULK_SCHEDULER_REPLICAS (REPLICA_ID, HEARTBEAT) VALUES (?, ?)";
+	private String SELECT_LIVE_REPLICAS = "SELECT REPLICA_ID FROM BULK_SCHEDULER_REPLICAS WHERE HEARTBEAT >= ?";
+	private String DELETE_EXPIRED_REPLICAS = "DELETE FROM BULK_SCHEDULER_REPLICAS WHERE HEARTBEAT < ?";
+	private String SELECT_DATABASE_TIME = "SELECT UNIX_TIMESTAMP()";
+	private String DELETE_REPLICA = "DELETE FROM BULK_SCHEDULER_REPLICAS WHERE REPLICA_ID = ?";
+
+	private volatile Set<Integer> ownedPartitions = Set.of();
+	private volatile int liveReplicas;
+	private ScheduledExecutorService heartbeatExecutor;
+
+	@PostConstruct
+	public void init() throws UnknownHostException {
+
+		if (replicaId == null || replicaId.isBlank()) {
+			// Several replicas can share a host name, e.g. when run locally
+			replicaId = String.format("%s-%s", InetAddress.getLocalHost().getHostName(), UUID.randomUUID().toString().substring(0, 8));
+		}
+
+		Gauge.builder("bulk.scheduler.shard.partitions", this, coordinator -> coordinator.ownedPartitions.size())
+				.description("Partitions of the job keyspace owned by this replica")
+				.register(meterRegistry);
+		Gauge.builder("bulk.scheduler.shard.replicas", this, coordinator -> coordinator.liveReplicas)
+				.description("Scheduler replicas with a live heartbeat")
+				.register(meterRegistry);
+
+		heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "shard-heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		log.info(String.format("Sharding %d partitions as replica %s", partitions, replicaId));
+	}
+
+	/**
+	 * Starts the heartbeat once the application is ready, so that the engine is listening
+	 * for the first assignment.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		heartbeatExecutor.scheduleWithFixedDelay(this::heartbeatQuietly, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void heartbeatQuietly() {
+		try {
+			heartbeat();
+		} catch (RuntimeException e) {
+			// An exception would cancel every later heartbeat
+			log.error(String.format("Problem sending heartbeat of replica %s: %s", replicaId, e.getMessage()));
+		}
+	}
+
+	public void heartbeat() {
+
+		// Every replica reads the same clock, however far apart the hosts' clocks are
+		long now = jdbcTemplate.queryForObject(SELECT_DATABASE_TIME, Long.class) * 1000;
+
+		if (jdbcTemplate.update(UPDATE_HEARTBEAT, now, replicaId) == 0) {
+			jdbcTemplate.update(INSERT_REPLICA, replicaId, now);
+		}
+
+		// Any replica can clear out rows left behind by replicas that died
+		jdbcTemplate.update(DELETE_EXPIRED_REPLICAS, now - expiryMillis);
+
+		List<String> replicas = jdbcTemplate.queryForList(SELECT_LIVE_REPLICAS, String.class, now - expiryMillis);
+		ConsistentHashRing ring = new ConsistentHashRing(replicas, virtualNodes);
+
+		Set<Integer> owned = IntStream.range(0, partitions)
+				.filter(partition -> replicaId.equals(ring.nodeFor(partitionKey(partition))))
+				.boxed()
+				.collect(Collectors.toCollection(TreeSet::new));
+
+		boolean changed = !owned.equals(ownedPartitions);
+
+		if (changed) {
+			log.info(String.format("Replica %s now owns %d of %d partitions, %d live replicas", 
+					replicaId, owned.size(), partitions, replicas.size()));
+		}
+
+		ownedPartitions = owned;
+		liveReplicas = replicas.size();
+
+		// Published every time so the engine also picks up jobs other replicas have stored in its partitions
+		eventPublisher.publishEvent(new ShardAssignment(replicaId, owned, changed));
+	}
+
+	/**
+	 * Lets the other replicas take over this replica's partitions at their next heartbeat
+	 * rather than once its heartbeat has expired.
+	 */
+	@PreDestroy
+	public void leave() {
+		heartbeatExecutor.shutdownNow();
+		jdbcTemplate.update(DELETE_REPLICA, replicaId);
+		ownedPartitions = Set.of();
+	}
+
+	public Set<Integer> getOwnedPartitions() {
+		return ownedPartitions;
+	}
+
+	public String getReplicaId() {
+		return replicaId;
+	}
+
+	private String partitionKey(int partition) {
+		return String.format("partition-%d", partition);
+	}
+}
@@ -0,0 +1,566 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.JOB_NAME_IDS;
+import static uk.gov.ons.bulk.scheduler.util.SchedulerConstants.SCHEDULER_GROUP;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerTrigger;
+import uk.gov.ons.bulk.scheduler.entities.JobEvent;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.entities.PollJob;
+import uk.gov.ons.bulk.scheduler.entities.ShardAssignment;
+import uk.gov.ons.bulk.scheduler.exception.BigQueryUnavailableException;
+import uk.gov.ons.bulk.scheduler.exception.ReadinessCheckException;
+import uk.gov.ons.bulk.scheduler.util.ConsistentHashRing;
+import uk.gov.ons.bulk.scheduler.util.TimingWheel;
+
+/**
+ * Polls result tables without Quartz. Each job is one row in BULK_POLL_JOBS holding the
+ * time of its next check and one entry in an in-memory timing wheel. A single ticker
+ * thread advances the wheel and hands due jobs to virtual threads, at most
+ * max-concurrent-checks at a time. There are no trigger rows, job data BLOBs or
+ * QRTZ_LOCKS, a check costs one indexed UPDATE of NEXT_CHECK.
+ * 
+ * With aims.scheduler.sharding.enabled every row carries the partition of its job name
+ * and the engine only holds the jobs in the partitions the ShardCoordinator assigns to
+ * this replica, so several replicas can share BULK_POLL_JOBS without polling a table twice.
+ * A sharded job is leased before it is checked, by moving its NEXT_CHECK on only if it
+ * is still the one this replica read, so a job deleted or taken over by another replica
+ * is dropped instead of checked. The in-memory jobs are only for scheduling: listings
+ * and counts are read from BULK_POLL_JOBS and so cover every shard.
+ * 
+ * With aims.scheduler.wheel.simulated the ticker thread is not started and the caller
+ * ticks the engine after moving the clock on, each due check is made on the calling
+ * thread before tick returns. Days of polling can then be replayed in virtual time.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "aims.scheduler.engine", havingValue = "wheel")
+public class TimingWheelEngine implements PendingJobStore {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// JobService needs the engine as its PendingJobStore
+	@Lazy
+	@Autowired
+	private JobService jobService;
+
+	// The cache reads its listing from the engine
+	@Lazy
+	@Autowired
+	private JobListingCache jobListingCache;
+
+	@Autowired
+	private JobEventBroadcaster jobEventBroadcaster;
+
+	@Autowired
+	private PipelineMetrics pipelineMetrics;
+
+	@Autowired
+	private AdaptivePollPolicy adaptivePollPolicy;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private Clock clock;
+
+	@Value("${aims.scheduler.frequency-minutes}")
+	private int frequencyInMinutes;
+
+	@Value("${aims.scheduler.adaptive.enabled}")
+	private boolean adaptiveEnabled;
+
+	@Value("${aims.scheduler.jitter.max-seconds}")
+	private long maxJitterSeconds;
+
+	@Value("${aims.scheduler.wheel.tick-millis}")
+	private long tickMillis;
+
+	@Value("${aims.scheduler.wheel.wheel-size}")
+	private int wheelSize;
+
+	@Value("${aims.scheduler.wheel.max-concurrent-checks}")
+	private int maxConcurrentChecks;
+
+	@Value("${aims.scheduler.wheel.simulated}")
+	private boolean simulated;
+
+	@Value("${aims.scheduler.misfire.threshold-seconds}")
+	private long overdueSeconds;
+
+	@Value("${aims.scheduler.sharding.enabled}")
+	private boolean shardingEnabled;
+
+	@Value("${aims.scheduler.sharding.partitions}")
+	private int partitions;
+
+	@Value("${aims.scheduler.sharding.pickup-overlap-millis}")
+	private long pickupOverlapMillis;
+
+	// Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of reading the whole result set first
+	@Value("${aims.scheduler.jobs.fetch-size}")
+	private int fetchSize;
+
+	// A streamed listing holds its pooled connection until the client has read it all
+	@Value("${aims.scheduler.jobs.query-timeout-seconds}")
+	private int queryTimeoutSeconds;
+
+	private String SELECT_JOBS = "SELECT JOB_NAME, JOB_ID, IDS_JOB_ID, EXPECTED_ROWS, NEXT_CHECK, RECEIVED_AT, CHECKS FROM BULK_POLL_JOBS";
+	private String SELECT_PARTITION_JOBS = "SELECT JOB_NAME, JOB_ID, IDS_JOB_ID, EXPECTED_ROWS, NEXT_CHECK, RECEIVED_AT, CHECKS FROM BULK_POLL_JOBS WHERE PARTITION_ID IN (%s)";
+	private String SELECT_RECEIVED_PARTITION_JOBS = SELECT_PARTITION_JOBS + " AND RECEIVED_AT > ?";
+	private String SELECT_LISTING = SELECT_JOBS + " WHERE %s ORDER BY JOB_NAME%s";
+	private String COUNT_JOBS = "SELECT COUNT(1) FROM BULK_POLL_JOBS WHERE %s";
+	private String INSERT_JOB = "INSERT INTO BULK_POLL_JOBS (JOB_NAME, JOB_ID, IDS_JOB_ID, EXPECTED_ROWS, NEXT_CHECK, PARTITION_ID, RECEIVED_AT) VALUES (?, ?, ?, ?, ?, ?, ?)";
+	private String UPDATE_NEXT_CHECK = "UPDATE BULK_POLL_JOBS SET NEXT_CHECK = ?, CHECKS = ? WHERE JOB_NAME = ?";
+	private String LEASE_JOB = "UPDATE BULK_POLL_JOBS SET NEXT_CHECK = ? WHERE JOB_NAME = ? AND NEXT_CHECK = ?";
+	private String DELETE_JOB = "DELETE FROM BULK_POLL_JOBS WHERE JOB_NAME = ?";
+	// _ is a wildcard in LIKE
+	private String IDS_PATTERN = String.format("%s_%%", JOB_NAME_IDS).replace("_", "\\_");
+
+	private final RowMapper<PollJob> rowMapper = (rs, rowNum) -> new PollJob(rs.getString("JOB_NAME"), rs.getString("JOB_ID"),
+			rs.getString("IDS_JOB_ID"), rs.getInt("EXPECTED_ROWS"), rs.getLong("NEXT_CHECK"), rs.getObject("RECEIVED_AT", Long.class), 
+			rs.getInt("CHECKS"));
+
+	private final Map<String, PollJob> jobs = new ConcurrentHashMap<String, PollJob>();
+	private final Set<String> checking = ConcurrentHashMap.newKeySet();
+	// Everything when not sharded, nothing until the first heartbeat when sharded
+	private volatile Set<Integer> ownedPartitions;
+	// Clock time of the last read of the owned partitions
+	private long pickedUpTo;
+	private TimingWheel<String> wheel;
+	private Semaphore permits;
+	private ScheduledExecutorService ticker;
+	private ExecutorService checkExecutor;
+	private JdbcTemplate streamingJdbcTemplate;
+
+	@PostConstruct
+	public void init() {
+
+		streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+		streamingJdbcTemplate.setFetchSize(fetchSize);
+		streamingJdbcTemplate.setQueryTimeout(queryTimeoutSeconds);
+
+		wheel = new TimingWheel<String>(tickMillis, wheelSize, clock.millis());
+		permits = new Semaphore(maxConcurrentChecks);
+		ownedPartitions = shardingEnabled ? Set.of() : null;
+		checkExecutor = Executors.newVirtualThreadPerTaskExecutor();
+		ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "timing-wheel");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		Gauge.builder("bulk.scheduler.wheel.pending", this, TimingWheelEngine::size)
+				.description("Jobs waiting in the timing wheel engine")
+				.register(meterRegistry);
+	}
+
+	@Order(3)
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		
+		if (!shardingEnabled) {
+			load();
+		}
+		
+		if (simulated) {
+			log.warn("Timing wheel engine is simulated, jobs are only checked when the engine is ticked");
+			return;
+		}
+		
+		ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		ticker.shutdownNow();
+		checkExecutor.shutdownNow();
+	}
+
+	void load() {
+
+		jdbcTemplate.query(SELECT_JOBS, rowMapper).forEach(job -> {
+			jobs.put(job.getJobName(), job);
+			enqueue(job.getJobName(), job.getNextCheck());
+		});
+
+		jobListingCache.invalidate();
+		log.info(String.format("Timing wheel engine loaded %d jobs", jobs.size()));
+	}
+
+	/**
+	 * Brings the engine into line with the partitions this replica owns. When the
+	 * assignment has changed every row of the owned partitions is read, jobs in
+	 * partitions it has lost or deleted by another replica are dropped and the rest
+	 * picked up. Otherwise only rows received since the last read, less
+	 * pickup-overlap-millis for clock skew between replicas and slow inserts, are read
+	 * to pick up jobs other replicas have stored in its partitions.
+	 */
+	@EventListener
+	public void onShardAssignment(ShardAssignment assignment) {
+
+		Set<Integer> owned = assignment.getPartitions();
+		boolean reload = assignment.isChanged();
+		// Jobs scheduled here from now on may be missing from the rows and must be kept
+		Set<String> held = reload ? Set.copyOf(jobs.keySet()) : Set.of();
+		long readAt = clock.millis();
+		List<PollJob> rows = owned.isEmpty() ? List.of() : reload 
+				? jdbcTemplate.query(String.format(SELECT_PARTITION_JOBS, placeholders(owned)), rowMapper, owned.toArray())
+				: jdbcTemplate.query(String.format(SELECT_RECEIVED_PARTITION_JOBS, placeholders(owned)), rowMapper, 
+						Stream.concat(owned.stream(), Stream.of(pickedUpTo - pickupOverlapMillis)).toArray());
+
+		ownedPartitions = owned;
+		pickedUpTo = readAt;
+		int dropped = 0;
+
+		if (reload) {
+			Set<String> names = rows.stream().map(PollJob::getJobName).collect(Collectors.toSet());
+			int before = jobs.size();
+			jobs.keySet().removeIf(name -> !owned.contains(ConsistentHashRing.partitionOf(name, partitions)) 
+					|| (held.contains(name) && !names.contains(name)));
+			dropped = before - jobs.size();
+		}
+
+		// The listing is read from the table, taking jobs on or handing them over does not change it
+		for (PollJob job : rows) {
+			if (jobs.putIfAbsent(job.getJobName(), job) == null) {
+				enqueue(job.getJobName(), job.getNextCheck());
+			}
+		}
+
+		if (reload) {
+			log.info(String.format("Timing wheel engine holds %d jobs after rebalance, %d dropped", jobs.size(), dropped));
+		}
+	}
+
+	/**
+	 * Returns false if the job is already scheduled, e.g. for a redelivered message.
+	 */
+	public boolean schedule(String jobName, String jobId, String idsJobId, int expectedRows) {
+
+		Duration firstDelay = adaptiveEnabled ? adaptivePollPolicy.initialDelay(expectedRows) : Duration.ofMinutes(frequencyInMinutes);
+		long nextCheck = clock.millis() + firstDelay.toMillis() + ThreadLocalRandom.current().nextLong(maxJitterSeconds * 1000 + 1);
+
+		int partition = ConsistentHashRing.partitionOf(jobName, partitions);
+		long receivedAt = clock.millis();
+
+		try {
+			jdbcTemplate.update(INSERT_JOB, jobName, jobId, idsJobId != null ? idsJobId : "", expectedRows, nextCheck, partition, receivedAt);
+		} catch (DuplicateKeyException e) {
+			log.debug(String.format("Job %s already scheduled", jobName));
+			return false;
+		}
+
+		jobEventBroadcaster.publish(JobEvent.Type.SCHEDULED, jobName);
+
+		if (!owns(partition)) {
+			// The owning replica picks it up at its next heartbeat
+			return true;
+		}
+
+		PollJob job = new PollJob(jobName, jobId, idsJobId, expectedRows, nextCheck, receivedAt, 0);
+		jobs.put(jobName, job);
+		enqueue(jobName, nextCheck);
+		jobListingCache.put(toListing(job));
+
+		return true;
+	}
+
+	@Override
+	public boolean delete(JobKey key) {
+
+		int deleted = jdbcTemplate.update(DELETE_JOB, key.getName());
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// Deleted with an outbox row, only forget the job once that has committed
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					jobs.remove(key.getName());
+					jobListingCache.remove(key.getName());
+				}
+			});
+		} else {
+			jobs.remove(key.getName());
+			jobListingCache.remove(key.getName());
+		}
+
+		if (deleted > 0) {
+			jobEventBroadcaster.publish(JobEvent.Type.DELETED, key.getName());
+		}
+
+		return deleted > 0;
+	}
+
+	/**
+	 * Every shard's jobs, read from the table.
+	 */
+	@Override
+	public List<BulkSchedulerJob> getJobs(JobFilter filter) {
+		
+		List<BulkSchedulerJob> listing = new ArrayList<BulkSchedulerJob>();
+		query(filter, listing::add);
+		
+		return listing;
+	}
+
+	private BulkSchedulerJob toListing(PollJob job) {
+		return new BulkSchedulerJob(job.getJobName(), SCHEDULER_GROUP, "Query BigQuery status of result table", 
+				List.of(new BulkSchedulerTrigger("Timing wheel check", 
+						LocalDateTime.ofInstant(Instant.ofEpochMilli(job.getNextCheck()), ZoneId.systemDefault()), null)));
+	}
+
+	@Override
+	public void streamJobs(JobFilter filter, JobConsumer consumer) throws IOException {
+		
+		try {
+			query(filter, consumer);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private void query(JobFilter filter, JobConsumer consumer) {
+		
+		List<Object> args = new ArrayList<Object>();
+		String where = where(filter, args);
+		String limit = "";
+		
+		if (filter.getLimit() != null) {
+			limit = " LIMIT ?";
+			args.add(filter.getLimit());
+		}
+		
+		streamingJdbcTemplate.query(String.format(SELECT_LISTING, where, limit), rs -> {
+			try {
+				consumer.accept(toListing(rowMapper.mapRow(rs, 0)));
+			} catch (IOException e) {
+				// Stops the query, streamJobs rethrows the IOException
+				throw new UncheckedIOException(e);
+			}
+		}, args.toArray());
+	}
+
+	/**
+	 * Every shard's jobs, backpressure is about the whole backlog rather than this
+	 * replica's share of it.
+	 */
+	@Override
+	public int countJobs(JobFilter filter) {
+		
+		List<Object> args = new ArrayList<Object>();
+		String where = where(filter, args);
+		
+		return jdbcTemplate.queryForObject(String.format(COUNT_JOBS, where), Integer.class, args.toArray());
+	}
+
+	private String where(JobFilter filter, List<Object> args) {
+		
+		StringBuilder where = new StringBuilder("1 = 1");
+		
+		if (filter.getAfter() != null) {
+			where.append(" AND JOB_NAME > ?");
+			args.add(filter.getAfter());
+		}
+		
+		if (filter.getIds() != null) {
+			where.append(filter.getIds() ? " AND JOB_NAME LIKE ?" : " AND JOB_NAME NOT LIKE ?");
+			args.add(IDS_PATTERN);
+		}
+		
+		if (filter.isOverdue()) {
+			where.append(" AND NEXT_CHECK < ?");
+			args.add(clock.millis() - overdueSeconds * 1000);
+		}
+		
+		return where.toString();
+	}
+
+	/**
+	 * The jobs held by this replica for checking.
+	 */
+	int size() {
+		return jobs.size();
+	}
+
+	Set<String> getHeldJobs() {
+		return Set.copyOf(jobs.keySet());
+	}
+
+	/**
+	 * Checks every job that has come due by the clock. Run by the ticker thread every 
+	 * tick-millis, or by the caller when simulated.
+	 */
+	public void tick() {
+
+		try {
+			long now = clock.millis();
+			List<String> due;
+
+			synchronized (wheel) {
+				due = wheel.advance(now);
+			}
+
+			for (String jobName : due) {
+				PollJob job = jobs.get(jobName);
+
+				// Deleted since it was added, or a stale entry for a job that has been rescheduled
+				if (job == null || job.getNextCheck() > now || !checking.add(jobName)) {
+					continue;
+				}
+
+				Runnable task = () -> {
+					try {
+						check(job);
+					} finally {
+						checking.remove(jobName);
+						permits.release();
+					}
+				};
+
+				permits.acquire();
+
+				if (simulated) {
+					task.run();
+				} else {
+					checkExecutor.execute(task);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			// Keep ticking, an exception would cancel the scheduled task
+			log.error(String.format("Problem advancing timing wheel: %s", e.getMessage()));
+		}
+	}
+
+	void check(PollJob job) {
+
+		if (shardingEnabled && !lease(job)) {
+			return;
+		}
+
+		Duration delay = null;
+		int checks = job.getChecks();
+		pipelineMetrics.recordFireDelay(PipelineMetrics.isIdsJob(job.getIdsJobId()), "wheel", 
+				Duration.ofMillis(clock.millis() - job.getNextCheck()));
+
+		try {
+			delay = jobService.poll(job.getJobId(), job.getIdsJobId(), job.getExpectedRows(), new JobKey(job.getJobName(), SCHEDULER_GROUP), 
+					job.getReceivedAt(), checks);
+			checks++;
+		} catch (BigQueryUnavailableException e) {
+			log.warn(String.format("BigQuery unavailable, deferring check of job %s: %s", job.getJobName(), e.getMessage()));
+			delay = e.getRetryAfter();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ReadinessCheckException | SchedulerException | JsonProcessingException | RuntimeException e) {
+			log.error(String.format("Problem checking job %s: %s", job.getJobName(), e.getMessage()));
+		}
+
+		// An exported job is normally deleted well before this, it is only checked again if its export failed
+		reschedule(job.getJobName(), delay != null ? delay : Duration.ofMinutes(frequencyInMinutes), checks);
+	}
+
+	/**
+	 * Moves the job's next check on by the polling interval, so that another replica
+	 * taking its partition over meanwhile does not check it too. Fails if the row has
+	 * been deleted or rescheduled by another replica since it was read, the job is then
+	 * dropped. The check moves it on again once it is done.
+	 */
+	private boolean lease(PollJob job) {
+
+		long leaseUntil = clock.millis() + Duration.ofMinutes(frequencyInMinutes).toMillis();
+
+		if (jdbcTemplate.update(LEASE_JOB, leaseUntil, job.getJobName(), job.getNextCheck()) == 0) {
+			log.debug(String.format("Job %s deleted or taken over by another replica, not checked", job.getJobName()));
+			jobs.remove(job.getJobName());
+			return false;
+		}
+
+		return true;
+	}
+
+	private void reschedule(String jobName, Duration delay, int checks) {
+
+		long nextCheck = clock.millis() + delay.toMillis();
+		PollJob job = jobs.computeIfPresent(jobName, (name, current) -> 
+				new PollJob(current.getJobName(), current.getJobId(), current.getIdsJobId(), current.getExpectedRows(), nextCheck, current.getReceivedAt(), 
+						checks));
+
+		if (job == null) {
+			return;
+		}
+
+		if (jdbcTemplate.update(UPDATE_NEXT_CHECK, nextCheck, checks, jobName) == 0) {
+			// Deleted by another replica
+			jobs.remove(jobName);
+			jobListingCache.remove(jobName);
+		} else {
+			enqueue(jobName, nextCheck);
+			jobListingCache.put(toListing(job));
+		}
+	}
+
+	private String placeholders(Set<Integer> owned) {
+		return String.join(",", Collections.nCopies(owned.size(), "?"));
+	}
+
+	private boolean owns(int partition) {
+		Set<Integer> owned = ownedPartitions;
+		return owned == null || owned.contains(partition);
+	}
+
+	private void enqueue(String jobName, long nextCheck) {
+		synchronized (wheel) {
+			wheel.add(jobName, nextCheck);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package uk.gov.ons.bulk.scheduler.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Places every node at virtualNodes points on a ring of 64 bit hashes and maps a key
+ * to the first node at or after the key's hash. When a node joins or leaves only the
+ * keys between it and its neighbours move, about 1/n of them. The hash is MD5 so every
+ * replica builds the same ring from the same node names.
+ */
+public class ConsistentHashRing {
+
+	private final TreeMap<Long, String> ring = new TreeMap<Long, String>();
+
+	public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+
+		for (String node : nodes) {
+			for (int i = 0; i < virtualNodes; i++) {
+				ring.put(hash(String.format("%s#%d", node, i)), node);
+			}
+		}
+	}
+
+	/**
+	 * Returns the node owning key, or null if the ring is empty.
+	 */
+	public String nodeFor(String key) {
+
+		if (ring.isEmpty()) {
+			return null;
+		}
+
+		Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+		return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+	}
+
+	public static long hash(String key) {
+
+		try {
+			byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+			return ByteBuffer.wrap(digest).getLong();
+		} catch (NoSuchAlgorithmException e) {
+			// Every JVM is required to provide MD5
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static int partitionOf(String key, int partitions) {
+		return Math.floorMod(hash(key), partitions);
+	}
+}
@@ -0,0 +1,104 @@
+package uk.gov.ons.bulk.scheduler.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects items for up to windowMillis after the first one arrives, or until
+ * maxBatchSize have arrived, and hands them to the handler together on a thread of its
+ * own. The handler is never run for an empty batch or for two batches at once, unless
+ * flush is also called from another thread.
+ */
+public class MicroBatcher<T> {
+
+	private final long windowMillis;
+	private final int maxBatchSize;
+	private final Consumer<List<T>> handler;
+	private final List<T> pending = new ArrayList<T>();
+	private final ScheduledExecutorService executor;
+	private ScheduledFuture<?> scheduledFlush;
+
+	public MicroBatcher(String threadName, long windowMillis, int maxBatchSize, Consumer<List<T>> handler) {
+		this.windowMillis = windowMillis;
+		this.maxBatchSize = maxBatchSize;
+		this.handler = handler;
+		this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, threadName);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public void add(T item) {
+
+		synchronized (pending) {
+			pending.add(item);
+
+			if (pending.size() >= maxBatchSize) {
+				executor.execute(this::flush);
+			} else if (scheduledFlush == null) {
+				scheduledFlush = executor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Hands whatever has been collected to the handler on the calling thread.
+	 */
+	public void flush() {
+
+		List<T> batch;
+
+		synchronized (pending) {
+			if (scheduledFlush != null) {
+				scheduledFlush.cancel(false);
+				scheduledFlush = null;
+			}
+
+			if (pending.isEmpty()) {
+				return;
+			}
+
+			batch = new ArrayList<T>(pending);
+			pending.clear();
+		}
+
+		handler.accept(batch);
+	}
+
+	/**
+	 * Hands over what has been collected so far and stops, waiting up to timeoutMillis
+	 * for the handler to finish.
+	 */
+	public void close(long timeoutMillis) {
+
+		executor.execute(this::flush);
+		executor.shutdown();
+
+		try {
+			executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stops without handing over what has been collected, interrupting a handler that is
+	 * running. Returns the items that were never handed over.
+	 */
+	public List<T> shutdownNow() {
+
+		executor.shutdownNow();
+
+		synchronized (pending) {
+			List<T> left = new ArrayList<T>(pending);
+			pending.clear();
+			return left;
+		}
+	}
+}
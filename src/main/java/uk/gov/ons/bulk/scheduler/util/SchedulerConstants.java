@@ -4,4 +4,10 @@ public final class SchedulerConstants {
 
 	public static final String SCHEDULER_GROUP = "bulk-query-jobs";
 	public static final String TRIGGER_GROUP = "bulk-query-triggers";
+	public static final String JOB_NAME = "job_results";
+	public static final String JOB_NAME_IDS = "job_results_ids";
+	public static final String DATA_SET = "bulk_status";
+	public static final String IDS_DATA_SET = "ids_results";
+	public static final String TABLE_ID = "results_";
+	public static final String IDS_TABLE_ID = "ids_results_";
 }
@@ -0,0 +1,124 @@
+package uk.gov.ons.bulk.scheduler.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel. The first wheel has wheelSize buckets of tickMillis each,
+ * every further wheel has wheelSize buckets each as wide as the whole wheel below it and
+ * is only created when an item is added that far ahead. Adding an item and advancing one
+ * tick are constant time however many items are waiting; an item moves down a wheel at
+ * most once per level as its deadline approaches.
+ * 
+ * Items are returned by advance once its time has passed the end of the tick holding
+ * their deadline, so they are never early and at most one tick late. Not thread safe.
+ */
+public class TimingWheel<T> {
+
+	private final long tickMillis;
+	private final int wheelSize;
+	private final long interval;
+	private final List<Entry<T>>[] buckets;
+	private final List<T> due;
+	private long currentTime;
+	private TimingWheel<T> overflow;
+	private int size;
+
+	public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+		this(tickMillis, wheelSize, startMillis, new ArrayList<T>());
+	}
+
+	@SuppressWarnings("unchecked")
+	private TimingWheel(long tickMillis, int wheelSize, long startMillis, List<T> due) {
+		this.tickMillis = tickMillis;
+		this.wheelSize = wheelSize;
+		this.interval = tickMillis * wheelSize;
+		this.buckets = new List[wheelSize];
+		this.due = due;
+		this.currentTime = startMillis - (startMillis % tickMillis);
+
+		for (int i = 0; i < wheelSize; i++) {
+			buckets[i] = new ArrayList<Entry<T>>();
+		}
+	}
+
+	public void add(T item, long deadlineMillis) {
+		place(new Entry<T>(item, deadlineMillis));
+		size++;
+	}
+
+	/**
+	 * Moves the wheel on to nowMillis and returns every item whose deadline has passed.
+	 */
+	public List<T> advance(long nowMillis) {
+
+		List<T> expired = new ArrayList<T>(due);
+		due.clear();
+
+		while (nowMillis >= currentTime + tickMillis) {
+			int index = index(currentTime);
+			buckets[index].forEach(entry -> expired.add(entry.item()));
+			buckets[index] = new ArrayList<Entry<T>>();
+
+			currentTime += tickMillis;
+
+			if (overflow != null) {
+				overflow.advanceTo(currentTime, this::place);
+			}
+		}
+
+		size -= expired.size();
+		return expired;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long getCurrentTime() {
+		return currentTime;
+	}
+
+	private void place(Entry<T> entry) {
+
+		if (entry.deadline() < currentTime) {
+			due.add(entry.item());
+		} else if (entry.deadline() < currentTime + interval) {
+			buckets[index(entry.deadline())].add(entry);
+		} else {
+			if (overflow == null) {
+				overflow = new TimingWheel<T>(interval, wheelSize, currentTime, due);
+			}
+
+			overflow.place(entry);
+		}
+	}
+
+	/**
+	 * Called by the wheel below whenever it moves on a tick. Once the lower wheel reaches
+	 * the start of one of this wheel's buckets the items in it are handed back down.
+	 */
+	private void advanceTo(long time, Consumer<Entry<T>> lower) {
+
+		while (time >= currentTime + tickMillis) {
+			currentTime += tickMillis;
+
+			if (overflow != null) {
+				overflow.advanceTo(currentTime, this::place);
+			}
+
+			int index = index(currentTime);
+			List<Entry<T>> bucket = buckets[index];
+			buckets[index] = new ArrayList<Entry<T>>();
+			bucket.forEach(lower);
+		}
+	}
+
+	private int index(long time) {
+		return (int) ((time / tickMillis) % wheelSize);
+	}
+
+	private record Entry<T>(T item, long deadline) {
+	}
+}
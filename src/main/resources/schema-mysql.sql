@@ -10,6 +10,9 @@
 -- DROP TABLE IF EXISTS QRTZ_TRIGGERS;
 -- DROP TABLE IF EXISTS QRTZ_JOB_DETAILS;
 -- DROP TABLE IF EXISTS QRTZ_CALENDARS;
+-- DROP TABLE IF EXISTS BULK_EXPORT_OUTBOX;
+-- DROP TABLE IF EXISTS BULK_POLL_JOBS;
+-- DROP TABLE IF EXISTS BULK_SCHEDULER_REPLICAS;
 
 CREATE TABLE QRTZ_JOB_DETAILS(
 	SCHED_NAME VARCHAR(120) NOT NULL,
@@ -155,4 +158,37 @@ CREATE INDEX IDX_QRTZ_FT_INST_JOB_REQ_RCVRY ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,IN
 CREATE INDEX IDX_QRTZ_FT_J_G ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,JOB_NAME,JOB_GROUP);
 CREATE INDEX IDX_QRTZ_FT_JG ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,JOB_GROUP);
 CREATE INDEX IDX_QRTZ_FT_T_G ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP);
-CREATE INDEX IDX_QRTZ_FT_TG ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,TRIGGER_GROUP);
\ No newline at end of file
+CREATE INDEX IDX_QRTZ_FT_TG ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,TRIGGER_GROUP);
+
+-- Exportable messages waiting to be published to the export topic.
+-- A row is inserted in the same transaction that deletes the job from QRTZ_JOB_DETAILS.
+CREATE TABLE BULK_EXPORT_OUTBOX (
+	ID BIGINT NOT NULL AUTO_INCREMENT,
+	JOB_NAME VARCHAR(190) NOT NULL,
+	PAYLOAD VARCHAR(1000) NOT NULL,
+	CREATED_TIME BIGINT(13) NOT NULL,
+	ATTEMPTS INTEGER NOT NULL,
+	NEXT_ATTEMPT_TIME BIGINT(13) NOT NULL,
+	PRIMARY KEY (ID));
+
+CREATE INDEX IDX_BULK_OUTBOX_NEXT_ATTEMPT ON BULK_EXPORT_OUTBOX(NEXT_ATTEMPT_TIME);
+
+-- Jobs polled by the timing wheel engine (aims.scheduler.engine=wheel) instead of Quartz.
+CREATE TABLE BULK_POLL_JOBS (
+	JOB_NAME VARCHAR(190) NOT NULL,
+	JOB_ID VARCHAR(190) NOT NULL,
+	IDS_JOB_ID VARCHAR(190) NOT NULL,
+	EXPECTED_ROWS INTEGER NOT NULL,
+	NEXT_CHECK BIGINT(13) NOT NULL,
+	PARTITION_ID INTEGER NOT NULL,
+	RECEIVED_AT BIGINT(13) NULL,
+	CHECKS INTEGER DEFAULT 0 NOT NULL,
+	PRIMARY KEY (JOB_NAME));
+
+CREATE INDEX IDX_BULK_POLL_JOBS_PARTITION ON BULK_POLL_JOBS(PARTITION_ID, RECEIVED_AT);
+
+-- Heartbeats of the replicas sharing BULK_POLL_JOBS (aims.scheduler.sharding.enabled=true).
+CREATE TABLE BULK_SCHEDULER_REPLICAS (
+	REPLICA_ID VARCHAR(190) NOT NULL,
+	HEARTBEAT BIGINT(13) NOT NULL,
+	PRIMARY KEY (REPLICA_ID));
\ No newline at end of file
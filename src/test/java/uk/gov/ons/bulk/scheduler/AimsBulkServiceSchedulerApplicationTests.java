@@ -6,6 +6,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import uk.gov.ons.bulk.scheduler.service.JobService;
+import uk.gov.ons.bulk.scheduler.service.QuartzJobRepository;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -17,6 +18,9 @@ class AimsBulkServiceSchedulerApplicationTests {
     @MockitoBean
     private Scheduler scheduler;
 
+    @MockitoBean
+    private QuartzJobRepository jobRepository;
+
 	@Test
 	void contextLoads() {
 	}
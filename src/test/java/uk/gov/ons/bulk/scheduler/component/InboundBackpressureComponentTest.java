@@ -0,0 +1,98 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import com.google.cloud.spring.pubsub.integration.inbound.PubSubInboundChannelAdapter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.SchedulerException;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.service.PendingJobStore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InboundBackpressureComponentTest {
+
+    @InjectMocks
+    private InboundBackpressureComponent inboundBackpressureComponent;
+
+    @Mock
+    private PendingJobStore pendingJobStore;
+
+    @Mock
+    private PubSubInboundChannelAdapter messageChannelAdapter;
+
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(inboundBackpressureComponent, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(inboundBackpressureComponent, "pauseAbove", 10);
+        ReflectionTestUtils.setField(inboundBackpressureComponent, "resumeBelow", 5);
+        inboundBackpressureComponent.registerMetrics();
+        when(messageChannelAdapter.isRunning()).thenReturn(true);
+    }
+
+    @Test
+    void testCheck_WhenPendingJobsAboveThreshold_ShouldPauseAdapter() throws Exception {
+        when(pendingJobStore.countJobs()).thenReturn(11);
+
+        inboundBackpressureComponent.check();
+
+        verify(messageChannelAdapter, times(1)).stop();
+        assertTrue(inboundBackpressureComponent.isPaused());
+        assertEquals(11, meterRegistry.get("bulk.scheduler.pending.jobs").gauge().value());
+        assertEquals(1, meterRegistry.get("bulk.scheduler.inbound.paused").gauge().value());
+    }
+
+    @Test
+    void testCheck_WhenPausedAndBetweenThresholds_ShouldStayPaused() throws Exception {
+        when(pendingJobStore.countJobs()).thenReturn(11).thenReturn(7);
+
+        inboundBackpressureComponent.check();
+        inboundBackpressureComponent.check();
+
+        verify(messageChannelAdapter, times(1)).stop();
+        verify(messageChannelAdapter, never()).start();
+        assertTrue(inboundBackpressureComponent.isPaused());
+    }
+
+    @Test
+    void testCheck_WhenPausedAndDrained_ShouldResumeAdapter() throws Exception {
+        when(pendingJobStore.countJobs()).thenReturn(11).thenReturn(4);
+
+        inboundBackpressureComponent.check();
+        inboundBackpressureComponent.check();
+
+        verify(messageChannelAdapter, times(1)).start();
+        assertFalse(inboundBackpressureComponent.isPaused());
+    }
+
+    @Test
+    void testCheck_WhenAdapterNotStarted_ShouldNeverStartIt() throws Exception {
+        when(messageChannelAdapter.isRunning()).thenReturn(false);
+        when(pendingJobStore.countJobs()).thenReturn(11).thenReturn(4);
+
+        inboundBackpressureComponent.check();
+        inboundBackpressureComponent.check();
+
+        verify(messageChannelAdapter, never()).stop();
+        verify(messageChannelAdapter, never()).start();
+        assertFalse(inboundBackpressureComponent.isPaused());
+    }
+
+    @Test
+    void testCheck_WhenSchedulerFails_ShouldLeaveAdapterRunning() throws Exception {
+        when(pendingJobStore.countJobs()).thenThrow(new SchedulerException("store unavailable"));
+
+        inboundBackpressureComponent.check();
+
+        verify(messageChannelAdapter, never()).stop();
+        assertFalse(inboundBackpressureComponent.isPaused());
+    }
+}
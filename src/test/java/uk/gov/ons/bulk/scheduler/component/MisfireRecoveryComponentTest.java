@@ -0,0 +1,136 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.util.SchedulerConstants;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MisfireRecoveryComponentTest {
+
+    @InjectMocks
+    private MisfireRecoveryComponent misfireRecoveryComponent;
+
+    @Mock
+    private Scheduler scheduler;
+
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        SchedulerComponent schedulerComponent = new SchedulerComponent();
+        ReflectionTestUtils.setField(schedulerComponent, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(schedulerComponent, "frequencyInMinutes", 5);
+        ReflectionTestUtils.setField(misfireRecoveryComponent, "schedulerComponent", schedulerComponent);
+        ReflectionTestUtils.setField(misfireRecoveryComponent, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(misfireRecoveryComponent, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(misfireRecoveryComponent, "recoveryEnabled", true);
+        ReflectionTestUtils.setField(misfireRecoveryComponent, "thresholdSeconds", 60L);
+        ReflectionTestUtils.setField(misfireRecoveryComponent, "ratePerSecond", 1.0);
+        ReflectionTestUtils.setField(misfireRecoveryComponent, "burst", 1);
+        ReflectionTestUtils.setField(misfireRecoveryComponent, "priority", "oldest");
+        misfireRecoveryComponent.registerMetrics();
+    }
+
+    @Test
+    void testRecoverAndStart_ShouldReleaseOverdueJobsOldestFirstThenStartScheduler() throws Exception {
+        long now = System.currentTimeMillis();
+        Trigger recent = overdueTrigger("job_results_1", now - 10 * 60000, 10);
+        Trigger oldest = overdueTrigger("job_results_2", now - 60 * 60000, 1000);
+        Trigger older = overdueTrigger("job_results_3", now - 30 * 60000, 100);
+        Trigger onTime = overdueTrigger("job_results_4", now + 60000, 1);
+        Set<TriggerKey> triggerKeys = keys(recent, oldest, older, onTime);
+        when(scheduler.getTriggerKeys(any())).thenReturn(triggerKeys);
+
+        misfireRecoveryComponent.recoverAndStart();
+
+        ArgumentCaptor<Trigger> rescheduled = ArgumentCaptor.forClass(Trigger.class);
+        InOrder inOrder = inOrder(scheduler);
+        inOrder.verify(scheduler).rescheduleJob(eq(oldest.getKey()), rescheduled.capture());
+        inOrder.verify(scheduler).rescheduleJob(eq(older.getKey()), rescheduled.capture());
+        inOrder.verify(scheduler).rescheduleJob(eq(recent.getKey()), rescheduled.capture());
+        inOrder.verify(scheduler).start();
+        verify(scheduler, never()).rescheduleJob(eq(onTime.getKey()), any(Trigger.class));
+
+        List<Trigger> triggers = rescheduled.getAllValues();
+        assertTrue(triggers.get(0).getStartTime().getTime() <= System.currentTimeMillis());
+        assertTrue(triggers.get(1).getStartTime().getTime() >= now + 1000);
+        assertTrue(triggers.get(2).getStartTime().getTime() >= now + 2000);
+
+        assertEquals(2.0, meterRegistry.get("bulk.scheduler.misfire.backlog").gauge().value());
+    }
+
+    @Test
+    void testRecoverAndStart_WithSmallestPriority_ShouldReleaseSmallestJobsFirst() throws Exception {
+        ReflectionTestUtils.setField(misfireRecoveryComponent, "priority", "smallest");
+
+        long now = System.currentTimeMillis();
+        Trigger large = overdueTrigger("job_results_1", now - 60 * 60000, 1000);
+        Trigger small = overdueTrigger("job_results_2", now - 10 * 60000, 10);
+        Set<TriggerKey> triggerKeys = keys(large, small);
+        when(scheduler.getTriggerKeys(any())).thenReturn(triggerKeys);
+
+        misfireRecoveryComponent.recoverAndStart();
+
+        InOrder inOrder = inOrder(scheduler);
+        inOrder.verify(scheduler).rescheduleJob(eq(small.getKey()), any(Trigger.class));
+        inOrder.verify(scheduler).rescheduleJob(eq(large.getKey()), any(Trigger.class));
+        inOrder.verify(scheduler).start();
+    }
+
+    @Test
+    void testRecoverAndStart_WhenRecoveryFails_ShouldStillStartScheduler() throws Exception {
+        when(scheduler.getTriggerKeys(any())).thenThrow(new SchedulerException("store unavailable"));
+
+        misfireRecoveryComponent.recoverAndStart();
+
+        verify(scheduler, times(1)).start();
+    }
+
+    private Trigger overdueTrigger(String name, long nextFireTime, int expectedRows) throws SchedulerException {
+        JobKey jobKey = new JobKey(name, SchedulerConstants.SCHEDULER_GROUP);
+        TriggerKey triggerKey = new TriggerKey(name, SchedulerConstants.TRIGGER_GROUP);
+
+        Trigger trigger = mock(Trigger.class);
+        when(trigger.getKey()).thenReturn(triggerKey);
+        when(trigger.getJobKey()).thenReturn(jobKey);
+        when(trigger.getNextFireTime()).thenReturn(new Date(nextFireTime));
+        when(trigger.getJobDataMap()).thenReturn(new JobDataMap());
+        when(scheduler.getTrigger(triggerKey)).thenReturn(trigger);
+
+        JobDataMap jobDataMap = new JobDataMap();
+        jobDataMap.put("expectedRows", expectedRows);
+        JobDetail jobDetail = mock(JobDetail.class);
+        when(jobDetail.getJobDataMap()).thenReturn(jobDataMap);
+        when(scheduler.getJobDetail(jobKey)).thenReturn(jobDetail);
+
+        return trigger;
+    }
+
+    private Set<TriggerKey> keys(Trigger... triggers) {
+        Set<TriggerKey> keys = new LinkedHashSet<>();
+        for (Trigger trigger : triggers) {
+            keys.add(trigger.getKey());
+        }
+        return keys;
+    }
+}
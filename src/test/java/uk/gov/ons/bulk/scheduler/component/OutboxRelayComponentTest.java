@@ -0,0 +1,117 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.OutboxEntry;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayComponentTest {
+
+    @InjectMocks
+    private OutboxRelayComponent outboxRelayComponent;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PubSubTemplate pubSubTemplate;
+
+    private final OutboxEntry first = new OutboxEntry(1L, "job_results_1", "{\"jobId\":\"1\",\"idsJobId\":\"\"}", 0, 1000L);
+    private final OutboxEntry second = new OutboxEntry(2L, "job_results_2", "{\"jobId\":\"2\",\"idsJobId\":\"\"}", 2, 1000L);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(outboxRelayComponent, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(outboxRelayComponent, "pubsubExportTopic", "export-topic");
+        ReflectionTestUtils.setField(outboxRelayComponent, "batchSize", 100);
+        ReflectionTestUtils.setField(outboxRelayComponent, "publishTimeoutSeconds", 5L);
+        ReflectionTestUtils.setField(outboxRelayComponent, "initialBackoffMillis", 1000L);
+        ReflectionTestUtils.setField(outboxRelayComponent, "maxBackoffMillis", 60000L);
+        ReflectionTestUtils.setField(outboxRelayComponent, "maxAttempts", 5);
+
+        List<OutboxEntry> due = List.of(first, second);
+        when(jdbcTemplate.query(startsWith("SELECT"), any(RowMapper.class), anyLong(), eq(100))).thenReturn(due);
+    }
+
+    @Test
+    void testRelay_ShouldDeleteConfirmedRowsAndBackOffFailedRows() {
+        when(jdbcTemplate.update(startsWith("UPDATE BULK_EXPORT_OUTBOX SET NEXT_ATTEMPT_TIME"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        CompletableFuture<String> published = CompletableFuture.completedFuture("message-1");
+        CompletableFuture<String> failed = CompletableFuture.failedFuture(new RuntimeException("unavailable"));
+        when(pubSubTemplate.publish("export-topic", first.getPayload())).thenReturn(published);
+        when(pubSubTemplate.publish("export-topic", second.getPayload())).thenReturn(failed);
+
+        outboxRelayComponent.relay();
+
+        verify(jdbcTemplate, times(1)).update(startsWith("DELETE"), eq(1L));
+        verify(jdbcTemplate, never()).update(startsWith("DELETE"), eq(2L));
+        verify(jdbcTemplate, times(1)).update(startsWith("UPDATE BULK_EXPORT_OUTBOX SET ATTEMPTS"), anyLong(), eq(2L));
+    }
+
+    @Test
+    void testRelay_WhenRowClaimedElsewhere_ShouldNotPublishIt() {
+        when(jdbcTemplate.update(startsWith("UPDATE BULK_EXPORT_OUTBOX SET NEXT_ATTEMPT_TIME"), anyLong(), eq(1L), anyLong())).thenReturn(1);
+        when(jdbcTemplate.update(startsWith("UPDATE BULK_EXPORT_OUTBOX SET NEXT_ATTEMPT_TIME"), anyLong(), eq(2L), anyLong())).thenReturn(0);
+        CompletableFuture<String> published = CompletableFuture.completedFuture("message-1");
+        when(pubSubTemplate.publish("export-topic", first.getPayload())).thenReturn(published);
+
+        outboxRelayComponent.relay();
+
+        verify(pubSubTemplate, times(1)).publish(anyString(), anyString());
+        verify(jdbcTemplate, times(1)).update(startsWith("DELETE"), eq(1L));
+    }
+
+    @Test
+    void testRelay_WhenPublishNotConfirmed_ShouldWaitOnceForBatchAndBackOff() {
+        ReflectionTestUtils.setField(outboxRelayComponent, "publishTimeoutSeconds", 1L);
+        when(jdbcTemplate.update(startsWith("UPDATE BULK_EXPORT_OUTBOX SET NEXT_ATTEMPT_TIME"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(pubSubTemplate.publish("export-topic", first.getPayload())).thenReturn(new CompletableFuture<String>());
+        when(pubSubTemplate.publish("export-topic", second.getPayload())).thenReturn(new CompletableFuture<String>());
+
+        long started = System.currentTimeMillis();
+        outboxRelayComponent.relay();
+
+        assertTrue(System.currentTimeMillis() - started < 2000);
+        verify(jdbcTemplate, never()).update(startsWith("DELETE"), anyLong());
+        verify(jdbcTemplate, times(1)).update(startsWith("UPDATE BULK_EXPORT_OUTBOX SET ATTEMPTS"), anyLong(), eq(1L));
+        verify(jdbcTemplate, times(1)).update(startsWith("UPDATE BULK_EXPORT_OUTBOX SET ATTEMPTS"), anyLong(), eq(2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRelay_WhenMaxAttemptsReached_ShouldParkRow() {
+        OutboxEntry failing = new OutboxEntry(3L, "job_results_3", "{\"jobId\":\"3\",\"idsJobId\":\"\"}", 4, 1000L);
+        when(jdbcTemplate.query(startsWith("SELECT"), any(RowMapper.class), anyLong(), eq(100))).thenReturn(List.of(failing));
+        when(jdbcTemplate.update(startsWith("UPDATE BULK_EXPORT_OUTBOX SET NEXT_ATTEMPT_TIME"), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(pubSubTemplate.publish("export-topic", failing.getPayload()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("unavailable")));
+
+        outboxRelayComponent.relay();
+
+        verify(jdbcTemplate, times(1)).update(startsWith("UPDATE BULK_EXPORT_OUTBOX SET ATTEMPTS"), eq(Long.MAX_VALUE), eq(3L));
+        verify(jdbcTemplate, never()).update(startsWith("DELETE"), anyLong());
+    }
+
+    @Test
+    void testBackoff_ShouldDoubleUpToMaximum() {
+        assertEquals(1000, outboxRelayComponent.backoffMillis(1));
+        assertEquals(4000, outboxRelayComponent.backoffMillis(3));
+        assertEquals(60000, outboxRelayComponent.backoffMillis(10));
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import uk.gov.ons.bulk.scheduler.entities.Message;
 import uk.gov.ons.bulk.scheduler.service.JobService;
+import uk.gov.ons.bulk.scheduler.service.QuartzJobRepository;
 
 import java.io.File;
 import java.nio.file.Files;
@@ -40,6 +41,9 @@ class PubSubComponentTest {
     @MockitoBean
     private Scheduler scheduler;
 
+    @MockitoBean
+    private QuartzJobRepository jobRepository;
+
 	@Test
 	public void testPubSubProcessingFinished() throws Exception {
 
@@ -2,14 +2,23 @@ package uk.gov.ons.bulk.scheduler.component;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
+import org.quartz.JobKey;
 import org.quartz.Trigger;
+import org.quartz.impl.triggers.SimpleTriggerImpl;
 import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.service.AdaptivePollPolicy;
 import uk.gov.ons.bulk.scheduler.util.SchedulerConstants;
 
 class SchedulerComponentTest {
@@ -19,6 +28,7 @@ class SchedulerComponentTest {
     @BeforeEach
     void setUp() {
         schedulerComponent = new SchedulerComponent();
+        ReflectionTestUtils.setField(schedulerComponent, "clock", Clock.systemDefaultZone());
         ReflectionTestUtils.setField(schedulerComponent, "frequencyInMinutes", 10);
     }
 
@@ -53,4 +63,101 @@ class SchedulerComponentTest {
         Date now = Date.from(ZonedDateTime.now().toInstant());
         assertTrue(trigger.getStartTime().after(now) || trigger.getStartTime().equals(now));
     }
+
+    @Test
+    void testCreateTrigger_ShouldTakeTimeFromClock() {
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        ReflectionTestUtils.setField(schedulerComponent, "clock", Clock.fixed(now, ZoneOffset.UTC));
+
+        JobDetail jobDetail = schedulerComponent.createJobDetail("testJob", "jobId", "idsJobId", 1);
+        Trigger trigger = schedulerComponent.createTrigger(jobDetail);
+
+        assertEquals(now.toEpochMilli(), jobDetail.getJobDataMap().getLong("receivedAt"));
+        assertFalse(jobDetail.getJobDataMap().containsKey("checks"));
+        assertEquals(0, trigger.getJobDataMap().getInt("checks"));
+        assertEquals(Date.from(now.plusSeconds(600)), trigger.getStartTime());
+    }
+
+    @Test
+    void testGetChecks_ShouldAddFiresToTheTriggersCount() {
+        JobKey jobKey = new JobKey("testJob", SchedulerConstants.SCHEDULER_GROUP);
+        SimpleTriggerImpl trigger = (SimpleTriggerImpl) schedulerComponent.createTrigger(jobKey, new Date(), 3);
+
+        assertEquals(3, schedulerComponent.getChecks(trigger.getJobDataMap(), trigger));
+
+        trigger.triggered(null);
+        trigger.triggered(null);
+
+        assertEquals(5, schedulerComponent.getChecks(trigger.getJobDataMap(), trigger));
+    }
+
+    @Test
+    void testGetChecks_WhenTriggerHasNoCount_ShouldUseTheJobs() {
+        JobKey jobKey = new JobKey("testJob", SchedulerConstants.SCHEDULER_GROUP);
+        SimpleTriggerImpl trigger = (SimpleTriggerImpl) schedulerComponent.createTrigger(jobKey, new Date(), 0);
+        trigger.getJobDataMap().remove("checks");
+        trigger.triggered(null);
+        JobDataMap jobDataMap = new JobDataMap();
+        jobDataMap.put("checks", 7);
+
+        assertEquals(8, schedulerComponent.getChecks(jobDataMap, trigger));
+    }
+
+    @Test
+    void testCreateTrigger_WhenAdaptive_ShouldStartSmallJobsSooner() {
+        AdaptivePollPolicy adaptivePollPolicy = new AdaptivePollPolicy();
+        ReflectionTestUtils.setField(adaptivePollPolicy, "minSeconds", 30L);
+        ReflectionTestUtils.setField(adaptivePollPolicy, "maxSeconds", 1800L);
+        ReflectionTestUtils.setField(adaptivePollPolicy, "initialRowsPerSecond", 1000.0);
+        ReflectionTestUtils.setField(schedulerComponent, "adaptivePollPolicy", adaptivePollPolicy);
+        ReflectionTestUtils.setField(schedulerComponent, "adaptiveEnabled", true);
+
+        JobDetail jobDetail = schedulerComponent.createJobDetail("testJob", "jobId", "idsJobId", 50);
+        Trigger trigger = schedulerComponent.createTrigger(jobDetail);
+
+        Date latest = Date.from(ZonedDateTime.now().plusSeconds(31).toInstant());
+        assertTrue(trigger.getStartTime().before(latest));
+    }
+
+    @Test
+    void testPhaseAligned_ShouldSpreadSequentialJobsAcrossInterval() {
+        Date earliest = new Date();
+        long intervalMillis = 10 * 60 * 1000L;
+        Set<Long> minutes = new HashSet<>();
+
+        for (int jobId = 1; jobId <= 100; jobId++) {
+            Date startAt = schedulerComponent.phaseAligned(new JobKey("job_results_" + jobId, SchedulerConstants.SCHEDULER_GROUP), earliest);
+
+            assertFalse(startAt.before(earliest));
+            assertTrue(startAt.getTime() - earliest.getTime() < intervalMillis);
+            minutes.add((startAt.getTime() - earliest.getTime()) / 60000);
+        }
+
+        // 100 jobs created in the same instant should land in every minute of the interval
+        assertEquals(10, minutes.size());
+    }
+
+    @Test
+    void testPhaseAligned_ShouldKeepSamePhaseForJob() {
+        JobKey jobKey = new JobKey("job_results_42", SchedulerConstants.SCHEDULER_GROUP);
+        long intervalMillis = 10 * 60 * 1000L;
+
+        Date first = schedulerComponent.phaseAligned(jobKey, new Date());
+        Date second = schedulerComponent.phaseAligned(jobKey, new Date(first.getTime() + 1));
+
+        assertEquals(intervalMillis, second.getTime() - first.getTime());
+    }
+
+    @Test
+    void testCreateTrigger_WithJitter_ShouldStayWithinBound() {
+        ReflectionTestUtils.setField(schedulerComponent, "maxJitterSeconds", 30L);
+
+        JobDetail jobDetail = schedulerComponent.createJobDetail("testJob", "jobId", "idsJobId", 1);
+        Date earliest = Date.from(ZonedDateTime.now().plusMinutes(10).toInstant());
+        Trigger trigger = schedulerComponent.createTrigger(jobDetail);
+        Date latest = Date.from(ZonedDateTime.now().plusMinutes(10).plusSeconds(31).toInstant());
+
+        assertFalse(trigger.getStartTime().before(earliest));
+        assertTrue(trigger.getStartTime().before(latest));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobListener;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerMetaData;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.DueTriggers;
+import uk.gov.ons.bulk.scheduler.service.PipelineMetrics;
+import uk.gov.ons.bulk.scheduler.service.QuartzJobRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SchedulerLagComponentTest {
+
+    @InjectMocks
+    private SchedulerLagComponent schedulerLagComponent;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @Mock
+    private QuartzJobRepository jobRepository;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
+
+    @Mock
+    private SchedulerMetaData metaData;
+
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(schedulerLagComponent, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(schedulerLagComponent, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(schedulerLagComponent, "degradedFireLagSeconds", 60L);
+        ReflectionTestUtils.setField(schedulerLagComponent, "degradedDueTriggers", 10);
+        ReflectionTestUtils.setField(schedulerLagComponent, "degradedUtilisation", 0.9);
+        schedulerLagComponent.registerMetrics();
+
+        when(scheduler.isStarted()).thenReturn(true);
+        when(scheduler.getSchedulerName()).thenReturn("quartzScheduler");
+        when(scheduler.getMetaData()).thenReturn(metaData);
+        when(metaData.getThreadPoolSize()).thenReturn(4);
+        when(jobRepository.findDueTriggers(eq("quartzScheduler"), anyLong())).thenReturn(new DueTriggers(0, null));
+    }
+
+    @Test
+    void testSample_ShouldPublishLagAndUtilisation() {
+        schedulerLagComponent.recordFired(firedContext(5000, "ids_1"));
+        schedulerLagComponent.recordFired(firedContext(2000, null));
+        schedulerLagComponent.jobListener().jobToBeExecuted(null);
+
+        schedulerLagComponent.sample();
+
+        assertTrue(meterRegistry.get("bulk.scheduler.quartz.fire.lag").gauge().value() >= 5);
+        assertEquals(1, meterRegistry.get("bulk.scheduler.quartz.workers.busy").gauge().value());
+        assertEquals(0.25, meterRegistry.get("bulk.scheduler.quartz.workers.utilisation").gauge().value());
+        assertEquals(0, meterRegistry.get("bulk.scheduler.quartz.degraded").gauge().value());
+        verify(pipelineMetrics).recordFireDelay(eq(true), eq("quartz"), any(Duration.class));
+        verify(pipelineMetrics).recordFireDelay(eq(false), eq("quartz"), any(Duration.class));
+    }
+
+    @Test
+    void testSample_ShouldResetFireLagAfterEachSample() {
+        schedulerLagComponent.recordFired(firedContext(5000, null));
+
+        schedulerLagComponent.sample();
+        schedulerLagComponent.sample();
+
+        assertEquals(0, meterRegistry.get("bulk.scheduler.quartz.fire.lag").gauge().value());
+    }
+
+    @Test
+    void testSample_WhenTriggersWaiting_ShouldBeDegraded() {
+        when(jobRepository.findDueTriggers(eq("quartzScheduler"), anyLong()))
+                .thenReturn(new DueTriggers(3, System.currentTimeMillis() - 120000));
+
+        schedulerLagComponent.sample();
+
+        assertEquals(3, meterRegistry.get("bulk.scheduler.quartz.due.triggers").gauge().value());
+        assertTrue(meterRegistry.get("bulk.scheduler.quartz.due.oldest").gauge().value() >= 120);
+        assertTrue(schedulerLagComponent.isDegraded());
+    }
+
+    @Test
+    void testSample_WhenWorkersSaturated_ShouldBeDegraded() {
+        JobListener jobListener = schedulerLagComponent.jobListener();
+        for (int i = 0; i < 4; i++) {
+            jobListener.jobToBeExecuted(null);
+        }
+
+        schedulerLagComponent.sample();
+        assertTrue(schedulerLagComponent.isDegraded());
+
+        jobListener.jobWasExecuted(null, null);
+        jobListener.jobWasExecuted(null, null);
+        schedulerLagComponent.sample();
+
+        assertEquals(2, schedulerLagComponent.getBusyWorkers());
+        assertFalse(schedulerLagComponent.isDegraded());
+    }
+
+    @Test
+    void testSample_WhenInStandby_ShouldNotQuery() throws Exception {
+        when(scheduler.isInStandbyMode()).thenReturn(true);
+
+        schedulerLagComponent.sample();
+
+        verify(jobRepository, never()).findDueTriggers(anyString(), anyLong());
+        assertFalse(schedulerLagComponent.isDegraded());
+    }
+
+    @Test
+    void testSample_WhenQueryFails_ShouldKeepLastSample() {
+        when(jobRepository.findDueTriggers(eq("quartzScheduler"), anyLong()))
+                .thenReturn(new DueTriggers(11, System.currentTimeMillis()))
+                .thenThrow(new QueryTimeoutException("Timed out"));
+
+        schedulerLagComponent.sample();
+        schedulerLagComponent.sample();
+
+        assertEquals(11, schedulerLagComponent.getSample().dueTriggers());
+    }
+
+    @Test
+    void testHealth_ShouldReportDegradedWithDetails() {
+        SchedulerLagHealthIndicator healthIndicator = new SchedulerLagHealthIndicator();
+        ReflectionTestUtils.setField(healthIndicator, "schedulerLagComponent", schedulerLagComponent);
+
+        schedulerLagComponent.sample();
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+
+        when(jobRepository.findDueTriggers(eq("quartzScheduler"), anyLong()))
+                .thenReturn(new DueTriggers(11, System.currentTimeMillis()));
+        schedulerLagComponent.sample();
+        Health health = healthIndicator.health();
+
+        assertEquals(SchedulerLagHealthIndicator.DEGRADED, health.getStatus());
+        assertEquals(11, health.getDetails().get("dueTriggers"));
+    }
+
+    private JobExecutionContext firedContext(long lagMillis, String idsJobId) {
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        JobDataMap jobDataMap = new JobDataMap();
+        jobDataMap.put("idsJobId", idsJobId);
+        when(context.getScheduledFireTime()).thenReturn(new Date(System.currentTimeMillis() - lagMillis));
+        when(context.getMergedJobDataMap()).thenReturn(jobDataMap);
+        return context;
+    }
+}
@@ -0,0 +1,111 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.util.SchedulerConstants;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TriggerRebalanceComponentTest {
+
+    @InjectMocks
+    private TriggerRebalanceComponent triggerRebalanceComponent;
+
+    @Mock
+    private Scheduler scheduler;
+
+    private SchedulerComponent schedulerComponent;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        schedulerComponent = new SchedulerComponent();
+        ReflectionTestUtils.setField(schedulerComponent, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(schedulerComponent, "frequencyInMinutes", 5);
+        ReflectionTestUtils.setField(triggerRebalanceComponent, "schedulerComponent", schedulerComponent);
+        ReflectionTestUtils.setField(triggerRebalanceComponent, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(triggerRebalanceComponent, "frequencyInMinutes", 5);
+        ReflectionTestUtils.setField(triggerRebalanceComponent, "rebalanceOnStartup", true);
+    }
+
+    @Test
+    void testRebalance_ShouldMoveTriggersDueWithinIntervalOntoTheirPhase() throws Exception {
+        TriggerKey due = new TriggerKey("job_results_1", SchedulerConstants.TRIGGER_GROUP);
+        TriggerKey deferred = new TriggerKey("job_results_2", SchedulerConstants.TRIGGER_GROUP);
+        when(scheduler.getTriggerKeys(any())).thenReturn(Set.of(due, deferred));
+
+        JobKey dueJob = new JobKey("job_results_1", SchedulerConstants.SCHEDULER_GROUP);
+        Trigger dueTrigger = mock(Trigger.class);
+        when(dueTrigger.getJobKey()).thenReturn(dueJob);
+        JobDataMap dueData = new JobDataMap();
+        dueData.put("checks", 4);
+        when(dueTrigger.getJobDataMap()).thenReturn(dueData);
+        long aligned = schedulerComponent.phaseAligned(dueJob, new Date()).getTime();
+        long offPhase = aligned - System.currentTimeMillis() > 120000 ? aligned - 60000 : aligned + 60000;
+        when(dueTrigger.getNextFireTime()).thenReturn(new Date(offPhase));
+        when(scheduler.getTrigger(due)).thenReturn(dueTrigger);
+
+        Trigger deferredTrigger = mock(Trigger.class);
+        when(deferredTrigger.getJobKey()).thenReturn(new JobKey("job_results_2", SchedulerConstants.SCHEDULER_GROUP));
+        when(deferredTrigger.getNextFireTime()).thenReturn(new Date(System.currentTimeMillis() + 30 * 60000));
+        when(scheduler.getTrigger(deferred)).thenReturn(deferredTrigger);
+
+        triggerRebalanceComponent.rebalance();
+
+        ArgumentCaptor<Trigger> rescheduled = ArgumentCaptor.forClass(Trigger.class);
+        verify(scheduler, times(1)).rescheduleJob(eq(due), rescheduled.capture());
+        verify(scheduler, never()).rescheduleJob(eq(deferred), any(Trigger.class));
+        // The moved trigger keeps the job's count of checks
+        assertEquals(4, rescheduled.getValue().getJobDataMap().getInt("checks"));
+    }
+
+    @Test
+    void testRebalance_ShouldLeaveOverdueTriggersForMisfireRecovery() throws Exception {
+        TriggerKey overdue = new TriggerKey("job_results_1", SchedulerConstants.TRIGGER_GROUP);
+        when(scheduler.getTriggerKeys(any())).thenReturn(Set.of(overdue));
+
+        Trigger overdueTrigger = mock(Trigger.class);
+        when(overdueTrigger.getJobKey()).thenReturn(new JobKey("job_results_1", SchedulerConstants.SCHEDULER_GROUP));
+        when(overdueTrigger.getNextFireTime()).thenReturn(new Date(System.currentTimeMillis() - 60 * 60000));
+        when(scheduler.getTrigger(overdue)).thenReturn(overdueTrigger);
+
+        triggerRebalanceComponent.rebalance();
+
+        verify(scheduler, never()).rescheduleJob(any(TriggerKey.class), any(Trigger.class));
+    }
+
+    @Test
+    void testRebalance_WhenDisabled_ShouldNotTouchScheduler() throws Exception {
+        ReflectionTestUtils.setField(triggerRebalanceComponent, "rebalanceOnStartup", false);
+
+        triggerRebalanceComponent.rebalance();
+
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    void testRebalance_WhenAdaptive_ShouldNotTouchScheduler() throws Exception {
+        ReflectionTestUtils.setField(triggerRebalanceComponent, "adaptiveEnabled", true);
+
+        triggerRebalanceComponent.rebalance();
+
+        verifyNoInteractions(scheduler);
+    }
+}
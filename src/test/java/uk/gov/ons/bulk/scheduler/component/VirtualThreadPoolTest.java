@@ -0,0 +1,96 @@
+package uk.gov.ons.bulk.scheduler.component;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.SchedulerConfigException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPoolTest {
+
+    private VirtualThreadPool threadPool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        threadPool = new VirtualThreadPool();
+        threadPool.setInstanceName("test");
+        threadPool.setThreadCount(3);
+        threadPool.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        threadPool.shutdown(false);
+    }
+
+    @Test
+    void testRunInThread_ShouldRunOnVirtualThread() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger virtual = new AtomicInteger();
+
+        assertTrue(threadPool.runInThread(() -> {
+            if (Thread.currentThread().isVirtual()) {
+                virtual.incrementAndGet();
+            }
+            done.countDown();
+        }));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, virtual.get());
+    }
+
+    @Test
+    void testBlockForAvailableThreads_ShouldReflectConcurrencyCap() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(3);
+
+        assertEquals(3, threadPool.blockForAvailableThreads());
+
+        for (int i = 0; i < 3; i++) {
+            threadPool.runInThread(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Thread blocked = new Thread(() -> threadPool.blockForAvailableThreads());
+        blocked.start();
+        blocked.join(200);
+        assertTrue(blocked.isAlive());
+
+        release.countDown();
+        blocked.join(5000);
+        assertFalse(blocked.isAlive());
+        assertEquals(3, threadPool.getPoolSize());
+    }
+
+    @Test
+    void testRunInThread_AfterShutdown_ShouldRefuse() {
+        threadPool.shutdown(true);
+
+        assertFalse(threadPool.runInThread(() -> { }));
+    }
+
+    @Test
+    void testInitialize_WithNoThreads_ShouldFail() {
+        VirtualThreadPool invalid = new VirtualThreadPool();
+        invalid.setThreadCount(0);
+
+        assertThrows(SchedulerConfigException.class, invalid::initialize);
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
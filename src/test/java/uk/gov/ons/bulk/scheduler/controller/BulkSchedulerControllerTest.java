@@ -12,22 +12,39 @@ import org.quartz.SchedulerException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
 import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerTrigger;
+import uk.gov.ons.bulk.scheduler.entities.JobEvent;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.entities.JobListing;
+import uk.gov.ons.bulk.scheduler.entities.JobProgressReport;
+import uk.gov.ons.bulk.scheduler.service.JobConsumer;
+import uk.gov.ons.bulk.scheduler.service.JobEventBroadcaster;
 import uk.gov.ons.bulk.scheduler.service.JobService;
+import uk.gov.ons.bulk.scheduler.service.QuartzJobRepository;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -47,6 +64,12 @@ class BulkSchedulerControllerTest {
 
     @MockitoBean
     private Scheduler scheduler;
+
+    @MockitoBean
+    private QuartzJobRepository jobRepository;
+    
+    @Autowired
+    private JobEventBroadcaster jobEventBroadcaster;
     
     private LocalDateTime now;
     private LocalDateTime then;
@@ -79,10 +102,12 @@ class BulkSchedulerControllerTest {
 		
 		List<BulkSchedulerJob> bsjList = List.of(bsj1, bsj2);
 
-		when(jobService.getJobs()).thenReturn(bsjList);
+		streamJobs(new JobFilter(null, null, null, false), bsjList);
 		
 		mockMvc.perform(MockMvcRequestBuilders.get("/jobs")
 				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.LINK))
+				.andExpect(jsonPath("$.next").doesNotExist())
 				.andExpect(jsonPath("$.jobs").isArray()).andExpect(jsonPath("$.jobs", hasSize(2)))
 				.andExpect(jsonPath("$.jobs[0].name", Is.is(bsj1.getName())))
 				.andExpect(jsonPath("$.jobs[0].group", Is.is(bsj1.getGroup())))
@@ -94,10 +119,143 @@ class BulkSchedulerControllerTest {
 				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
 	}
 	
+	@Test
+	public void jobsPageRequest() throws Exception {
+		
+		BulkSchedulerTrigger bst = new BulkSchedulerTrigger("Trigger description", now, then);
+		BulkSchedulerJob bsj1 = new BulkSchedulerJob("job_results_ids_1", "A group", "This is job 1", List.of(bst));
+		BulkSchedulerJob bsj2 = new BulkSchedulerJob("job_results_ids_2", "A group", "This is job 2", List.of(bst));
+		
+		streamJobs(new JobFilter("job_results_ids_0", 2, true, false), List.of(bsj1, bsj2));
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/jobs?after=job_results_ids_0&limit=2&ids=true")
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.jobs", hasSize(2)))
+				.andExpect(jsonPath("$.next", Is.is("job_results_ids_2")))
+				.andExpect(header().string(HttpHeaders.LINK, "<http://localhost/jobs?limit=2&ids=true&after=job_results_ids_2>; rel=\"next\""))
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
+	}
+	
+	@Test
+	public void jobsNdjsonPageRequest() throws Exception {
+		
+		BulkSchedulerTrigger bst = new BulkSchedulerTrigger("Trigger description", now, then);
+		BulkSchedulerJob bsj1 = new BulkSchedulerJob("job_results_1", "A group", "This is job 1", List.of(bst));
+		BulkSchedulerJob bsj2 = new BulkSchedulerJob("job_results_2", "A group", "This is job 2", List.of(bst));
+		
+		streamJobs(new JobFilter(null, 2, null, false), List.of(bsj1, bsj2));
+		
+		String body = mockMvc.perform(MockMvcRequestBuilders.get("/jobs?limit=2")
+				.accept("application/x-ndjson")).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.LINK, "<http://localhost/jobs?limit=2&after=job_results_2>; rel=\"next\""))
+				.andReturn().getResponse().getContentAsString();
+		
+		assertEquals(2, body.split("\n").length);
+	}
+	
+	@Test
+	public void jobsLastPageRequest() throws Exception {
+		
+		BulkSchedulerTrigger bst = new BulkSchedulerTrigger("Trigger description", now, then);
+		BulkSchedulerJob bsj1 = new BulkSchedulerJob("job_results_3", "A group", "This is job 3", List.of(bst));
+		
+		streamJobs(new JobFilter("job_results_2", 2, null, false), List.of(bsj1));
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/jobs?after=job_results_2&limit=2")
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.LINK))
+				.andExpect(jsonPath("$.next").doesNotExist())
+				.andExpect(jsonPath("$.jobs", hasSize(1)));
+	}
+	
+	@Test
+	public void jobsRequestLimitAboveMaxPageSize() throws Exception {
+		
+		BulkSchedulerTrigger bst = new BulkSchedulerTrigger("Trigger description", now, then);
+		BulkSchedulerJob bsj1 = new BulkSchedulerJob("job_results_1", "A group", "This is job 1", List.of(bst));
+		
+		streamJobs(new JobFilter(null, 1000, null, false), List.of(bsj1));
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/jobs?limit=50000")
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.jobs", hasSize(1)));
+	}
+	
+	@Test
+	public void jobsNdjsonRequest() throws Exception {
+		
+		BulkSchedulerTrigger bst = new BulkSchedulerTrigger("Trigger description", now, then);
+		BulkSchedulerJob bsj1 = new BulkSchedulerJob("Job_1", "A group", "This is Job_1", List.of(bst));
+		BulkSchedulerJob bsj2 = new BulkSchedulerJob("Job_2", "A group", "This is Job_2", List.of(bst));
+		
+		streamJobs(new JobFilter(null, null, null, false), List.of(bsj1, bsj2));
+		
+		String body = mockMvc.perform(MockMvcRequestBuilders.get("/jobs")
+				.accept("application/x-ndjson")).andExpect(status().isOk())
+				.andExpect(content().contentType("application/x-ndjson"))
+				.andReturn().getResponse().getContentAsString();
+		
+		String[] lines = body.split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].startsWith("{\"name\":\"Job_1\""));
+		assertTrue(lines[1].startsWith("{\"name\":\"Job_2\""));
+	}
+	
+	@Test
+	public void jobsCachedRequest() throws Exception {
+		
+		BulkSchedulerTrigger bst = new BulkSchedulerTrigger("Trigger description", now, then);
+		BulkSchedulerJob bsj1 = new BulkSchedulerJob("job_results_1", "A group", "This is job 1", List.of(bst));
+		BulkSchedulerJob bsj2 = new BulkSchedulerJob("job_results_ids_2", "A group", "This is job 2", List.of(bst));
+		
+		when(jobService.getJobListingETag()).thenReturn("\"abc-7\"");
+		when(jobService.getJobListing()).thenReturn(new JobListing("\"abc-7\"", List.of(bsj1, bsj2)));
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/jobs?ids=true")
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"abc-7\""))
+				.andExpect(jsonPath("$.jobs", hasSize(1)))
+				.andExpect(jsonPath("$.jobs[0].name", Is.is("job_results_ids_2")));
+		
+		verify(jobService, never()).streamJobs(Mockito.any(), Mockito.any());
+	}
+	
+	@Test
+	public void jobsNotModifiedRequest() throws Exception {
+		
+		when(jobService.getJobListingETag()).thenReturn("\"abc-7\"");
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/jobs")
+				.header(HttpHeaders.IF_NONE_MATCH, "\"abc-7\"")).andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		
+		verify(jobService, never()).getJobListing();
+		verify(jobService, never()).streamJobs(Mockito.any(), Mockito.any());
+	}
+	
+	@Test
+	public void jobsRequestBadLimit() throws Exception {
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/jobs?limit=0")
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errors", hasItem(containsString("limit must be at least 1"))));
+	}
+	
+	@Test
+	public void jobsCountRequest() throws Exception {
+		
+		when(jobService.countJobs(new JobFilter(null, null, null, true))).thenReturn(42);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/jobs/count?overdue=true")
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.count", Is.is(42)))
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
+	}
+	
 	@Test
 	public void jobsRequestException() throws Exception {
 		
-		when(jobService.getJobs()).thenThrow(new SchedulerException("A Scheduler Exception"));
+		doThrow(new SchedulerException("A Scheduler Exception")).when(jobService).streamJobs(Mockito.any(JobFilter.class), Mockito.any());
 		
 		mockMvc.perform(MockMvcRequestBuilders.get("/jobs")
 				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isInternalServerError())
@@ -105,6 +263,19 @@ class BulkSchedulerControllerTest {
 				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
 	}
 
+	private void streamJobs(JobFilter filter, List<BulkSchedulerJob> jobs) throws Exception {
+		
+		doAnswer(invocation -> {
+			JobConsumer consumer = invocation.getArgument(1);
+			
+			for (BulkSchedulerJob job : jobs) {
+				consumer.accept(job);
+			}
+			
+			return null;
+		}).when(jobService).streamJobs(Mockito.eq(filter), Mockito.any());
+	}
+
 	@Test
 	public void deleteJobRequestException() throws Exception {
 		
@@ -130,6 +301,33 @@ class BulkSchedulerControllerTest {
 				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
 	}
 	
+	@Test
+	public void jobProgressRequest() throws Exception {
+		
+		Instant checkedAt = Instant.parse("2026-01-01T12:00:00Z");
+		when(jobService.getProgress("my-job")).thenReturn(new JobProgressReport("my-job", 400L, null, 1000, 40.0, 10.0,
+				checkedAt.minusSeconds(300), checkedAt, 3, checkedAt.plusSeconds(60), checkedAt.plusSeconds(60), false));
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/job/my-job/progress")
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.rowCount", Is.is(400)))
+				.andExpect(jsonPath("$.count").doesNotExist())
+				.andExpect(jsonPath("$.percentComplete", Is.is(40.0)))
+				.andExpect(jsonPath("$.checks", Is.is(3)))
+				.andExpect(jsonPath("$.eta", Is.is("2026-01-01T12:01:00Z")))
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
+	}
+	
+	@Test
+	public void jobProgressRequestNotChecked() throws Exception {
+		
+		when(jobService.getProgress("my-job")).thenReturn(null);
+		
+		mockMvc.perform(MockMvcRequestBuilders.get("/job/my-job/progress")
+				.contentType(MediaType.APPLICATION_JSON)).andExpect(status().isNotFound())
+				.andExpect(jsonPath("error", Is.is("Scheduled Job my-job has not been checked")));
+	}
+	
 	@Test
 	public void deleteJobRequestGoodJobName() throws Exception {
 		
@@ -151,4 +349,27 @@ class BulkSchedulerControllerTest {
 				.andExpect(jsonPath("error", Is.is("Scheduled Job my-job not found on the system")))
 				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
 	}
+	
+	@Test
+	public void jobEventsRequest() throws Exception {
+		
+		MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/jobs/events").param("jobname", "my-job")
+				.accept(MediaType.TEXT_EVENT_STREAM)).andExpect(request().asyncStarted())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, startsWith(MediaType.TEXT_EVENT_STREAM_VALUE)))
+				.andReturn();
+		
+		jobEventBroadcaster.publish(JobEvent.Type.SCHEDULED, "other-job");
+		jobEventBroadcaster.publish(JobEvent.Type.CHECKED, "my-job", 10L, 10L, 10);
+		
+		long deadline = System.currentTimeMillis() + 5000;
+		
+		while (!result.getResponse().getContentAsString().contains("event:checked") && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		
+		String content = result.getResponse().getContentAsString();
+		assertTrue(content.contains("event:checked"));
+		assertTrue(content.contains("\"rowCount\":10"));
+		assertFalse(content.contains("other-job"));
+	}
 }
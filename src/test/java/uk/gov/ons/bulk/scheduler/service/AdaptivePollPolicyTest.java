@@ -0,0 +1,70 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.JobProgress;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptivePollPolicyTest {
+
+    private AdaptivePollPolicy adaptivePollPolicy;
+
+    @BeforeEach
+    void setUp() {
+        adaptivePollPolicy = new AdaptivePollPolicy();
+        ReflectionTestUtils.setField(adaptivePollPolicy, "minSeconds", 30L);
+        ReflectionTestUtils.setField(adaptivePollPolicy, "maxSeconds", 1800L);
+        ReflectionTestUtils.setField(adaptivePollPolicy, "backoffMultiplier", 2.0);
+        ReflectionTestUtils.setField(adaptivePollPolicy, "initialRowsPerSecond", 1000.0);
+    }
+
+    @Test
+    void testInitialDelay_ShouldScaleWithExpectedRowsWithinBounds() {
+        assertEquals(Duration.ofSeconds(30), adaptivePollPolicy.initialDelay(50));
+        assertEquals(Duration.ofSeconds(500), adaptivePollPolicy.initialDelay(500000));
+        assertEquals(Duration.ofSeconds(1800), adaptivePollPolicy.initialDelay(50000000));
+    }
+
+    @Test
+    void testNextDelay_ShouldPredictCompletionFromFlushRate() {
+        Instant now = Instant.now();
+        JobProgress progress = progress(1000L, now.minusSeconds(100), 2000L, now);
+
+        // 10 rows a second with 8000 rows still to come
+        assertEquals(Duration.ofSeconds(800), adaptivePollPolicy.nextDelay(progress, 10000));
+    }
+
+    @Test
+    void testNextDelay_WhenAllRowsLanded_ShouldUseMinimum() {
+        Instant now = Instant.now();
+        JobProgress progress = progress(9000L, now.minusSeconds(100), 10000L, now);
+
+        assertEquals(Duration.ofSeconds(30), adaptivePollPolicy.nextDelay(progress, 10000));
+    }
+
+    @Test
+    void testNextDelay_WhenNotMoving_ShouldBackOff() {
+        Instant now = Instant.now();
+        JobProgress progress = progress(2000L, now.minusSeconds(100), 2000L, now);
+        progress.setLastDelay(Duration.ofSeconds(120));
+
+        assertEquals(Duration.ofSeconds(240), adaptivePollPolicy.nextDelay(progress, 10000));
+
+        progress.setLastDelay(Duration.ofSeconds(1200));
+        assertEquals(Duration.ofSeconds(1800), adaptivePollPolicy.nextDelay(progress, 10000));
+    }
+
+    private JobProgress progress(Long previousRowCount, Instant previousCheckedAt, Long rowCount, Instant checkedAt) {
+        JobProgress progress = new JobProgress();
+        progress.setPreviousRowCount(previousRowCount);
+        progress.setPreviousCheckedAt(previousCheckedAt);
+        progress.setRowCount(rowCount);
+        progress.setCheckedAt(checkedAt);
+        return progress;
+    }
+}
@@ -0,0 +1,164 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import com.google.cloud.bigquery.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.ReadinessResult;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BatchedReadinessStrategyTest {
+
+    @InjectMocks
+    private BatchedReadinessStrategy batchedReadinessStrategy;
+
+    @Mock
+    private BigQuery bigQuery;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(batchedReadinessStrategy, "windowMillis", 60000L);
+        ReflectionTestUtils.setField(batchedReadinessStrategy, "maxBatchSize", 100);
+
+        JobProgressTracker progressTracker = new JobProgressTracker();
+        ReflectionTestUtils.setField(progressTracker, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(progressTracker, "expectedRowsRatio", 1.0);
+        ReflectionTestUtils.setField(progressTracker, "maxTrackedTables", 100);
+        ReflectionTestUtils.setField(batchedReadinessStrategy, "progressTracker", progressTracker);
+
+        BigQueryGateway bigQueryGateway = new BigQueryGateway();
+        ReflectionTestUtils.setField(bigQueryGateway, "bigQuery", bigQuery);
+        ReflectionTestUtils.setField(bigQueryGateway, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(bigQueryGateway, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bigQueryGateway, "timeoutSeconds", 60L);
+        ReflectionTestUtils.setField(bigQueryGateway, "acquireTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(bigQueryGateway, "initialLimit", 20);
+        ReflectionTestUtils.setField(bigQueryGateway, "minLimit", 2);
+        ReflectionTestUtils.setField(bigQueryGateway, "maxLimit", 100);
+        ReflectionTestUtils.setField(bigQueryGateway, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(bigQueryGateway, "latencyThresholdMillis", 10000L);
+        ReflectionTestUtils.setField(bigQueryGateway, "failureThreshold", 5);
+        ReflectionTestUtils.setField(bigQueryGateway, "openSeconds", 120L);
+        bigQueryGateway.init();
+        ReflectionTestUtils.setField(batchedReadinessStrategy, "bigQueryGateway", bigQueryGateway);
+        batchedReadinessStrategy.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchedReadinessStrategy.stop();
+    }
+
+    @Test
+    void testFlush_ResolvesAllPendingChecksWithTwoQueries() throws Exception {
+        TableResult rowCountResult = mock(TableResult.class);
+        when(rowCountResult.iterateAll()).thenReturn(List.of(row("results_1", "row_count", "10"), row("results_2", "row_count", "5")));
+
+        TableResult countResult = mock(TableResult.class);
+        when(countResult.iterateAll()).thenReturn(List.of(row("results_1", "count", "10"), row("results_2", "count", "7")));
+
+        when(bigQuery.query(any(QueryJobConfiguration.class)))
+                .thenReturn(rowCountResult)
+                .thenReturn(countResult);
+
+        CompletableFuture<ReadinessResult> ready = batchedReadinessStrategy.submit("1", false, 0);
+        CompletableFuture<ReadinessResult> notReady = batchedReadinessStrategy.submit("2", false, 0);
+        CompletableFuture<ReadinessResult> missing = batchedReadinessStrategy.submit("3", false, 0);
+
+        batchedReadinessStrategy.flush();
+
+        assertTrue(ready.get().isExportable());
+        assertFalse(notReady.get().isExportable());
+        assertNull(missing.get().getRowCount());
+        assertFalse(missing.get().isExportable());
+
+        ArgumentCaptor<QueryJobConfiguration> queries = ArgumentCaptor.forClass(QueryJobConfiguration.class);
+        verify(bigQuery, times(2)).query(queries.capture());
+        assertTrue(queries.getAllValues().get(0).getQuery().contains("IN UNNEST(@ids)"));
+        assertTrue(queries.getAllValues().get(1).getQuery().contains("UNION ALL"));
+        assertFalse(queries.getAllValues().get(1).getQuery().contains("results_3"));
+    }
+
+    @Test
+    void testFlush_ShouldNotCountTablesBelowExpectedRows() throws Exception {
+        TableResult rowCountResult = mock(TableResult.class);
+        when(rowCountResult.iterateAll()).thenReturn(List.of(row("results_1", "row_count", "10"), row("results_2", "row_count", "5")));
+
+        TableResult countResult = mock(TableResult.class);
+        when(countResult.iterateAll()).thenReturn(List.of(row("results_1", "count", "10")));
+
+        when(bigQuery.query(any(QueryJobConfiguration.class)))
+                .thenReturn(rowCountResult)
+                .thenReturn(countResult);
+
+        CompletableFuture<ReadinessResult> ready = batchedReadinessStrategy.submit("1", false, 10);
+        CompletableFuture<ReadinessResult> incomplete = batchedReadinessStrategy.submit("2", false, 50);
+
+        batchedReadinessStrategy.flush();
+
+        assertTrue(ready.get().isExportable());
+        assertFalse(incomplete.get().isExportable());
+
+        ArgumentCaptor<QueryJobConfiguration> queries = ArgumentCaptor.forClass(QueryJobConfiguration.class);
+        verify(bigQuery, times(2)).query(queries.capture());
+        assertFalse(queries.getAllValues().get(1).getQuery().contains("results_2"));
+    }
+
+    @Test
+    void testFlush_WhenNoTablesExist_ShouldSkipCountQuery() throws Exception {
+        TableResult rowCountResult = mock(TableResult.class);
+        when(rowCountResult.iterateAll()).thenReturn(List.of());
+        when(bigQuery.query(any(QueryJobConfiguration.class))).thenReturn(rowCountResult);
+
+        CompletableFuture<ReadinessResult> missing = batchedReadinessStrategy.submit("3", true, 0);
+
+        batchedReadinessStrategy.flush();
+
+        assertFalse(missing.get().isExportable());
+        verify(bigQuery, times(1)).query(any(QueryJobConfiguration.class));
+    }
+
+    @Test
+    void testFlush_WhenBigQueryFails_ShouldFailEveryCheckInBatch() throws Exception {
+        when(bigQuery.query(any(QueryJobConfiguration.class))).thenThrow(new BigQueryException(500, "backend error"));
+
+        CompletableFuture<ReadinessResult> first = batchedReadinessStrategy.submit("1", false, 0);
+        CompletableFuture<ReadinessResult> second = batchedReadinessStrategy.submit("2", false, 0);
+
+        batchedReadinessStrategy.flush();
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+    }
+
+    @Test
+    void testStop_ShouldFailChecksStillWaitingForBatch() {
+        CompletableFuture<ReadinessResult> pending = batchedReadinessStrategy.submit("1", false, 0);
+
+        batchedReadinessStrategy.stop();
+
+        assertTrue(pending.isCompletedExceptionally());
+        verifyNoInteractions(bigQuery);
+    }
+
+    private FieldValueList row(String tableId, String field, String value) {
+        FieldValueList row = mock(FieldValueList.class);
+        when(row.get("table_id")).thenReturn(FieldValue.of(FieldValue.Attribute.PRIMITIVE, tableId));
+        when(row.get(field)).thenReturn(FieldValue.of(FieldValue.Attribute.PRIMITIVE, value));
+        return row;
+    }
+}
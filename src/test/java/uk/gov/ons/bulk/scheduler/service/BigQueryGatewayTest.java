@@ -0,0 +1,246 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import com.google.cloud.bigquery.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.exception.BigQueryUnavailableException;
+import uk.gov.ons.bulk.scheduler.exception.ReadinessCheckException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BigQueryGatewayTest {
+
+    @InjectMocks
+    private BigQueryGateway bigQueryGateway;
+
+    @Mock
+    private BigQuery bigQuery;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final QueryJobConfiguration queryConfig = QueryJobConfiguration.of("SELECT 1");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(bigQueryGateway, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(bigQueryGateway, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(bigQueryGateway, "initialLimit", 4);
+        ReflectionTestUtils.setField(bigQueryGateway, "minLimit", 1);
+        ReflectionTestUtils.setField(bigQueryGateway, "maxLimit", 10);
+        ReflectionTestUtils.setField(bigQueryGateway, "failureThreshold", 3);
+        ReflectionTestUtils.setField(bigQueryGateway, "timeoutSeconds", 60L);
+        ReflectionTestUtils.setField(bigQueryGateway, "acquireTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(bigQueryGateway, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(bigQueryGateway, "latencyThresholdMillis", 10000L);
+        ReflectionTestUtils.setField(bigQueryGateway, "openSeconds", 120L);
+        bigQueryGateway.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bigQueryGateway.shutdown();
+    }
+
+    @Test
+    void testQuery_WhenSuccessful_ShouldIncreaseLimit() throws Exception {
+        TableResult result = mock(TableResult.class);
+        when(bigQuery.query(queryConfig)).thenReturn(result);
+
+        assertSame(result, bigQueryGateway.query("row_count", false, queryConfig));
+        assertEquals(4.25, bigQueryGateway.getLimit(), 0.001);
+        assertEquals(0, bigQueryGateway.getInFlight());
+        assertEquals(1, meterRegistry.get("bigquery.calls").tag("outcome", "success").tag("query", "row_count")
+                .tag("type", "standard").timer().count());
+    }
+
+    @Test
+    void testQuery_WhenBytesProcessedEnabled_ShouldRecordBytesOfQueryJobInOneCall() throws Exception {
+        ReflectionTestUtils.setField(bigQueryGateway, "bytesProcessedEnabled", true);
+        TableResult result = mock(TableResult.class);
+        JobStatistics.QueryStatistics statistics = mock(JobStatistics.QueryStatistics.class);
+        when(statistics.getTotalBytesProcessed()).thenReturn(10485760L);
+        Job job = mock(Job.class);
+        when(bigQuery.create(any(JobInfo.class))).thenReturn(job);
+        when(job.waitFor()).thenReturn(job);
+        when(job.getStatus()).thenReturn(mock(JobStatus.class));
+        when(job.getStatistics()).thenReturn(statistics);
+        when(job.getQueryResults()).thenReturn(result);
+
+        assertSame(result, bigQueryGateway.query("count", true, queryConfig));
+
+        verify(bigQuery, never()).getJob(any(JobId.class));
+        assertEquals(1, meterRegistry.get("bigquery.calls").tag("query", "count").timer().count());
+        assertEquals(10485760.0, meterRegistry.get("bigquery.bytes.processed").tag("query", "count").tag("type", "ids")
+                .summary().totalAmount());
+    }
+
+    @Test
+    void testQuery_WhenRateLimited_ShouldHalveLimit() throws Exception {
+        when(bigQuery.query(queryConfig)).thenThrow(new BigQueryException(429, "rate limit exceeded"));
+
+        assertThrows(BigQueryUnavailableException.class, () -> bigQueryGateway.query("row_count", false, queryConfig));
+        assertEquals(2.0, bigQueryGateway.getLimit(), 0.001);
+        assertEquals(0, bigQueryGateway.getInFlight());
+    }
+
+    @Test
+    void testQuery_WhenNotFound_ShouldNotCountAsFailure() throws Exception {
+        when(bigQuery.query(queryConfig)).thenThrow(new BigQueryException(404, "not found"));
+
+        for (int i = 0; i < 5; i++) {
+            ReadinessCheckException e = assertThrows(ReadinessCheckException.class, () -> bigQueryGateway.query("row_count", false, queryConfig));
+            assertFalse(e instanceof BigQueryUnavailableException);
+        }
+
+        verify(bigQuery, times(5)).query(queryConfig);
+        assertEquals(4.0, bigQueryGateway.getLimit(), 0.001);
+    }
+
+    @Test
+    void testQuery_AfterRepeatedFailures_ShouldOpenCircuit() throws Exception {
+        when(bigQuery.query(queryConfig)).thenThrow(new BigQueryException(503, "backend error"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(BigQueryUnavailableException.class, () -> bigQueryGateway.query("row_count", false, queryConfig));
+        }
+
+        BigQueryUnavailableException e = assertThrows(BigQueryUnavailableException.class, () -> bigQueryGateway.query("row_count", false, queryConfig));
+        assertTrue(e.getRetryAfter().toSeconds() > 0);
+        verify(bigQuery, times(3)).query(queryConfig);
+        assertEquals(1, meterRegistry.get("bigquery.calls.rejected").tag("reason", "circuit_open").counter().count());
+    }
+
+    @Test
+    void testQuery_ShouldKeepCircuitOpenUntilClockPassesOpenPeriod() throws Exception {
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        ReflectionTestUtils.setField(bigQueryGateway, "clock", Clock.fixed(now, ZoneOffset.UTC));
+        TableResult result = mock(TableResult.class);
+        when(bigQuery.query(queryConfig))
+                .thenThrow(new BigQueryException(503, "backend error"))
+                .thenThrow(new BigQueryException(503, "backend error"))
+                .thenThrow(new BigQueryException(503, "backend error"))
+                .thenReturn(result);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(BigQueryUnavailableException.class, () -> bigQueryGateway.query("row_count", false, queryConfig));
+        }
+
+        ReflectionTestUtils.setField(bigQueryGateway, "clock", Clock.fixed(now.plusSeconds(119), ZoneOffset.UTC));
+        BigQueryUnavailableException e = assertThrows(BigQueryUnavailableException.class, () -> bigQueryGateway.query("row_count", false, queryConfig));
+        assertEquals(1, e.getRetryAfter().toSeconds());
+
+        ReflectionTestUtils.setField(bigQueryGateway, "clock", Clock.fixed(now.plusSeconds(120), ZoneOffset.UTC));
+        assertSame(result, bigQueryGateway.query("row_count", false, queryConfig));
+    }
+
+    @Test
+    void testQuery_WhenOpenPeriodHasPassed_ShouldCloseCircuitAfterTrialCall() throws Exception {
+        ReflectionTestUtils.setField(bigQueryGateway, "openSeconds", 0L);
+        TableResult result = mock(TableResult.class);
+        when(bigQuery.query(queryConfig))
+                .thenThrow(new BigQueryException(503, "backend error"))
+                .thenThrow(new BigQueryException(503, "backend error"))
+                .thenThrow(new BigQueryException(503, "backend error"))
+                .thenReturn(result);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(BigQueryUnavailableException.class, () -> bigQueryGateway.query("row_count", false, queryConfig));
+        }
+
+        assertSame(result, bigQueryGateway.query("row_count", false, queryConfig));
+        assertEquals(BigQueryGateway.CircuitState.CLOSED, bigQueryGateway.getCircuitState());
+    }
+
+    @Test
+    void testQuery_WhenTimedOut_ShouldThrowUnavailable() throws Exception {
+        ReflectionTestUtils.setField(bigQueryGateway, "timeoutSeconds", 1L);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bigQuery.query(queryConfig)).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+
+        assertThrows(BigQueryUnavailableException.class, () -> bigQueryGateway.query("row_count", false, queryConfig));
+        assertEquals(2.0, bigQueryGateway.getLimit(), 0.001);
+        release.countDown();
+    }
+
+    @Test
+    void testQuery_WhenTimedOut_ShouldHoldTheSlotUntilBigQueryAnswers() throws Exception {
+        ReflectionTestUtils.setField(bigQueryGateway, "timeoutSeconds", 1L);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bigQuery.query(queryConfig)).thenAnswer(invocation -> {
+            // Like an HTTP request, not aborted when the call is cancelled
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (release.getCount() > 0 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            return null;
+        });
+
+        assertThrows(BigQueryUnavailableException.class, () -> bigQueryGateway.query("row_count", false, queryConfig));
+        assertEquals(1, bigQueryGateway.getInFlight());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bigQueryGateway.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, bigQueryGateway.getInFlight());
+    }
+
+    @Test
+    void testQuery_ShouldRegisterEachTimerOnce() throws Exception {
+        when(bigQuery.query(queryConfig)).thenReturn(mock(TableResult.class));
+
+        bigQueryGateway.query("row_count", false, queryConfig);
+        bigQueryGateway.query("row_count", false, queryConfig);
+
+        assertEquals(2, meterRegistry.get("bigquery.calls").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("bigquery.calls").timers().size());
+    }
+
+    @Test
+    void testQuery_WhenLimitReached_ShouldReject() throws Exception {
+        ReflectionTestUtils.setField(bigQueryGateway, "limit", 1.0);
+        ReflectionTestUtils.setField(bigQueryGateway, "acquireTimeoutMillis", 50L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bigQuery.query(queryConfig)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                bigQueryGateway.query("row_count", false, queryConfig);
+            } catch (Exception e) {
+                // not under test
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(BigQueryUnavailableException.class, () -> bigQueryGateway.query("row_count", false, queryConfig));
+        assertEquals(1, meterRegistry.get("bigquery.calls.rejected").tag("reason", "limit").counter().count());
+
+        release.countDown();
+        holder.join();
+        assertEquals(0, bigQueryGateway.getInFlight());
+    }
+}
@@ -0,0 +1,181 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.JobEvent;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobEventBroadcasterTest {
+
+    private JobEventBroadcaster broadcaster;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new JobEventBroadcaster();
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(broadcaster, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(broadcaster, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 2);
+        ReflectionTestUtils.setField(broadcaster, "bufferSize", 2);
+        ReflectionTestUtils.setField(broadcaster, "dropPolicy", "oldest");
+        ReflectionTestUtils.setField(broadcaster, "heartbeatSeconds", 60L);
+        ReflectionTestUtils.setField(broadcaster, "timeoutMinutes", 30L);
+        broadcaster.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void testPublish_ShouldDeliverEventsInOrderToMatchingSubscribers() throws Exception {
+        RecordingSink all = new RecordingSink(3);
+        RecordingSink one = new RecordingSink(1);
+        broadcaster.subscribe(null, all);
+        broadcaster.subscribe("job_results_2", one);
+
+        broadcaster.publish(JobEvent.Type.SCHEDULED, "job_results_1");
+        broadcaster.publish(JobEvent.Type.CHECKED, "job_results_2", 10L, null, 100);
+        broadcaster.publish(JobEvent.Type.DELETED, "job_results_1");
+
+        assertTrue(all.received.await(5, TimeUnit.SECONDS));
+        assertTrue(one.received.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(JobEvent.Type.SCHEDULED, JobEvent.Type.CHECKED, JobEvent.Type.DELETED),
+                all.events.stream().map(JobEvent::getType).toList());
+        assertEquals(1, one.events.size());
+        assertEquals(10L, one.events.get(0).getRowCount());
+        assertEquals(100, one.events.get(0).getExpectedRows());
+    }
+
+    @Test
+    void testPublish_WhenBufferFull_ShouldDropOldest() throws Exception {
+        BlockingSink sink = new BlockingSink(3);
+        JobEventBroadcaster.Subscriber subscriber = broadcaster.subscribe(null, sink);
+
+        publishWhileBlocked(sink);
+
+        assertTrue(sink.received.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("job_1", "job_4", "job_5"), sink.events.stream().map(JobEvent::getJobName).toList());
+        assertEquals(2, subscriber.getDropped());
+        assertEquals(2.0, meterRegistry.get("bulk.scheduler.events.dropped").counter().count());
+    }
+
+    @Test
+    void testPublish_WhenBufferFullAndDropNewest_ShouldDropNewEvents() throws Exception {
+        ReflectionTestUtils.setField(broadcaster, "dropPolicy", "newest");
+        BlockingSink sink = new BlockingSink(3);
+        JobEventBroadcaster.Subscriber subscriber = broadcaster.subscribe(null, sink);
+
+        publishWhileBlocked(sink);
+
+        assertTrue(sink.received.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("job_1", "job_2", "job_3"), sink.events.stream().map(JobEvent::getJobName).toList());
+        assertEquals(2, subscriber.getDropped());
+    }
+
+    @Test
+    void testSubscribe_WhenFull_ShouldRefuse() {
+        assertNotNull(broadcaster.subscribe(null, new RecordingSink(0)));
+        assertNotNull(broadcaster.subscribe(null, new RecordingSink(0)));
+        assertNull(broadcaster.subscribe(null, new RecordingSink(0)));
+        assertEquals(2, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testSend_WhenClientGone_ShouldUnsubscribe() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        broadcaster.subscribe(null, new JobEventBroadcaster.EventSink() {
+
+            @Override
+            public void send(JobEvent event) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void heartbeat() {
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        });
+
+        broadcaster.publish(JobEvent.Type.SCHEDULED, "job_results_1");
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    // The drain thread holds job_1 in send while jobs 2 to 5 are offered to a buffer of two
+    private void publishWhileBlocked(BlockingSink sink) throws InterruptedException {
+        broadcaster.publish(JobEvent.Type.SCHEDULED, "job_1");
+        assertTrue(sink.sending.await(5, TimeUnit.SECONDS));
+
+        for (int i = 2; i <= 5; i++) {
+            broadcaster.publish(JobEvent.Type.SCHEDULED, "job_" + i);
+        }
+
+        sink.release.countDown();
+    }
+
+    private static class RecordingSink implements JobEventBroadcaster.EventSink {
+
+        final List<JobEvent> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch received;
+
+        RecordingSink(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(JobEvent event) throws IOException {
+            events.add(event);
+            received.countDown();
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class BlockingSink extends RecordingSink {
+
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingSink(int expected) {
+            super(expected);
+        }
+
+        @Override
+        public void send(JobEvent event) throws IOException {
+            sending.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+
+            super.send(event);
+        }
+    }
+}
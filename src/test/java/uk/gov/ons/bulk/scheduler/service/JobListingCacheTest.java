@@ -0,0 +1,98 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerTrigger;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.entities.JobListing;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JobListingCacheTest {
+
+    @InjectMocks
+    private JobListingCache jobListingCache;
+
+    @Mock
+    private PendingJobStore pendingJobStore;
+
+    private final BulkSchedulerJob job1 = new BulkSchedulerJob("job_results_1", "bulk-query-jobs", "desc", List.of());
+    private final BulkSchedulerJob job2 = new BulkSchedulerJob("job_results_2", "bulk-query-jobs", "desc", List.of());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(jobListingCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jobListingCache, "enabled", true);
+        jobListingCache.init();
+
+        when(pendingJobStore.getJobs(JobFilter.all())).thenReturn(List.of(job1)).thenReturn(List.of(job1, job2));
+    }
+
+    @Test
+    void testGetListing_WhenUnchanged_ShouldNotReadStoreAgain() throws Exception {
+        JobListing first = jobListingCache.getListing();
+        JobListing second = jobListingCache.getListing();
+
+        assertEquals(List.of(job1), second.getJobs());
+        assertEquals(first.getETag(), second.getETag());
+        assertEquals(jobListingCache.getETag(), second.getETag());
+        verify(pendingJobStore, times(1)).getJobs(any());
+    }
+
+    @Test
+    void testGetListing_WhenInvalidated_ShouldReadStoreAndChangeETag() throws Exception {
+        JobListing first = jobListingCache.getListing();
+
+        jobListingCache.invalidate();
+        assertNotEquals(first.getETag(), jobListingCache.getETag());
+
+        JobListing second = jobListingCache.getListing();
+        assertEquals(List.of(job1, job2), second.getJobs());
+        assertEquals(jobListingCache.getETag(), second.getETag());
+        verify(pendingJobStore, times(2)).getJobs(any());
+    }
+
+    @Test
+    void testGetListing_WhenJobsChanged_ShouldApplyChangesWithoutReadingStore() throws Exception {
+        JobListing first = jobListingCache.getListing();
+        BulkSchedulerTrigger trigger = new BulkSchedulerTrigger(null, LocalDateTime.now().plusMinutes(5), LocalDateTime.now());
+        BulkSchedulerJob job0 = new BulkSchedulerJob("job_results_0", "bulk-query-jobs", "desc", List.of());
+
+        jobListingCache.put(job2);
+        jobListingCache.put(job0);
+        jobListingCache.putTrigger("job_results_2", trigger);
+        jobListingCache.remove("job_results_1");
+
+        JobListing second = jobListingCache.getListing();
+        assertNotEquals(first.getETag(), second.getETag());
+        assertEquals(List.of("job_results_0", "job_results_2"), second.getJobs().stream().map(BulkSchedulerJob::getName).toList());
+        assertEquals(List.of(trigger), second.getJobs().get(1).getTriggers());
+        verify(pendingJobStore, times(1)).getJobs(any());
+    }
+
+    @Test
+    void testGetListing_WhenTriggerOfUnknownJob_ShouldReadStoreAgain() throws Exception {
+        jobListingCache.getListing();
+
+        jobListingCache.putTrigger("job_results_2", new BulkSchedulerTrigger(null, LocalDateTime.now(), null));
+
+        assertEquals(List.of(job1, job2), jobListingCache.getListing().getJobs());
+        verify(pendingJobStore, times(2)).getJobs(any());
+    }
+
+    @Test
+    void testGetETag_ShouldBeQuotedForHttp() {
+        assertTrue(jobListingCache.getETag().matches("\"[0-9a-z]+-0\""));
+    }
+}
@@ -0,0 +1,98 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.JobProgress;
+import uk.gov.ons.bulk.scheduler.entities.JobProgressReport;
+import uk.gov.ons.bulk.scheduler.entities.ReadinessResult;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobProgressStoreTest {
+
+    private JobProgressStore jobProgressStore;
+
+    @BeforeEach
+    void setUp() {
+        jobProgressStore = new JobProgressStore();
+        ReflectionTestUtils.setField(jobProgressStore, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(jobProgressStore, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jobProgressStore, "maxEntries", 2);
+        jobProgressStore.init();
+    }
+
+    @Test
+    void testRecord_ShouldEstimateEtaFromFlushRate() {
+        JobProgress progress = progress(200L, 400L, Duration.ofSeconds(20));
+
+        jobProgressStore.record("job_results_1", new ReadinessResult(200L, null), 1000, new JobProgress(), Duration.ofMinutes(1));
+        jobProgressStore.record("job_results_1", new ReadinessResult(400L, null), 1000, progress, Duration.ofMinutes(1));
+
+        JobProgressReport report = jobProgressStore.get("job_results_1");
+        assertEquals(400L, report.getRowCount());
+        assertNull(report.getCount());
+        assertEquals(40.0, report.getPercentComplete());
+        assertEquals(10.0, report.getFlushRate());
+        assertEquals(2, report.getChecks());
+        assertFalse(report.isExportable());
+        // 600 rows to go at 10 rows a second
+        assertEquals(60, Duration.between(report.getCheckedAt(), report.getEta()).getSeconds());
+        assertEquals(report.getCheckedAt().plus(Duration.ofMinutes(1)), report.getNextCheckAt());
+        assertFalse(report.getFirstCheckedAt().isAfter(report.getCheckedAt()));
+    }
+
+    @Test
+    void testRecord_WhenNotGrowing_ShouldHaveNoEta() {
+        jobProgressStore.record("job_results_1", new ReadinessResult(400L, null), 1000, progress(400L, 400L, Duration.ofSeconds(20)), Duration.ofMinutes(1));
+
+        assertNull(jobProgressStore.get("job_results_1").getEta());
+    }
+
+    @Test
+    void testRecord_WhenExportable_ShouldBeComplete() {
+        jobProgressStore.record("job_results_1", new ReadinessResult(1000L, 1000L), 1000, new JobProgress(), null);
+
+        JobProgressReport report = jobProgressStore.get("job_results_1");
+        assertTrue(report.isExportable());
+        assertEquals(100.0, report.getPercentComplete());
+        assertEquals(report.getCheckedAt(), report.getEta());
+        assertNull(report.getNextCheckAt());
+    }
+
+    @Test
+    void testRecord_WhenFull_ShouldDropOldest() {
+        jobProgressStore.record("job_results_1", new ReadinessResult(1L, null), 10, new JobProgress(), Duration.ofMinutes(1));
+        jobProgressStore.record("job_results_2", new ReadinessResult(1L, null), 10, new JobProgress(), Duration.ofMinutes(1));
+        jobProgressStore.record("job_results_1", new ReadinessResult(2L, null), 10, new JobProgress(), Duration.ofMinutes(1));
+        jobProgressStore.record("job_results_3", new ReadinessResult(1L, null), 10, new JobProgress(), Duration.ofMinutes(1));
+
+        assertNotNull(jobProgressStore.get("job_results_1"));
+        assertNull(jobProgressStore.get("job_results_2"));
+        assertNotNull(jobProgressStore.get("job_results_3"));
+        assertEquals(2, jobProgressStore.size());
+    }
+
+    @Test
+    void testRemove() {
+        jobProgressStore.record("job_results_1", new ReadinessResult(1L, null), 10, new JobProgress(), Duration.ofMinutes(1));
+        jobProgressStore.remove("job_results_1");
+
+        assertNull(jobProgressStore.get("job_results_1"));
+    }
+
+    private JobProgress progress(Long previousRowCount, Long rowCount, Duration between) {
+        Instant now = Instant.now();
+        JobProgress progress = new JobProgress();
+        progress.setPreviousRowCount(previousRowCount);
+        progress.setPreviousCheckedAt(now.minus(between));
+        progress.setRowCount(rowCount);
+        progress.setCheckedAt(now);
+        return progress;
+    }
+}
@@ -0,0 +1,45 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobProgressTrackerTest {
+
+    private JobProgressTracker progressTracker;
+
+    @BeforeEach
+    void setUp() {
+        progressTracker = new JobProgressTracker();
+        ReflectionTestUtils.setField(progressTracker, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(progressTracker, "expectedRowsRatio", 1.0);
+        ReflectionTestUtils.setField(progressTracker, "maxTrackedTables", 2);
+    }
+
+    @Test
+    void testRecord_ShouldDropTheLeastRecentlyCheckedTable() {
+        progressTracker.record("results_1", 10L);
+        progressTracker.record("results_2", 10L);
+        progressTracker.record("results_1", 20L);
+
+        progressTracker.record("results_3", 10L);
+
+        assertEquals(2, progressTracker.size());
+        assertEquals(20L, progressTracker.getProgress("results_1").getRowCount());
+        assertNull(progressTracker.getProgress("results_2").getRowCount());
+        assertEquals(10L, progressTracker.getProgress("results_3").getRowCount());
+    }
+
+    @Test
+    void testForget_ShouldRemoveTheTable() {
+        progressTracker.record("results_1", 10L);
+
+        progressTracker.forget("results_1");
+
+        assertEquals(0, progressTracker.size());
+    }
+}
@@ -0,0 +1,118 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.BigQueryJob;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class JobScheduleBatcherTest {
+
+    @InjectMocks
+    private JobScheduleBatcher jobScheduleBatcher;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(jobScheduleBatcher, "windowMillis", 60000L);
+        ReflectionTestUtils.setField(jobScheduleBatcher, "maxBatchSize", 100);
+        jobScheduleBatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobScheduleBatcher.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_ShouldScheduleBatchInOneCall() throws Exception {
+        CompletableFuture<Void> first = jobScheduleBatcher.schedule(jobDetail("job_results_1"), trigger("job_results_1"));
+        CompletableFuture<Void> second = jobScheduleBatcher.schedule(jobDetail("job_results_2"), trigger("job_results_2"));
+
+        assertFalse(first.isDone());
+
+        jobScheduleBatcher.flush();
+
+        ArgumentCaptor<Map<JobDetail, Set<? extends Trigger>>> batch = ArgumentCaptor.forClass(Map.class);
+        verify(scheduler, times(1)).scheduleJobs(batch.capture(), eq(false));
+        verify(scheduler, never()).scheduleJob(any(JobDetail.class), any(Trigger.class));
+        assertEquals(2, batch.getValue().size());
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_WhenSameJobSubmittedTwice_ShouldStoreItOnce() throws Exception {
+        CompletableFuture<Void> first = jobScheduleBatcher.schedule(jobDetail("job_results_1"), trigger("job_results_1"));
+        CompletableFuture<Void> redelivered = jobScheduleBatcher.schedule(jobDetail("job_results_1"), trigger("job_results_1"));
+
+        jobScheduleBatcher.flush();
+
+        ArgumentCaptor<Map<JobDetail, Set<? extends Trigger>>> batch = ArgumentCaptor.forClass(Map.class);
+        verify(scheduler, times(1)).scheduleJobs(batch.capture(), eq(false));
+        assertEquals(1, batch.getValue().size());
+        assertFalse(first.isCompletedExceptionally());
+        assertFalse(redelivered.isCompletedExceptionally());
+        assertTrue(redelivered.isDone());
+    }
+
+    @Test
+    void testFlush_WhenBatchFails_ShouldScheduleIndividually() throws Exception {
+        JobDetail good = jobDetail("job_results_1");
+        JobDetail bad = jobDetail("job_results_2");
+        doThrow(new ObjectAlreadyExistsException(bad)).when(scheduler).scheduleJobs(anyMap(), anyBoolean());
+        doThrow(new ObjectAlreadyExistsException(bad)).when(scheduler).scheduleJob(eq(bad), any(Trigger.class));
+
+        CompletableFuture<Void> first = jobScheduleBatcher.schedule(good, trigger("job_results_1"));
+        CompletableFuture<Void> second = jobScheduleBatcher.schedule(bad, trigger("job_results_2"));
+
+        jobScheduleBatcher.flush();
+
+        verify(scheduler, times(2)).scheduleJob(any(JobDetail.class), any(Trigger.class));
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+    }
+
+    @Test
+    void testSchedule_WhenBatchIsFull_ShouldFlushWithoutWaitingForWindow() throws Exception {
+        jobScheduleBatcher.stop();
+        ReflectionTestUtils.setField(jobScheduleBatcher, "maxBatchSize", 2);
+        jobScheduleBatcher.start();
+
+        jobScheduleBatcher.schedule(jobDetail("job_results_1"), trigger("job_results_1"));
+        CompletableFuture<Void> second = jobScheduleBatcher.schedule(jobDetail("job_results_2"), trigger("job_results_2"));
+
+        second.get(5, TimeUnit.SECONDS);
+        verify(scheduler, times(1)).scheduleJobs(anyMap(), eq(false));
+    }
+
+    private JobDetail jobDetail(String name) {
+        return JobBuilder.newJob(BigQueryJob.class).withIdentity(name, "bulk-query-jobs").build();
+    }
+
+    private Trigger trigger(String name) {
+        return TriggerBuilder.newTrigger().forJob(name, "bulk-query-jobs").withIdentity(name, "bulk-query-triggers").startNow().build();
+    }
+}
@@ -1,22 +1,39 @@
 package uk.gov.ons.bulk.scheduler.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.cloud.bigquery.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.quartz.JobDetail;
 import org.quartz.JobKey;
 import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
 import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.test.util.ReflectionTestUtils;
-import uk.gov.ons.bulk.scheduler.component.PubSubComponent.PubsubOutboundGateway;
-
-import java.util.Collections;
+import uk.gov.ons.bulk.scheduler.component.SchedulerComponent;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.Exportable;
+import uk.gov.ons.bulk.scheduler.entities.JobEvent;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.entities.JobProgress;
+import uk.gov.ons.bulk.scheduler.entities.JobProgressReport;
+import uk.gov.ons.bulk.scheduler.entities.ReadinessResult;
+
+import java.time.Clock;
+import java.time.Duration;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class JobServiceTest {
@@ -31,13 +48,63 @@ class JobServiceTest {
     private Scheduler scheduler;
 
     @Mock
-    private PubsubOutboundGateway messagingGateway;
+    private ExportPublisher exportPublisher;
+
+    @Mock
+    private SchedulerComponent schedulerComponent;
+
+    @Mock
+    private ScheduledJobIndex scheduledJobIndex;
+
+    @Mock
+    private QuartzJobRepository jobRepository;
+
+    @Mock
+    private JobEventBroadcaster jobEventBroadcaster;
+
+    @Mock
+    private JobProgressStore jobProgressStore;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        ReflectionTestUtils.setField(jobService, "TABLE_ID", "results_");
-        ReflectionTestUtils.setField(jobService, "IDS_TABLE_ID", "ids_results_");
+
+        QuartzPendingJobStore pendingJobStore = new QuartzPendingJobStore();
+        ReflectionTestUtils.setField(pendingJobStore, "scheduler", scheduler);
+        ReflectionTestUtils.setField(pendingJobStore, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(pendingJobStore, "jobRepository", jobRepository);
+        ReflectionTestUtils.setField(jobService, "pendingJobStore", pendingJobStore);
+
+        JobProgressTracker progressTracker = new JobProgressTracker();
+        ReflectionTestUtils.setField(progressTracker, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(progressTracker, "expectedRowsRatio", 1.0);
+        ReflectionTestUtils.setField(progressTracker, "maxTrackedTables", 100);
+        ReflectionTestUtils.setField(jobService, "progressTracker", progressTracker);
+
+        BigQueryGateway bigQueryGateway = new BigQueryGateway();
+        ReflectionTestUtils.setField(bigQueryGateway, "bigQuery", bigQuery);
+        ReflectionTestUtils.setField(bigQueryGateway, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(bigQueryGateway, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bigQueryGateway, "timeoutSeconds", 60L);
+        ReflectionTestUtils.setField(bigQueryGateway, "acquireTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(bigQueryGateway, "initialLimit", 20);
+        ReflectionTestUtils.setField(bigQueryGateway, "minLimit", 2);
+        ReflectionTestUtils.setField(bigQueryGateway, "maxLimit", 100);
+        ReflectionTestUtils.setField(bigQueryGateway, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(bigQueryGateway, "latencyThresholdMillis", 10000L);
+        ReflectionTestUtils.setField(bigQueryGateway, "failureThreshold", 5);
+        ReflectionTestUtils.setField(bigQueryGateway, "openSeconds", 120L);
+        bigQueryGateway.init();
+
+        QueryReadinessStrategy queryReadinessStrategy = new QueryReadinessStrategy();
+        ReflectionTestUtils.setField(queryReadinessStrategy, "bigQueryGateway", bigQueryGateway);
+        ReflectionTestUtils.setField(queryReadinessStrategy, "progressTracker", progressTracker);
+        ReflectionTestUtils.setField(jobService, "readinessStrategy", queryReadinessStrategy);
+
+        when(jobProgressStore.record(any(), any(), anyInt(), any(), any())).thenReturn(new JobProgressReport());
     }
 
     @Test
@@ -62,10 +129,14 @@ class JobServiceTest {
                 .thenReturn(rowCountResult)
                 .thenReturn(countResult);
 
-        jobService.execute(jobId, idsJobId, expectedRows, key);
+        jobService.execute(jobId, idsJobId, expectedRows, key, null, 0);
 
-        verify(messagingGateway, times(1)).sendToPubsub(any(String.class));
-        verify(scheduler, times(1)).deleteJob(key);
+        verify(exportPublisher, times(1)).export(any(Exportable.class), eq(key));
+        verify(scheduler, never()).deleteJob(key);
+        verify(jobEventBroadcaster).publish(JobEvent.Type.CHECKED, "job", 1L, 1L, 1);
+        verify(jobEventBroadcaster).publish(JobEvent.Type.EXPORTABLE, "job", 1L, 1L, 1);
+        verify(jobProgressStore).record(eq("job"), any(ReadinessResult.class), eq(1), any(JobProgress.class), isNull());
+        verify(pipelineMetrics).recordExportable(false, 1, null);
     }
 
     @Test
@@ -73,27 +144,40 @@ class JobServiceTest {
         when(scheduler.deleteJob(any(JobKey.class))).thenReturn(true);
         boolean result = jobService.deleteJob("testJob");
         assert(result);
+        verify(scheduledJobIndex, times(1)).remove("testJob");
+        verify(jobProgressStore, times(1)).remove("testJob");
+    }
+
+    @Test
+    void testDeleteJob_ShouldForgetTheProgressOfItsTable() throws Exception {
+        JobProgressTracker progressTracker = (JobProgressTracker) ReflectionTestUtils.getField(jobService, "progressTracker");
+        progressTracker.record("ids_results_123", 10L);
+        when(scheduler.deleteJob(any(JobKey.class))).thenReturn(true);
+
+        jobService.deleteJob("job_results_ids_123");
+
+        assertNull(progressTracker.getProgress("ids_results_123").getRowCount());
     }
 
     @Test
     void testGetJobs() throws Exception {
-        JobKey jobKey = new JobKey("job1", "SCHEDULER_GROUP");
-        when(scheduler.getJobKeys(any())).thenReturn(Collections.singleton(jobKey));
-        JobDetail jobDetail = mock(JobDetail.class);
-        when(jobDetail.getKey()).thenReturn(jobKey);
-        when(jobDetail.getDescription()).thenReturn("desc");
-        when(scheduler.getJobDetail(jobKey)).thenReturn(jobDetail);
-        Trigger trigger = mock(Trigger.class);
-        // Explicit cast to match method signature if needed
-        when(scheduler.getTriggersOfJob(jobKey)).thenReturn((List) List.of(trigger));
-        when(trigger.getDescription()).thenReturn("triggerDesc");
-        when(trigger.getNextFireTime()).thenReturn(null);
-        when(trigger.getPreviousFireTime()).thenReturn(null);
+        JobFilter filter = new JobFilter("job0", 10, false, false);
+        when(scheduler.getSchedulerName()).thenReturn("quartzScheduler");
+        when(jobRepository.findJobs(eq("quartzScheduler"), eq(filter), anyLong()))
+                .thenReturn(List.of(new BulkSchedulerJob("job1", "bulk-query-jobs", "desc", List.of())));
 
-        var jobs = jobService.getJobs();
+        var jobs = jobService.getJobs(filter);
         assert(jobs.size() == 1);
     }
 
+    @Test
+    void testGetJobs_WhenDatabaseFails_ShouldThrowSchedulerException() throws Exception {
+        when(scheduler.getSchedulerName()).thenReturn("quartzScheduler");
+        when(jobRepository.findJobs(any(), any(), anyLong())).thenThrow(new QueryTimeoutException("timed out"));
+
+        assertThrows(SchedulerException.class, () -> jobService.getJobs(JobFilter.all()));
+    }
+
     @Test
     void testExecute_WhenRowCountAndCountDoNotMatch_ShouldNotSendMessageOrDeleteJob() throws Exception {
         String jobId = "123";
@@ -116,10 +200,97 @@ class JobServiceTest {
                 .thenReturn(rowCountResult)
                 .thenReturn(countResult);
 
-        jobService.execute(jobId, idsJobId, expectedRows, key);
+        jobService.execute(jobId, idsJobId, expectedRows, key, null, 0);
 
-        verify(messagingGateway, never()).sendToPubsub(any(String.class));
+        verify(exportPublisher, never()).export(any(Exportable.class), any(JobKey.class));
         verify(scheduler, never()).deleteJob(key);
+        verify(jobEventBroadcaster).publish(JobEvent.Type.CHECKED, "job", 2L, 1L, 1);
+        verify(jobEventBroadcaster, never()).publish(eq(JobEvent.Type.EXPORTABLE), any(), any(), any(), any());
+        verify(jobProgressStore).record(eq("job"), any(ReadinessResult.class), eq(1), any(JobProgress.class), any(Duration.class));
+    }
+
+    @Test
+    void testExecute_WhenRowCountBelowExpectedRows_ShouldSkipCountQuery() throws Exception {
+        String jobId = "123";
+        String idsJobId = "";
+        int expectedRows = 100;
+        JobKey key = new JobKey("job", "group");
+
+        TableResult rowCountResult = mock(TableResult.class);
+
+        FieldValueList rowCountList = mock(FieldValueList.class);
+        when(rowCountList.get("row_count")).thenReturn(FieldValue.of(FieldValue.Attribute.PRIMITIVE, "10"));
+        when(rowCountResult.iterateAll()).thenReturn(List.of(rowCountList));
+
+        when(bigQuery.query(any(QueryJobConfiguration.class))).thenReturn(rowCountResult);
+
+        jobService.execute(jobId, idsJobId, expectedRows, key, null, 0);
+
+        verify(bigQuery, times(1)).query(any(QueryJobConfiguration.class));
+        verify(exportPublisher, never()).export(any(Exportable.class), any(JobKey.class));
+        verify(scheduler, never()).deleteJob(key);
+    }
+
+    @Test
+    void testExecute_WhenRowCountStopsGrowingBelowExpectedRows_ShouldRunCountQuery() throws Exception {
+        String jobId = "123";
+        String idsJobId = "";
+        int expectedRows = 100;
+        JobKey key = new JobKey("job", "group");
+
+        TableResult rowCountResult = mock(TableResult.class);
+        TableResult countResult = mock(TableResult.class);
+
+        FieldValueList rowCountList = mock(FieldValueList.class);
+        when(rowCountList.get("row_count")).thenReturn(FieldValue.of(FieldValue.Attribute.PRIMITIVE, "10"));
+        when(rowCountResult.iterateAll()).thenReturn(List.of(rowCountList));
+
+        FieldValueList countList = mock(FieldValueList.class);
+        when(countList.get("count")).thenReturn(FieldValue.of(FieldValue.Attribute.PRIMITIVE, "10"));
+        when(countResult.iterateAll()).thenReturn(List.of(countList));
+
+        when(bigQuery.query(any(QueryJobConfiguration.class)))
+                .thenReturn(rowCountResult)
+                .thenReturn(rowCountResult)
+                .thenReturn(countResult);
+
+        jobService.execute(jobId, idsJobId, expectedRows, key, null, 0);
+        jobService.execute(jobId, idsJobId, expectedRows, key, null, 0);
+
+        verify(bigQuery, times(3)).query(any(QueryJobConfiguration.class));
+        verify(exportPublisher, times(1)).export(any(Exportable.class), eq(key));
+        verify(scheduler, never()).deleteJob(key);
+    }
+
+    @Test
+    void testExecute_WhenAdaptiveAndNotExportable_ShouldRescheduleTrigger() throws Exception {
+        String jobId = "123";
+        String idsJobId = "";
+        int expectedRows = 100;
+        JobKey key = new JobKey("job", "group");
+
+        AdaptivePollPolicy adaptivePollPolicy = new AdaptivePollPolicy();
+        ReflectionTestUtils.setField(adaptivePollPolicy, "minSeconds", 30L);
+        ReflectionTestUtils.setField(adaptivePollPolicy, "maxSeconds", 1800L);
+        ReflectionTestUtils.setField(adaptivePollPolicy, "backoffMultiplier", 2.0);
+        ReflectionTestUtils.setField(jobService, "adaptivePollPolicy", adaptivePollPolicy);
+        ReflectionTestUtils.setField(jobService, "adaptiveEnabled", true);
+
+        TableResult rowCountResult = mock(TableResult.class);
+
+        FieldValueList rowCountList = mock(FieldValueList.class);
+        when(rowCountList.get("row_count")).thenReturn(FieldValue.of(FieldValue.Attribute.PRIMITIVE, "10"));
+        when(rowCountResult.iterateAll()).thenReturn(List.of(rowCountList));
+
+        when(bigQuery.query(any(QueryJobConfiguration.class))).thenReturn(rowCountResult);
+
+        Trigger trigger = mock(Trigger.class);
+        when(schedulerComponent.createTrigger(eq(key), any(Duration.class), eq(3))).thenReturn(trigger);
+
+        jobService.execute(jobId, idsJobId, expectedRows, key, null, 2);
+
+        verify(scheduler, times(1)).rescheduleJob(new TriggerKey("job", "bulk-query-triggers"), trigger);
+        verify(exportPublisher, never()).export(any(Exportable.class), any(JobKey.class));
     }
 
     @Test
@@ -131,14 +302,33 @@ class JobServiceTest {
 
         when(bigQuery.query(any(QueryJobConfiguration.class))).thenThrow(new InterruptedException("interrupted"));
 
-        jobService.execute(jobId, idsJobId, expectedRows, key);
+        jobService.execute(jobId, idsJobId, expectedRows, key, null, 0);
+
+        verify(exportPublisher, never()).export(any(Exportable.class), any(JobKey.class));
+        verify(scheduler, never()).deleteJob(key);
+    }
+
+    @Test
+    void testExecute_WhenBigQueryIsRateLimited_ShouldDeferCheck() throws Exception {
+        String jobId = "123";
+        String idsJobId = "";
+        int expectedRows = 1;
+        JobKey key = new JobKey("job", "group");
+
+        when(bigQuery.query(any(QueryJobConfiguration.class))).thenThrow(new BigQueryException(429, "rate limit exceeded"));
+
+        Trigger trigger = mock(Trigger.class);
+        when(schedulerComponent.createTrigger(eq(key), any(Duration.class), eq(2))).thenReturn(trigger);
+
+        jobService.execute(jobId, idsJobId, expectedRows, key, null, 2);
 
-        verify(messagingGateway, never()).sendToPubsub(any(String.class));
+        verify(scheduler, times(1)).rescheduleJob(new TriggerKey("job", "bulk-query-triggers"), trigger);
+        verify(exportPublisher, never()).export(any(Exportable.class), any(JobKey.class));
         verify(scheduler, never()).deleteJob(key);
     }
 
     @Test
-    void testExecute_WhenSchedulerThrowsSchedulerException_ShouldLogError() throws Exception {
+    void testExecute_WhenExportFails_ShouldLogError() throws Exception {
         String jobId = "123";
         String idsJobId = "";
         int expectedRows = 1;
@@ -159,16 +349,43 @@ class JobServiceTest {
                 .thenReturn(rowCountResult)
                 .thenReturn(countResult);
 
-        doThrow(new org.quartz.SchedulerException("scheduler error")).when(scheduler).deleteJob(key);
+        doThrow(new JsonProcessingException("serialisation error") {}).when(exportPublisher).export(any(Exportable.class), eq(key));
 
-        jobService.execute(jobId, idsJobId, expectedRows, key);
+        jobService.execute(jobId, idsJobId, expectedRows, key, null, 0);
 
-        verify(messagingGateway, times(1)).sendToPubsub(any(String.class));
-        verify(scheduler, times(1)).deleteJob(key);
+        verify(exportPublisher, times(1)).export(any(Exportable.class), eq(key));
+        verify(scheduler, never()).deleteJob(key);
     }
 
     @Test
-    void testExecute_WithIdsJob_ShouldSendMessageAndDeleteJob() throws Exception {
+    void testExecute_WhenOutboxWriteFails_ShouldLogError() throws Exception {
+        JobKey key = new JobKey("job", "group");
+
+        TableResult rowCountResult = mock(TableResult.class);
+        TableResult countResult = mock(TableResult.class);
+
+        FieldValueList rowCountList = mock(FieldValueList.class);
+        when(rowCountList.get("row_count")).thenReturn(FieldValue.of(FieldValue.Attribute.PRIMITIVE, "1"));
+        when(rowCountResult.iterateAll()).thenReturn(List.of(rowCountList));
+
+        FieldValueList countList = mock(FieldValueList.class);
+        when(countList.get("count")).thenReturn(FieldValue.of(FieldValue.Attribute.PRIMITIVE, "1"));
+        when(countResult.iterateAll()).thenReturn(List.of(countList));
+
+        when(bigQuery.query(any(QueryJobConfiguration.class)))
+                .thenReturn(rowCountResult)
+                .thenReturn(countResult);
+
+        doThrow(new QueryTimeoutException("outbox insert timed out")).when(exportPublisher).export(any(Exportable.class), eq(key));
+
+        assertDoesNotThrow(() -> jobService.execute("123", "", 1, key, null, 0));
+
+        verify(scheduler, never()).deleteJob(key);
+        verify(pipelineMetrics, never()).recordExportable(anyBoolean(), anyInt(), any());
+    }
+
+    @Test
+    void testExecute_WithIdsJob_ShouldExport() throws Exception {
         String jobId = "123";
         String idsJobId = "ids456";
         int expectedRows = 1;
@@ -189,9 +406,20 @@ class JobServiceTest {
                 .thenReturn(rowCountResult)
                 .thenReturn(countResult);
 
-        jobService.execute(jobId, idsJobId, expectedRows, key);
+        jobService.execute(jobId, idsJobId, expectedRows, key, null, 0);
+
+        verify(exportPublisher, times(1)).export(new Exportable(jobId, idsJobId), key);
+        verify(scheduler, never()).deleteJob(key);
+    }
+
+    @Test
+    void testExecute_WhenExportInFlight_ShouldSkipCheck() throws Exception {
+        JobKey key = new JobKey("job", "group");
+        when(exportPublisher.isInFlight(key)).thenReturn(true);
+
+        jobService.execute("123", "", 1, key, null, 0);
 
-        verify(messagingGateway, times(1)).sendToPubsub(any(String.class));
-        verify(scheduler, times(1)).deleteJob(key);
+        verify(bigQuery, never()).query(any(QueryJobConfiguration.class));
+        verify(exportPublisher, never()).export(any(Exportable.class), any(JobKey.class));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import com.google.cloud.bigquery.*;
+import com.google.cloud.bigquery.StandardTableDefinition.StreamingBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.ReadinessResult;
+
+import java.time.Clock;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MetadataReadinessStrategyTest {
+
+    @InjectMocks
+    private MetadataReadinessStrategy metadataReadinessStrategy;
+
+    @Mock
+    private BigQuery bigQuery;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        JobProgressTracker progressTracker = new JobProgressTracker();
+        ReflectionTestUtils.setField(progressTracker, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(progressTracker, "expectedRowsRatio", 1.0);
+        ReflectionTestUtils.setField(progressTracker, "maxTrackedTables", 100);
+        ReflectionTestUtils.setField(metadataReadinessStrategy, "progressTracker", progressTracker);
+
+        BigQueryGateway bigQueryGateway = new BigQueryGateway();
+        ReflectionTestUtils.setField(bigQueryGateway, "bigQuery", bigQuery);
+        ReflectionTestUtils.setField(bigQueryGateway, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(bigQueryGateway, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bigQueryGateway, "timeoutSeconds", 60L);
+        ReflectionTestUtils.setField(bigQueryGateway, "acquireTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(bigQueryGateway, "initialLimit", 20);
+        ReflectionTestUtils.setField(bigQueryGateway, "minLimit", 2);
+        ReflectionTestUtils.setField(bigQueryGateway, "maxLimit", 100);
+        ReflectionTestUtils.setField(bigQueryGateway, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(bigQueryGateway, "latencyThresholdMillis", 10000L);
+        ReflectionTestUtils.setField(bigQueryGateway, "failureThreshold", 5);
+        ReflectionTestUtils.setField(bigQueryGateway, "openSeconds", 120L);
+        bigQueryGateway.init();
+
+        QueryReadinessStrategy queryReadinessStrategy = new QueryReadinessStrategy();
+        ReflectionTestUtils.setField(queryReadinessStrategy, "bigQueryGateway", bigQueryGateway);
+        ReflectionTestUtils.setField(metadataReadinessStrategy, "queryReadinessStrategy", queryReadinessStrategy);
+        ReflectionTestUtils.setField(metadataReadinessStrategy, "bigQueryGateway", bigQueryGateway);
+    }
+
+    @Test
+    void testCheck_WhenNoStreamingBuffer_ShouldBeExportableWithoutQuery() throws Exception {
+        mockTable("bulk_status", "results_123", 10L, null);
+
+        ReadinessResult result = metadataReadinessStrategy.check("123", false, 10);
+
+        assertTrue(result.isExportable());
+        verify(bigQuery, never()).query(any(QueryJobConfiguration.class));
+    }
+
+    @Test
+    void testCheck_WhenNoStreamingBufferAndBelowExpectedRows_ShouldNotBeExportable() throws Exception {
+        mockTable("bulk_status", "results_123", 10L, null);
+
+        ReadinessResult result = metadataReadinessStrategy.check("123", false, 100);
+
+        assertFalse(result.isExportable());
+        verify(bigQuery, never()).query(any(QueryJobConfiguration.class));
+    }
+
+    @Test
+    void testCheck_WhenStreamingBufferHasRows_ShouldNotBeExportable() throws Exception {
+        StreamingBuffer streamingBuffer = mock(StreamingBuffer.class);
+        when(streamingBuffer.getEstimatedRows()).thenReturn(5L);
+        mockTable("ids_results", "ids_results_123", 10L, streamingBuffer);
+
+        ReadinessResult result = metadataReadinessStrategy.check("123", true, 10);
+
+        assertFalse(result.isExportable());
+        assertEquals(15L, result.getCount());
+        verify(bigQuery, never()).query(any(QueryJobConfiguration.class));
+    }
+
+    @Test
+    void testCheck_WhenStreamingBufferIsAmbiguous_ShouldFallBackToCountQuery() throws Exception {
+        StreamingBuffer streamingBuffer = mock(StreamingBuffer.class);
+        when(streamingBuffer.getEstimatedRows()).thenReturn(0L);
+        mockTable("bulk_status", "results_123", 10L, streamingBuffer);
+
+        TableResult countResult = mock(TableResult.class);
+        FieldValueList countList = mock(FieldValueList.class);
+        when(countList.get("count")).thenReturn(FieldValue.of(FieldValue.Attribute.PRIMITIVE, "10"));
+        when(countResult.iterateAll()).thenReturn(List.of(countList));
+        when(bigQuery.query(any(QueryJobConfiguration.class))).thenReturn(countResult);
+
+        ReadinessResult result = metadataReadinessStrategy.check("123", false, 0);
+
+        assertTrue(result.isExportable());
+        verify(bigQuery, times(1)).query(any(QueryJobConfiguration.class));
+    }
+
+    @Test
+    void testCheck_WhenAmbiguousBufferAndExpectedRowsReached_ShouldBeExportableWithoutQuery() throws Exception {
+        StreamingBuffer streamingBuffer = mock(StreamingBuffer.class);
+        when(streamingBuffer.getEstimatedRows()).thenReturn(0L);
+        mockTable("bulk_status", "results_123", 10L, streamingBuffer);
+
+        ReadinessResult result = metadataReadinessStrategy.check("123", false, 10);
+
+        assertTrue(result.isExportable());
+        verify(bigQuery, never()).query(any(QueryJobConfiguration.class));
+    }
+
+    @Test
+    void testCheck_WhenAmbiguousBufferAndBelowExpectedRows_ShouldNotBeExportableWithoutQuery() throws Exception {
+        StreamingBuffer streamingBuffer = mock(StreamingBuffer.class);
+        when(streamingBuffer.getEstimatedRows()).thenReturn(null);
+        mockTable("bulk_status", "results_123", 10L, streamingBuffer);
+
+        ReadinessResult result = metadataReadinessStrategy.check("123", false, 100);
+
+        assertFalse(result.isExportable());
+        verify(bigQuery, never()).query(any(QueryJobConfiguration.class));
+    }
+
+    @Test
+    void testCheck_WhenTableDoesNotExist_ShouldNotBeExportable() throws Exception {
+        when(bigQuery.getTable(any(TableId.class))).thenReturn(null);
+
+        ReadinessResult result = metadataReadinessStrategy.check("123", false, 10);
+
+        assertFalse(result.isExportable());
+        verify(bigQuery, never()).query(any(QueryJobConfiguration.class));
+    }
+
+    private void mockTable(String dataSet, String tableId, Long numRows, StreamingBuffer streamingBuffer) {
+        StandardTableDefinition definition = mock(StandardTableDefinition.class);
+        when(definition.getNumRows()).thenReturn(numRows);
+        when(definition.getStreamingBuffer()).thenReturn(streamingBuffer);
+
+        Table table = mock(Table.class);
+        when(table.getDefinition()).thenReturn(definition);
+        when(bigQuery.getTable(TableId.of(dataSet, tableId))).thenReturn(table);
+    }
+}
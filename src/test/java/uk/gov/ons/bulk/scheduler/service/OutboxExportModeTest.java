@@ -0,0 +1,129 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import uk.gov.ons.bulk.scheduler.component.OutboxRelayComponent;
+import uk.gov.ons.bulk.scheduler.entities.Exportable;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The default export mode, wired as the application wires it against the shipped schema.
+ */
+@SpringJUnitConfig(OutboxExportModeTest.Config.class)
+@TestPropertySource(properties = {
+        "aims.export.mode=outbox",
+        "aims.pubsub.export-topic=export-topic",
+        "aims.export.outbox.batch-size=100",
+        "aims.export.outbox.relay-millis=600000",
+        "aims.export.outbox.publish-timeout-seconds=5",
+        "aims.export.retry.max-attempts=5",
+        "aims.export.retry.initial-backoff-millis=1000",
+        "aims.export.retry.max-backoff-millis=60000"
+})
+class OutboxExportModeTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import({ OutboxExportPublisher.class, PubSubExportPublisher.class, OutboxRelayComponent.class })
+    static class Config {
+
+        @Bean
+        DataSource dataSource() {
+            DataSource dataSource = new DriverManagerDataSource(
+                    String.format("jdbc:h2:mem:%s;MODE=MySQL;DB_CLOSE_DELAY=-1", UUID.randomUUID()));
+            new ResourceDatabasePopulator(new ClassPathResource("schema-mysql.sql")).execute(dataSource);
+            return dataSource;
+        }
+
+        @Bean
+        Clock clock() {
+            return Clock.systemDefaultZone();
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+    }
+
+    @Autowired
+    private ExportPublisher exportPublisher;
+
+    @Autowired
+    private OutboxRelayComponent outboxRelayComponent;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private PendingJobStore pendingJobStore;
+
+    @MockitoBean
+    private PubSubTemplate pubSubTemplate;
+
+    private final JobKey key = new JobKey("job_results_123", "bulk-query-jobs");
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM BULK_EXPORT_OUTBOX");
+    }
+
+    @Test
+    void testExport_ShouldBeRelayedFromTheOutbox() throws Exception {
+        when(pubSubTemplate.publish("export-topic", "{\"jobId\":\"123\",\"idsJobId\":\"\"}"))
+                .thenReturn(CompletableFuture.completedFuture("message-1"));
+
+        assertInstanceOf(OutboxExportPublisher.class, exportPublisher);
+        exportPublisher.export(new Exportable("123", ""), key);
+
+        verify(pendingJobStore).delete(key);
+        assertEquals(1, outboxRows());
+
+        outboxRelayComponent.relay();
+
+        verify(pubSubTemplate).publish("export-topic", "{\"jobId\":\"123\",\"idsJobId\":\"\"}");
+        assertEquals(0, outboxRows());
+    }
+
+    @Test
+    void testExport_WhenDeleteFails_ShouldRollBackTheOutboxRow() throws Exception {
+        doThrow(new SchedulerException("store unavailable")).when(pendingJobStore).delete(key);
+
+        assertThrows(SchedulerException.class, () -> exportPublisher.export(new Exportable("123", ""), key));
+
+        assertEquals(0, outboxRows());
+    }
+
+    private int outboxRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM BULK_EXPORT_OUTBOX", Integer.class);
+    }
+}
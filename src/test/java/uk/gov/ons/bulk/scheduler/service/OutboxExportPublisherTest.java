@@ -0,0 +1,62 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.Exportable;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class OutboxExportPublisherTest {
+
+    @InjectMocks
+    private OutboxExportPublisher outboxExportPublisher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PendingJobStore pendingJobStore;
+
+    private final JobKey key = new JobKey("job_results_ids_123", "bulk-query-jobs");
+
+    private final Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(outboxExportPublisher, "clock", Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    void testExport_ShouldWriteOutboxRowThenDeleteJob() throws Exception {
+        outboxExportPublisher.export(new Exportable("123", "ids456"), key);
+
+        InOrder inOrder = inOrder(jdbcTemplate, pendingJobStore);
+        inOrder.verify(jdbcTemplate).update(startsWith("INSERT INTO BULK_EXPORT_OUTBOX"), eq("job_results_ids_123"),
+                eq("{\"jobId\":\"123\",\"idsJobId\":\"ids456\"}"), eq(now.toEpochMilli()), eq(now.toEpochMilli()));
+        inOrder.verify(pendingJobStore).delete(key);
+        assertFalse(outboxExportPublisher.isInFlight(key));
+    }
+
+    @Test
+    void testExport_WhenDeleteFails_ShouldPropagateSoTransactionRollsBack() throws Exception {
+        doThrow(new SchedulerException("store unavailable")).when(pendingJobStore).delete(key);
+
+        assertThrows(SchedulerException.class, () -> outboxExportPublisher.export(new Exportable("123", ""), key));
+    }
+}
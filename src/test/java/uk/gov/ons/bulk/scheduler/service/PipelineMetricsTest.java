@@ -0,0 +1,51 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineMetricsTest {
+
+    private PipelineMetrics pipelineMetrics;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        pipelineMetrics = new PipelineMetrics();
+        ReflectionTestUtils.setField(pipelineMetrics, "clock", Clock.systemDefaultZone());
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(pipelineMetrics, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void testRecordExportable_ShouldRecordChecksAndTimeToExport() {
+        pipelineMetrics.recordExportable(true, 4, System.currentTimeMillis() - 60000);
+
+        assertEquals(4.0, meterRegistry.get("bulk.scheduler.checks.until.ready").tag("type", "ids").summary().totalAmount());
+        assertTrue(meterRegistry.get("bulk.scheduler.time.to.export").tag("type", "ids").timer().totalTime(TimeUnit.SECONDS) >= 60);
+    }
+
+    @Test
+    void testRecordExportable_WhenReceivedAtUnknown_ShouldOnlyRecordChecks() {
+        pipelineMetrics.recordExportable(false, 1, null);
+
+        assertEquals(1, meterRegistry.get("bulk.scheduler.checks.until.ready").tag("type", "standard").summary().count());
+        assertNull(meterRegistry.find("bulk.scheduler.time.to.export").timer());
+    }
+
+    @Test
+    void testRecordFireDelay_WhenEarly_ShouldRecordZero() {
+        pipelineMetrics.recordFireDelay(false, "wheel", Duration.ofSeconds(-1));
+        pipelineMetrics.recordFireDelay(false, "wheel", Duration.ofSeconds(3));
+
+        assertEquals(2, meterRegistry.get("bulk.scheduler.fire.delay").tag("engine", "wheel").timer().count());
+        assertEquals(3.0, meterRegistry.get("bulk.scheduler.fire.delay").timer().totalTime(TimeUnit.SECONDS));
+    }
+}
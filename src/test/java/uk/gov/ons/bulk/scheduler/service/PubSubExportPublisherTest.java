@@ -0,0 +1,106 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobKey;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.Exportable;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PubSubExportPublisherTest {
+
+    @InjectMocks
+    private PubSubExportPublisher pubSubExportPublisher;
+
+    @Mock
+    private PubSubTemplate pubSubTemplate;
+
+    @Mock
+    private PendingJobStore pendingJobStore;
+
+    private final JobKey key = new JobKey("job_results_123", "bulk-query-jobs");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(pubSubExportPublisher, "pubsubExportTopic", "export-topic");
+        ReflectionTestUtils.setField(pubSubExportPublisher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(pubSubExportPublisher, "initialBackoffMillis", 10L);
+        ReflectionTestUtils.setField(pubSubExportPublisher, "maxBackoffMillis", 1000L);
+        pubSubExportPublisher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pubSubExportPublisher.stop();
+    }
+
+    @Test
+    void testExport_ShouldDeleteJobOnlyWhenPublishCompletes() throws Exception {
+        CompletableFuture<String> published = new CompletableFuture<String>();
+        when(pubSubTemplate.publish(eq("export-topic"), anyString())).thenReturn(published);
+
+        pubSubExportPublisher.export(new Exportable("123", ""), key);
+
+        verify(pendingJobStore, never()).delete(key);
+        assertTrue(pubSubExportPublisher.isInFlight(key));
+
+        published.complete("message-1");
+
+        verify(pendingJobStore, times(1)).delete(key);
+        assertFalse(pubSubExportPublisher.isInFlight(key));
+    }
+
+    @Test
+    void testExport_WhenAlreadyInFlight_ShouldNotPublishAgain() throws Exception {
+        when(pubSubTemplate.publish(eq("export-topic"), anyString())).thenReturn(new CompletableFuture<String>());
+
+        pubSubExportPublisher.export(new Exportable("123", ""), key);
+        pubSubExportPublisher.export(new Exportable("123", ""), key);
+
+        verify(pubSubTemplate, times(1)).publish(eq("export-topic"), anyString());
+    }
+
+    @Test
+    void testExport_WhenPublishFails_ShouldRetryAndThenDelete() throws Exception {
+        CompletableFuture<String> failed = CompletableFuture.failedFuture(new RuntimeException("unavailable"));
+        CompletableFuture<String> published = CompletableFuture.completedFuture("message-1");
+        when(pubSubTemplate.publish(eq("export-topic"), anyString())).thenReturn(failed).thenReturn(published);
+
+        pubSubExportPublisher.export(new Exportable("123", ""), key);
+
+        verify(pendingJobStore, timeout(5000).times(1)).delete(key);
+        verify(pubSubTemplate, times(2)).publish(eq("export-topic"), anyString());
+    }
+
+    @Test
+    void testExport_WhenRetriesExhausted_ShouldKeepJob() throws Exception {
+        CompletableFuture<String> failed = CompletableFuture.failedFuture(new RuntimeException("unavailable"));
+        when(pubSubTemplate.publish(eq("export-topic"), anyString())).thenReturn(failed);
+
+        pubSubExportPublisher.export(new Exportable("123", ""), key);
+
+        verify(pubSubTemplate, timeout(5000).times(3)).publish(eq("export-topic"), anyString());
+        Thread.sleep(100);
+        assertFalse(pubSubExportPublisher.isInFlight(key));
+        verify(pendingJobStore, never()).delete(key);
+    }
+
+    @Test
+    void testBackoff_ShouldDoubleUpToMaximum() {
+        assertEquals(10, pubSubExportPublisher.backoffMillis(1));
+        assertEquals(20, pubSubExportPublisher.backoffMillis(2));
+        assertEquals(1000, pubSubExportPublisher.backoffMillis(10));
+    }
+}
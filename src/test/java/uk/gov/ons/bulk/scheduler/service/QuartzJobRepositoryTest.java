@@ -0,0 +1,150 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.DueTriggers;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuartzJobRepositoryTest {
+
+    private static final String SCHEDULER = "quartzScheduler";
+    private static final String GROUP = "bulk-query-jobs";
+
+    private QuartzJobRepository jobRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final long now = System.currentTimeMillis();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                String.format("jdbc:h2:mem:%s;MODE=MySQL;DB_CLOSE_DELAY=-1", UUID.randomUUID())));
+        jdbcTemplate.execute("CREATE TABLE QRTZ_JOB_DETAILS (SCHED_NAME VARCHAR(120) NOT NULL, JOB_NAME VARCHAR(190) NOT NULL, "
+                + "JOB_GROUP VARCHAR(190) NOT NULL, DESCRIPTION VARCHAR(250) NULL, PRIMARY KEY (SCHED_NAME, JOB_NAME, JOB_GROUP))");
+        jdbcTemplate.execute("CREATE TABLE QRTZ_TRIGGERS (SCHED_NAME VARCHAR(120) NOT NULL, TRIGGER_NAME VARCHAR(190) NOT NULL, "
+                + "TRIGGER_GROUP VARCHAR(190) NOT NULL, JOB_NAME VARCHAR(190) NOT NULL, JOB_GROUP VARCHAR(190) NOT NULL, "
+                + "DESCRIPTION VARCHAR(250) NULL, NEXT_FIRE_TIME BIGINT NULL, PREV_FIRE_TIME BIGINT NULL, "
+                + "TRIGGER_STATE VARCHAR(16) DEFAULT 'WAITING' NOT NULL, PRIMARY KEY (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP))");
+
+        jobRepository = new QuartzJobRepository();
+        ReflectionTestUtils.setField(jobRepository, "jdbcTemplate", jdbcTemplate);
+        // H2 does not accept the MySQL streaming fetch size
+        ReflectionTestUtils.setField(jobRepository, "fetchSize", 100);
+        jobRepository.init();
+
+        job("job_results_1", now + 60000, -1);
+        job("job_results_2", now - 600000, now - 900000);
+        job("job_results_ids_3", now + 60000, now - 240000);
+        job("job_results_ids_4", now - 600000, -1);
+        // Another scheduler sharing the tables
+        jdbcTemplate.update("INSERT INTO QRTZ_JOB_DETAILS VALUES (?, ?, ?, ?)", "otherScheduler", "job_results_5", GROUP, "Other");
+    }
+
+    @Test
+    void testFindJobs_ShouldReturnJobsWithTriggersInNameOrder() {
+        List<BulkSchedulerJob> jobs = jobRepository.findJobs(SCHEDULER, JobFilter.all(), now);
+
+        assertEquals(List.of("job_results_1", "job_results_2", "job_results_ids_3", "job_results_ids_4"),
+                jobs.stream().map(BulkSchedulerJob::getName).toList());
+        assertEquals(GROUP, jobs.get(0).getGroup());
+        assertEquals(1, jobs.get(0).getTriggers().size());
+        assertEquals("Check job_results_1", jobs.get(0).getTriggers().get(0).getDescription());
+        assertNotNull(jobs.get(0).getTriggers().get(0).getNextFireTime());
+        assertNull(jobs.get(0).getTriggers().get(0).getPreviousFireTime());
+    }
+
+    @Test
+    void testFindJobs_ShouldPageOnJobName() {
+        List<BulkSchedulerJob> first = jobRepository.findJobs(SCHEDULER, new JobFilter(null, 3, null, false), now);
+        List<BulkSchedulerJob> second = jobRepository.findJobs(SCHEDULER, new JobFilter(first.get(2).getName(), 3, null, false), now);
+
+        assertEquals(3, first.size());
+        assertEquals(List.of("job_results_ids_4"), second.stream().map(BulkSchedulerJob::getName).toList());
+    }
+
+    @Test
+    void testFindJobs_ShouldFilterIdsAndOverdueJobs() {
+        assertEquals(List.of("job_results_ids_3", "job_results_ids_4"),
+                jobRepository.findJobs(SCHEDULER, new JobFilter(null, null, true, false), now).stream().map(BulkSchedulerJob::getName).toList());
+        assertEquals(List.of("job_results_1", "job_results_2"),
+                jobRepository.findJobs(SCHEDULER, new JobFilter(null, null, false, false), now).stream().map(BulkSchedulerJob::getName).toList());
+        assertEquals(List.of("job_results_2", "job_results_ids_4"),
+                jobRepository.findJobs(SCHEDULER, new JobFilter(null, null, null, true), now).stream().map(BulkSchedulerJob::getName).toList());
+    }
+
+    @Test
+    void testFindJobs_WhenJobHasNoTrigger_ShouldReturnJobWithoutTriggers() {
+        jdbcTemplate.update("INSERT INTO QRTZ_JOB_DETAILS VALUES (?, ?, ?, ?)", SCHEDULER, "job_results_6", GROUP, "No trigger");
+
+        List<BulkSchedulerJob> jobs = jobRepository.findJobs(SCHEDULER, new JobFilter("job_results_5", null, false, false), now);
+
+        assertEquals(1, jobs.size());
+        assertTrue(jobs.get(0).getTriggers().isEmpty());
+    }
+
+    @Test
+    void testStreamJobs_ShouldHandOverEachJobWithItsTriggers() throws Exception {
+        List<BulkSchedulerJob> jobs = new ArrayList<BulkSchedulerJob>();
+
+        jobRepository.streamJobs(SCHEDULER, new JobFilter(null, null, true, false), now, jobs::add);
+
+        assertEquals(List.of("job_results_ids_3", "job_results_ids_4"), jobs.stream().map(BulkSchedulerJob::getName).toList());
+        assertTrue(jobs.stream().allMatch(job -> job.getTriggers().size() == 1));
+    }
+
+    @Test
+    void testStreamJobs_WhenConsumerFails_ShouldStopAndRethrow() {
+        List<String> seen = new ArrayList<String>();
+
+        IOException e = assertThrows(IOException.class, () -> jobRepository.streamJobs(SCHEDULER, JobFilter.all(), now, job -> {
+            seen.add(job.getName());
+            throw new IOException("Broken pipe");
+        }));
+
+        assertEquals("Broken pipe", e.getMessage());
+        assertEquals(List.of("job_results_1"), seen);
+    }
+
+    @Test
+    void testCountJobs_ShouldApplyFilter() {
+        assertEquals(4, jobRepository.countJobs(SCHEDULER, JobFilter.all(), now));
+        assertEquals(1, jobRepository.countJobs(SCHEDULER, new JobFilter(null, null, true, true), now));
+    }
+
+    @Test
+    void testFindDueTriggers_ShouldCountWaitingTriggersPastTheirFireTime() {
+        jdbcTemplate.update("UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = 'ACQUIRED' WHERE TRIGGER_NAME = ?", "job_results_ids_4");
+
+        DueTriggers due = jobRepository.findDueTriggers(SCHEDULER, now);
+
+        assertEquals(1, due.getCount());
+        assertEquals(now - 600000, due.getOldestFireTime());
+    }
+
+    @Test
+    void testFindDueTriggers_WhenNothingDue_ShouldHaveNoOldest() {
+        DueTriggers due = jobRepository.findDueTriggers(SCHEDULER, now - 3600000);
+
+        assertEquals(0, due.getCount());
+        assertNull(due.getOldestFireTime());
+    }
+
+    private void job(String name, long nextFireTime, long previousFireTime) {
+        jdbcTemplate.update("INSERT INTO QRTZ_JOB_DETAILS VALUES (?, ?, ?, ?)", SCHEDULER, name, GROUP, "Query BigQuery status of result table");
+        jdbcTemplate.update("INSERT INTO QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP, JOB_NAME, JOB_GROUP, DESCRIPTION, "
+                + "NEXT_FIRE_TIME, PREV_FIRE_TIME) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", SCHEDULER, name, "bulk-query-triggers",
+                name, GROUP, String.format("Check %s", name), nextFireTime, previousFireTime);
+    }
+}
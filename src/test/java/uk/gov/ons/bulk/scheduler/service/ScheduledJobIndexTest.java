@@ -0,0 +1,95 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ScheduledJobIndexTest {
+
+    @InjectMocks
+    private ScheduledJobIndex scheduledJobIndex;
+
+    @Mock
+    private Scheduler scheduler;
+
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(scheduledJobIndex, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(scheduledJobIndex, "clock", Clock.fixed(now, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(scheduledJobIndex, "maxEntries", 3);
+        ReflectionTestUtils.setField(scheduledJobIndex, "ttlHours", 24L);
+
+        Set<JobKey> scheduled = Set.of(new JobKey("job_results_1", "bulk-query-jobs"));
+        when(scheduler.getJobKeys(any())).thenReturn(scheduled);
+        scheduledJobIndex.init();
+    }
+
+    @Test
+    void testInit_ShouldWarmFromScheduledJobs() {
+        assertTrue(scheduledJobIndex.contains("job_results_1"));
+        assertFalse(scheduledJobIndex.contains("job_results_2"));
+        assertEquals(1, meterRegistry.get("bulk.scheduler.dedupe").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("bulk.scheduler.dedupe").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testAdd_WhenFull_ShouldEvictOldest() {
+        scheduledJobIndex.add("job_results_2");
+        scheduledJobIndex.add("job_results_3");
+        scheduledJobIndex.add("job_results_4");
+
+        assertEquals(3, scheduledJobIndex.size());
+        assertFalse(scheduledJobIndex.contains("job_results_1"));
+        assertTrue(scheduledJobIndex.contains("job_results_4"));
+    }
+
+    @Test
+    void testContains_WhenExpired_ShouldMiss() {
+        ReflectionTestUtils.setField(scheduledJobIndex, "ttlHours", 0L);
+        scheduledJobIndex.add("job_results_ids_2");
+
+        assertFalse(scheduledJobIndex.contains("job_results_ids_2"));
+        assertEquals(1, scheduledJobIndex.size());
+    }
+
+    @Test
+    void testContains_WhenClockPassesTtl_ShouldMiss() {
+        scheduledJobIndex.add("job_results_2");
+        ReflectionTestUtils.setField(scheduledJobIndex, "clock", Clock.fixed(now.plus(Duration.ofHours(23)), ZoneOffset.UTC));
+
+        assertTrue(scheduledJobIndex.contains("job_results_2"));
+
+        ReflectionTestUtils.setField(scheduledJobIndex, "clock", Clock.fixed(now.plus(Duration.ofHours(24)), ZoneOffset.UTC));
+
+        assertFalse(scheduledJobIndex.contains("job_results_2"));
+    }
+
+    @Test
+    void testRemove_ShouldMiss() {
+        scheduledJobIndex.remove("job_results_1");
+
+        assertFalse(scheduledJobIndex.contains("job_results_1"));
+    }
+}
@@ -0,0 +1,250 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.entities.PollJob;
+import uk.gov.ons.bulk.scheduler.entities.ShardAssignment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs several replicas in process against an H2 database in MySQL mode standing in
+ * for the shared MySQL instance.
+ */
+class ShardCoordinatorTest {
+
+    private static final int PARTITIONS = 64;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<TimingWheelEngine> engines = new ArrayList<TimingWheelEngine>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                String.format("jdbc:h2:mem:%s;MODE=MySQL;DB_CLOSE_DELAY=-1", UUID.randomUUID())));
+        jdbcTemplate.execute("CREATE TABLE BULK_SCHEDULER_REPLICAS (REPLICA_ID VARCHAR(190) NOT NULL, "
+                + "HEARTBEAT BIGINT NOT NULL, PRIMARY KEY (REPLICA_ID))");
+        jdbcTemplate.execute("CREATE TABLE BULK_POLL_JOBS (JOB_NAME VARCHAR(190) NOT NULL, JOB_ID VARCHAR(190) NOT NULL, "
+                + "IDS_JOB_ID VARCHAR(190) NOT NULL, EXPECTED_ROWS INTEGER NOT NULL, NEXT_CHECK BIGINT NOT NULL, "
+                + "PARTITION_ID INTEGER NOT NULL, RECEIVED_AT BIGINT NULL, CHECKS INTEGER DEFAULT 0 NOT NULL, PRIMARY KEY (JOB_NAME))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        engines.forEach(TimingWheelEngine::stop);
+    }
+
+    @Test
+    void testHeartbeat_ShouldSplitPartitionsBetweenReplicas() {
+        List<ShardCoordinator> replicas = List.of(coordinator("replica-1", null), coordinator("replica-2", null),
+                coordinator("replica-3", null));
+
+        heartbeat(replicas);
+
+        Set<Integer> all = new HashSet<Integer>();
+        replicas.forEach(replica -> {
+            assertFalse(replica.getOwnedPartitions().isEmpty());
+            replica.getOwnedPartitions().forEach(partition -> assertTrue(all.add(partition), "Partition owned twice: " + partition));
+        });
+        assertEquals(PARTITIONS, all.size());
+    }
+
+    @Test
+    void testLeave_ShouldOnlyMoveLeavingReplicasPartitions() {
+        ShardCoordinator first = coordinator("replica-1", null);
+        ShardCoordinator second = coordinator("replica-2", null);
+        ShardCoordinator third = coordinator("replica-3", null);
+
+        heartbeat(List.of(first, second, third));
+        Set<Integer> firstBefore = first.getOwnedPartitions();
+        Set<Integer> secondBefore = second.getOwnedPartitions();
+
+        third.leave();
+        heartbeat(List.of(first, second));
+
+        assertTrue(first.getOwnedPartitions().containsAll(firstBefore));
+        assertTrue(second.getOwnedPartitions().containsAll(secondBefore));
+        assertEquals(PARTITIONS, first.getOwnedPartitions().size() + second.getOwnedPartitions().size());
+    }
+
+    @Test
+    void testHeartbeat_ShouldDropExpiredReplicas() {
+        jdbcTemplate.update("INSERT INTO BULK_SCHEDULER_REPLICAS (REPLICA_ID, HEARTBEAT) VALUES (?, ?)", "dead", 0L);
+        ShardCoordinator replica = coordinator("replica-1", null);
+
+        replica.heartbeat();
+
+        assertEquals(PARTITIONS, replica.getOwnedPartitions().size());
+        assertEquals(List.of("replica-1"), jdbcTemplate.queryForList("SELECT REPLICA_ID FROM BULK_SCHEDULER_REPLICAS", String.class));
+    }
+
+    @Test
+    void testEngines_ShouldEachPollOnlyTheirOwnShard() {
+        TimingWheelEngine firstEngine = engine();
+        TimingWheelEngine secondEngine = engine();
+        ShardCoordinator first = coordinator("replica-1", firstEngine);
+        ShardCoordinator second = coordinator("replica-2", secondEngine);
+        heartbeat(List.of(first, second));
+
+        // Every message lands on the first replica, whatever shard its job belongs to
+        IntStream.range(0, 100).forEach(i -> firstEngine.schedule(String.format("job_results_%d", i), String.valueOf(i), null, 1000));
+        heartbeat(List.of(first, second));
+
+        Set<String> firstJobs = names(firstEngine);
+        Set<String> secondJobs = names(secondEngine);
+        assertFalse(firstJobs.isEmpty());
+        assertFalse(secondJobs.isEmpty());
+        assertTrue(firstJobs.stream().noneMatch(secondJobs::contains));
+        assertEquals(100, firstJobs.size() + secondJobs.size());
+        assertEquals(100, firstEngine.countJobs());
+        // Listed from the table, whichever replica is asked
+        assertEquals(100, secondEngine.getJobs(JobFilter.all()).size());
+        assertEquals(100, secondEngine.countJobs(JobFilter.all()));
+
+        // The second replica leaves and the first takes over its jobs
+        second.leave();
+        first.heartbeat();
+
+        assertEquals(100, names(firstEngine).size());
+    }
+
+    @Test
+    void testEngine_WhenAssignmentUnchanged_ShouldOnlyReadNewlyReceivedRows() {
+        TimingWheelEngine engine = engine();
+        Set<Integer> all = IntStream.range(0, PARTITIONS).boxed().collect(Collectors.toSet());
+        engine.onShardAssignment(new ShardAssignment("replica-1", all, true));
+
+        String insert = "INSERT INTO BULK_POLL_JOBS (JOB_NAME, JOB_ID, IDS_JOB_ID, EXPECTED_ROWS, NEXT_CHECK, PARTITION_ID, RECEIVED_AT) "
+                + "VALUES (?, ?, '', 1000, ?, 0, ?)";
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update(insert, "job_results_old", "1", now + 60000, now - 3600000);
+        jdbcTemplate.update(insert, "job_results_new", "2", now + 60000, now);
+
+        engine.onShardAssignment(new ShardAssignment("replica-1", all, false));
+
+        assertEquals(Set.of("job_results_new"), names(engine));
+
+        // Only a changed assignment reads every row of the owned partitions
+        engine.onShardAssignment(new ShardAssignment("replica-1", all, true));
+
+        assertEquals(Set.of("job_results_old", "job_results_new"), names(engine));
+    }
+
+    @Test
+    void testEngine_WhenJobDeletedByAnotherReplica_ShouldDropItWithoutChecking() throws Exception {
+        TimingWheelEngine engine = engine();
+        Set<Integer> all = IntStream.range(0, PARTITIONS).boxed().collect(Collectors.toSet());
+        engine.onShardAssignment(new ShardAssignment("replica-1", all, true));
+        engine.schedule("job_results_1", "1", null, 1000);
+        PollJob job = jdbcTemplate.queryForObject("SELECT NEXT_CHECK FROM BULK_POLL_JOBS WHERE JOB_NAME = 'job_results_1'",
+                (rs, rowNum) -> new PollJob("job_results_1", "1", null, 1000, rs.getLong("NEXT_CHECK"), null, 0));
+
+        jdbcTemplate.update("DELETE FROM BULK_POLL_JOBS WHERE JOB_NAME = 'job_results_1'");
+        engine.check(job);
+
+        JobService jobService = (JobService) ReflectionTestUtils.getField(engine, "jobService");
+        verify(jobService, never()).poll(anyString(), any(), anyInt(), any(), any(), anyInt());
+        assertTrue(engine.getHeldJobs().isEmpty());
+    }
+
+    @Test
+    void testEngine_ShouldLeaseJobBeforeCheckingIt() throws Exception {
+        TimingWheelEngine engine = engine();
+        Set<Integer> all = IntStream.range(0, PARTITIONS).boxed().collect(Collectors.toSet());
+        engine.onShardAssignment(new ShardAssignment("replica-1", all, true));
+        engine.schedule("job_results_1", "1", null, 1000);
+        long nextCheck = jdbcTemplate.queryForObject("SELECT NEXT_CHECK FROM BULK_POLL_JOBS WHERE JOB_NAME = 'job_results_1'", Long.class);
+        JobService jobService = (JobService) ReflectionTestUtils.getField(engine, "jobService");
+        when(jobService.poll(anyString(), any(), anyInt(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            // Another replica reading the row now finds it leased
+            assertNotEquals(nextCheck, (long) jdbcTemplate.queryForObject("SELECT NEXT_CHECK FROM BULK_POLL_JOBS WHERE JOB_NAME = 'job_results_1'", Long.class));
+            return Duration.ofMinutes(1);
+        });
+
+        engine.check(new PollJob("job_results_1", "1", null, 1000, nextCheck, null, 0));
+
+        verify(jobService).poll(eq("1"), isNull(), eq(1000), any(), any(), eq(0));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT CHECKS FROM BULK_POLL_JOBS WHERE JOB_NAME = 'job_results_1'", Integer.class));
+    }
+
+    private ShardCoordinator coordinator(String replicaId, TimingWheelEngine engine) {
+        ShardCoordinator coordinator = new ShardCoordinator();
+        ReflectionTestUtils.setField(coordinator, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(coordinator, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(coordinator, "eventPublisher", (ApplicationEventPublisher) event -> {
+            if (engine != null) {
+                engine.onShardAssignment((ShardAssignment) event);
+            }
+        });
+        ReflectionTestUtils.setField(coordinator, "replicaId", replicaId);
+        ReflectionTestUtils.setField(coordinator, "partitions", PARTITIONS);
+        ReflectionTestUtils.setField(coordinator, "virtualNodes", 64);
+        ReflectionTestUtils.setField(coordinator, "expiryMillis", 60000L);
+
+        try {
+            coordinator.init();
+        } catch (Exception e) {
+            fail(e);
+        }
+
+        return coordinator;
+    }
+
+    private TimingWheelEngine engine() {
+        TimingWheelEngine engine = new TimingWheelEngine();
+        ReflectionTestUtils.setField(engine, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(engine, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(engine, "jobService", mock(JobService.class));
+        ReflectionTestUtils.setField(engine, "adaptivePollPolicy", mock(AdaptivePollPolicy.class));
+        ReflectionTestUtils.setField(engine, "jobListingCache", mock(JobListingCache.class));
+        ReflectionTestUtils.setField(engine, "jobEventBroadcaster", mock(JobEventBroadcaster.class));
+        ReflectionTestUtils.setField(engine, "pipelineMetrics", mock(PipelineMetrics.class));
+        ReflectionTestUtils.setField(engine, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engine, "frequencyInMinutes", 5);
+        ReflectionTestUtils.setField(engine, "maxJitterSeconds", 0L);
+        ReflectionTestUtils.setField(engine, "tickMillis", 1000L);
+        ReflectionTestUtils.setField(engine, "wheelSize", 60);
+        ReflectionTestUtils.setField(engine, "maxConcurrentChecks", 2);
+        ReflectionTestUtils.setField(engine, "shardingEnabled", true);
+        ReflectionTestUtils.setField(engine, "partitions", PARTITIONS);
+        ReflectionTestUtils.setField(engine, "pickupOverlapMillis", 60000L);
+        engine.init();
+        engines.add(engine);
+
+        return engine;
+    }
+
+    private void heartbeat(List<ShardCoordinator> replicas) {
+        // Twice, so that replicas that started first see the ones that started after them
+        replicas.forEach(ShardCoordinator::heartbeat);
+        replicas.forEach(ShardCoordinator::heartbeat);
+    }
+
+    private Set<String> names(TimingWheelEngine engine) {
+        return engine.getHeldJobs();
+    }
+}
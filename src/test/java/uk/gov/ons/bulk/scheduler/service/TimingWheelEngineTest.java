@@ -0,0 +1,238 @@
+package uk.gov.ons.bulk.scheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.quartz.JobKey;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.ons.bulk.scheduler.entities.BulkSchedulerJob;
+import uk.gov.ons.bulk.scheduler.entities.JobEvent;
+import uk.gov.ons.bulk.scheduler.entities.JobFilter;
+import uk.gov.ons.bulk.scheduler.entities.PollJob;
+import uk.gov.ons.bulk.scheduler.exception.BigQueryUnavailableException;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class TimingWheelEngineTest {
+
+    @InjectMocks
+    private TimingWheelEngine timingWheelEngine;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JobService jobService;
+
+    @Mock
+    private AdaptivePollPolicy adaptivePollPolicy;
+
+    @Mock
+    private JobListingCache jobListingCache;
+
+    @Mock
+    private JobEventBroadcaster jobEventBroadcaster;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
+
+    private final JobKey key = new JobKey("job_results_123", "bulk-query-jobs");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(timingWheelEngine, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(timingWheelEngine, "clock", Clock.systemDefaultZone());
+        ReflectionTestUtils.setField(timingWheelEngine, "frequencyInMinutes", 5);
+        ReflectionTestUtils.setField(timingWheelEngine, "adaptiveEnabled", false);
+        ReflectionTestUtils.setField(timingWheelEngine, "maxJitterSeconds", 0L);
+        ReflectionTestUtils.setField(timingWheelEngine, "tickMillis", 10L);
+        ReflectionTestUtils.setField(timingWheelEngine, "wheelSize", 60);
+        ReflectionTestUtils.setField(timingWheelEngine, "maxConcurrentChecks", 2);
+        ReflectionTestUtils.setField(timingWheelEngine, "partitions", 256);
+        when(jdbcTemplate.getDataSource()).thenReturn(mock(DataSource.class));
+        timingWheelEngine.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        timingWheelEngine.stop();
+    }
+
+    @Test
+    void testSchedule_ShouldInsertRowAndTrackJob() {
+        assertTrue(timingWheelEngine.schedule("job_results_123", "123", null, 1000));
+
+        verify(jdbcTemplate).update(startsWith("INSERT INTO BULK_POLL_JOBS"), eq("job_results_123"), eq("123"), eq(""), eq(1000), anyLong(), anyInt(), anyLong());
+        assertEquals(1, timingWheelEngine.size());
+        verify(jobEventBroadcaster).publish(JobEvent.Type.SCHEDULED, "job_results_123");
+    }
+
+    @Test
+    void testGetJobs_ShouldListTheTable() {
+        useDatabase();
+        timingWheelEngine.schedule("job_results_123", "123", null, 1000);
+
+        List<BulkSchedulerJob> jobs = timingWheelEngine.getJobs(JobFilter.all());
+        assertEquals(1, jobs.size());
+        assertEquals("job_results_123", jobs.get(0).getName());
+        assertEquals(1, jobs.get(0).getTriggers().size());
+        assertEquals(1, timingWheelEngine.countJobs());
+    }
+
+    @Test
+    void testGetJobs_ShouldFilterAndPageInNameOrder() {
+        useDatabase();
+        timingWheelEngine.schedule("job_results_ids_3", "3", "ids3", 1000);
+        timingWheelEngine.schedule("job_results_2", "2", null, 1000);
+        timingWheelEngine.schedule("job_results_1", "1", null, 1000);
+
+        assertEquals(List.of("job_results_1", "job_results_2"), timingWheelEngine.getJobs(new JobFilter(null, 2, null, false))
+                .stream().map(BulkSchedulerJob::getName).toList());
+        assertEquals(List.of("job_results_2"), timingWheelEngine.getJobs(new JobFilter("job_results_1", null, false, false))
+                .stream().map(BulkSchedulerJob::getName).toList());
+        assertEquals(1, timingWheelEngine.countJobs(new JobFilter(null, null, true, false)));
+        assertEquals(0, timingWheelEngine.countJobs(new JobFilter(null, null, null, true)));
+    }
+
+    @Test
+    void testSchedule_WhenAlreadyScheduled_ShouldReturnFalse() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO BULK_POLL_JOBS"), any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new DuplicateKeyException("Duplicate entry"));
+
+        assertFalse(timingWheelEngine.schedule("job_results_123", "123", null, 1000));
+        assertEquals(0, timingWheelEngine.size());
+        verify(jobListingCache, never()).put(any());
+    }
+
+    @Test
+    void testDelete_ShouldRemoveRowAndJob() {
+        timingWheelEngine.schedule("job_results_123", "123", null, 1000);
+        when(jdbcTemplate.update(startsWith("DELETE FROM BULK_POLL_JOBS"), eq("job_results_123"))).thenReturn(1);
+
+        assertTrue(timingWheelEngine.delete(key));
+        assertEquals(0, timingWheelEngine.size());
+        verify(jobListingCache).put(any());
+        verify(jobListingCache).remove("job_results_123");
+        verify(jobEventBroadcaster).publish(JobEvent.Type.DELETED, "job_results_123");
+    }
+
+    @Test
+    void testTick_ShouldCheckDueJobs() throws Exception {
+        ReflectionTestUtils.setField(timingWheelEngine, "frequencyInMinutes", 0);
+        timingWheelEngine.schedule("job_results_123", "123", null, 1000);
+
+        Thread.sleep(30);
+        timingWheelEngine.tick();
+
+        verify(jobService, timeout(1000)).poll(eq("123"), isNull(), eq(1000), eq(key), any(), anyInt());
+    }
+
+    @Test
+    void testTick_WhenSimulated_ShouldCheckDueJobsByTheClockOnTheCallingThread() throws Exception {
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        ReflectionTestUtils.setField(timingWheelEngine, "clock", Clock.fixed(start, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(timingWheelEngine, "tickMillis", 1000L);
+        ReflectionTestUtils.setField(timingWheelEngine, "simulated", true);
+        timingWheelEngine.init();
+        when(jobService.poll(eq("123"), isNull(), eq(1000), eq(key), any(), anyInt())).thenReturn(Duration.ofMinutes(1));
+        when(jdbcTemplate.update(startsWith("UPDATE BULK_POLL_JOBS SET NEXT_CHECK"), anyLong(), anyInt(), anyString())).thenReturn(1);
+
+        timingWheelEngine.schedule("job_results_123", "123", null, 1000);
+        tickAt(start.plus(Duration.ofMinutes(4)));
+
+        verify(jobService, never()).poll(anyString(), any(), anyInt(), any(), any(), anyInt());
+
+        tickAt(start.plus(Duration.ofMinutes(5)).plusSeconds(1));
+
+        verify(jobService).poll(eq("123"), isNull(), eq(1000), eq(key), any(), anyInt());
+        verify(jdbcTemplate).update(startsWith("UPDATE BULK_POLL_JOBS SET NEXT_CHECK"),
+                eq(start.plus(Duration.ofMinutes(6)).plusSeconds(1).toEpochMilli()), eq(1), eq("job_results_123"));
+    }
+
+    @Test
+    void testCheck_WhenNotReady_ShouldMoveNextCheck() throws Exception {
+        timingWheelEngine.schedule("job_results_123", "123", null, 1000);
+        PollJob job = new PollJob("job_results_123", "123", null, 1000, System.currentTimeMillis(), null, 0);
+        when(jobService.poll(eq("123"), isNull(), eq(1000), eq(key), any(), anyInt())).thenReturn(Duration.ofSeconds(30));
+        when(jdbcTemplate.update(startsWith("UPDATE BULK_POLL_JOBS SET NEXT_CHECK"), anyLong(), anyInt(), anyString())).thenReturn(1);
+
+        long before = System.currentTimeMillis();
+        timingWheelEngine.check(job);
+
+        verify(jdbcTemplate).update(startsWith("UPDATE BULK_POLL_JOBS SET NEXT_CHECK"),
+                longThat(nextCheck -> nextCheck >= before + 30000), eq(1), eq("job_results_123"));
+    }
+
+    @Test
+    void testCheck_WhenBigQueryUnavailable_ShouldDeferByRetryAfter() throws Exception {
+        timingWheelEngine.schedule("job_results_123", "123", null, 1000);
+        PollJob job = new PollJob("job_results_123", "123", null, 1000, System.currentTimeMillis(), null, 0);
+        when(jobService.poll(anyString(), any(), anyInt(), any(), any(), anyInt()))
+                .thenThrow(new BigQueryUnavailableException("circuit open", Duration.ofSeconds(10)));
+
+        long before = System.currentTimeMillis();
+        timingWheelEngine.check(job);
+
+        verify(jdbcTemplate).update(startsWith("UPDATE BULK_POLL_JOBS SET NEXT_CHECK"),
+                longThat(nextCheck -> nextCheck >= before + 10000 && nextCheck < before + 60000), eq(0), eq("job_results_123"));
+    }
+
+    @Test
+    void testCheck_WhenRowDeletedElsewhere_ShouldForgetJob() throws Exception {
+        timingWheelEngine.schedule("job_results_123", "123", null, 1000);
+        PollJob job = new PollJob("job_results_123", "123", null, 1000, System.currentTimeMillis(), null, 0);
+        when(jobService.poll(eq("123"), isNull(), eq(1000), eq(key), any(), anyInt())).thenReturn(Duration.ofSeconds(30));
+
+        timingWheelEngine.check(job);
+
+        assertEquals(0, timingWheelEngine.size());
+    }
+
+    @Test
+    void testCheck_WhenJobDeleted_ShouldNotReschedule() throws Exception {
+        PollJob job = new PollJob("job_results_123", "123", null, 1000, System.currentTimeMillis(), null, 0);
+
+        timingWheelEngine.check(job);
+
+        verify(jdbcTemplate, never()).update(startsWith("UPDATE BULK_POLL_JOBS"), anyLong(), anyInt(), anyString());
+    }
+
+    private void useDatabase() {
+        JdbcTemplate database = new JdbcTemplate(new DriverManagerDataSource(
+                String.format("jdbc:h2:mem:%s;MODE=MySQL;DB_CLOSE_DELAY=-1", UUID.randomUUID())));
+        database.execute("CREATE TABLE BULK_POLL_JOBS (JOB_NAME VARCHAR(190) NOT NULL, JOB_ID VARCHAR(190) NOT NULL, "
+                + "IDS_JOB_ID VARCHAR(190) NOT NULL, EXPECTED_ROWS INTEGER NOT NULL, NEXT_CHECK BIGINT NOT NULL, "
+                + "PARTITION_ID INTEGER NOT NULL, RECEIVED_AT BIGINT NULL, CHECKS INTEGER DEFAULT 0 NOT NULL, PRIMARY KEY (JOB_NAME))");
+        timingWheelEngine.stop();
+        ReflectionTestUtils.setField(timingWheelEngine, "jdbcTemplate", database);
+        timingWheelEngine.init();
+    }
+
+    private void tickAt(Instant now) {
+        ReflectionTestUtils.setField(timingWheelEngine, "clock", Clock.fixed(now, ZoneOffset.UTC));
+        timingWheelEngine.tick();
+    }
+}
@@ -0,0 +1,52 @@
+package uk.gov.ons.bulk.scheduler.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    @Test
+    void testNodeFor_WhenEmpty_ShouldReturnNull() {
+        assertNull(new ConsistentHashRing(List.of(), 64).nodeFor("partition-1"));
+    }
+
+    @Test
+    void testNodeFor_ShouldSpreadKeysEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c", "d"), 64);
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+
+        for (int i = 0; i < 10000; i++) {
+            counts.merge(ring.nodeFor(String.format("partition-%d", i)), 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+        counts.values().forEach(count -> assertTrue(count > 1500 && count < 3500, "Uneven share: " + count));
+    }
+
+    @Test
+    void testNodeFor_WhenNodeLeaves_ShouldOnlyMoveItsKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 64);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b"), 64);
+
+        for (int i = 0; i < 1000; i++) {
+            String key = String.format("partition-%d", i);
+
+            if (!before.nodeFor(key).equals("c")) {
+                assertEquals(before.nodeFor(key), after.nodeFor(key));
+            }
+        }
+    }
+
+    @Test
+    void testPartitionOf_ShouldBeStableAndInRange() {
+        int partition = ConsistentHashRing.partitionOf("job_results_123", 256);
+
+        assertEquals(partition, ConsistentHashRing.partitionOf("job_results_123", 256));
+        assertTrue(partition >= 0 && partition < 256);
+    }
+}
@@ -0,0 +1,79 @@
+package uk.gov.ons.bulk.scheduler.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicroBatcherTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    void testFlush_ShouldHandOverEverythingCollectedAsOneBatch() {
+        MicroBatcher<String> batcher = new MicroBatcher<String>("test-batch", 60000, 100, batches::add);
+
+        batcher.add("a");
+        batcher.add("b");
+        batcher.flush();
+        batcher.flush();
+
+        assertEquals(List.of(List.of("a", "b")), batches);
+        batcher.shutdownNow();
+    }
+
+    @Test
+    void testAdd_WhenBatchIsFull_ShouldFlushWithoutWaitingForWindow() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        MicroBatcher<String> batcher = new MicroBatcher<String>("test-batch", 60000, 2, batch -> {
+            batches.add(batch);
+            flushed.countDown();
+        });
+
+        batcher.add("a");
+        batcher.add("b");
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("a", "b")), batches);
+        batcher.shutdownNow();
+    }
+
+    @Test
+    void testAdd_ShouldFlushOnceWindowHasPassed() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        MicroBatcher<String> batcher = new MicroBatcher<String>("test-batch", 20, 100, batch -> {
+            batches.add(batch);
+            flushed.countDown();
+        });
+
+        batcher.add("a");
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("a")), batches);
+        batcher.shutdownNow();
+    }
+
+    @Test
+    void testShutdownNow_ShouldReturnWhatWasNeverHandedOver() {
+        MicroBatcher<String> batcher = new MicroBatcher<String>("test-batch", 60000, 100, batches::add);
+
+        batcher.add("a");
+
+        assertEquals(List.of("a"), batcher.shutdownNow());
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void testClose_ShouldHandOverWhatIsLeft() {
+        MicroBatcher<String> batcher = new MicroBatcher<String>("test-batch", 60000, 100, batches::add);
+
+        batcher.add("a");
+        batcher.close(5000);
+
+        assertEquals(List.of(List.of("a")), batches);
+    }
+}
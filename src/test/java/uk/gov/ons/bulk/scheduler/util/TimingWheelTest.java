@@ -0,0 +1,72 @@
+package uk.gov.ons.bulk.scheduler.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void testAdvance_ShouldReturnItemOnceItsDeadlineHasPassed() {
+        TimingWheel<String> wheel = new TimingWheel<String>(1000, 60, 0);
+        wheel.add("job", 5500);
+
+        assertTrue(wheel.advance(5000).isEmpty());
+        assertEquals(List.of("job"), wheel.advance(6000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdd_WhenDeadlineAlreadyPassed_ShouldReturnOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<String>(1000, 60, 10000);
+        wheel.add("overdue", 2000);
+
+        assertEquals(List.of("overdue"), wheel.advance(10000));
+    }
+
+    @Test
+    void testAdvance_ShouldCascadeItemsBeyondFirstWheel() {
+        TimingWheel<String> wheel = new TimingWheel<String>(1000, 60, 0);
+        wheel.add("hour", 3_600_000);
+        wheel.add("day", 86_400_000);
+
+        assertEquals(2, wheel.size());
+        assertTrue(wheel.advance(3_599_000).isEmpty());
+        assertEquals(List.of("hour"), wheel.advance(3_601_000));
+        assertTrue(wheel.advance(86_399_000).isEmpty());
+        assertEquals(List.of("day"), wheel.advance(86_401_000));
+    }
+
+    @Test
+    void testAdvance_ShouldNeverReturnItemsEarlyOrLose() {
+        Random random = new Random(42);
+        TimingWheel<Integer> wheel = new TimingWheel<Integer>(1000, 60, 1_000_123);
+        Map<Integer, Long> deadlines = new HashMap<Integer, Long>();
+        List<Integer> expired = new ArrayList<Integer>();
+        long now = 1_000_123;
+
+        for (int i = 0; i < 10000; i++) {
+            long deadline = now + (long) (Math.pow(random.nextDouble(), 3) * 10_000_000);
+            deadlines.put(i, deadline);
+            wheel.add(i, deadline);
+
+            now += random.nextInt(2000);
+            for (int item : wheel.advance(now)) {
+                assertTrue(deadlines.get(item) <= now);
+                assertTrue(now - deadlines.get(item) <= 3000);
+                expired.add(item);
+            }
+        }
+
+        expired.addAll(wheel.advance(now + 20_000_000));
+        assertEquals(10000, expired.size());
+        assertEquals(10000, expired.stream().distinct().count());
+        assertEquals(0, wheel.size());
+    }
+}